@@ -0,0 +1,16 @@
+package org.acssz.ezclaim.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Tells other instances to drop an entry; {@code id} null drops the whole cache. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidation {
+  private String cache; // claims | photos | tags
+  private String id;
+}
@@ -0,0 +1,6 @@
+package org.acssz.ezclaim.cache;
+
+/** Carries local invalidations to the other instances sharing the database. */
+public interface CacheInvalidationPublisher {
+  void publish(CacheInvalidation invalidation);
+}
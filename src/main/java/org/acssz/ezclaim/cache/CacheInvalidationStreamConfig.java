@@ -0,0 +1,36 @@
+package org.acssz.ezclaim.cache;
+
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Fans cache invalidations out to every instance over the stream binder. The input binding has no
+ * consumer group, so each instance receives every message, its own included.
+ */
+@Configuration
+@Slf4j
+@Profile({"dev", "prod"})
+public class CacheInvalidationStreamConfig {
+  private static final String OUT_BINDING = "cacheInvalidations-out-0";
+
+  @Bean
+  public CacheInvalidationPublisher cacheInvalidationPublisher(StreamBridge streamBridge) {
+    return invalidation -> {
+      if (!streamBridge.send(OUT_BINDING, invalidation)) {
+        log.warn(
+            "Failed to broadcast cache invalidation {}:{}; other instances rely on the TTL",
+            invalidation.getCache(),
+            invalidation.getId());
+      }
+    };
+  }
+
+  @Bean
+  public Consumer<CacheInvalidation> cacheInvalidations(EntityCaches caches) {
+    return msg -> caches.evictLocal(msg.getCache(), msg.getId());
+  }
+}
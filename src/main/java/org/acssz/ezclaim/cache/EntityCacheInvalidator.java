@@ -0,0 +1,54 @@
+package org.acssz.ezclaim.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalidates cached entities on the same Mongo lifecycle events the audit publisher listens to,
+ * including the ones ClaimService raises for its conditional updates.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EntityCacheInvalidator extends AbstractMongoEventListener<Object> {
+  private final EntityCaches caches;
+
+  @Override
+  public void onAfterSave(AfterSaveEvent<Object> event) {
+    if (!caches.caches(event.getCollectionName())) return;
+    Document doc = event.getDocument();
+    Object id = doc != null ? doc.get("_id") : null;
+    caches.invalidate(event.getCollectionName(), idOf(id));
+    // Cached claims embed their tags. Photos change in place only when their variants are
+    // recorded; claims embedding one may list its variants late, until the claim entry expires
+    if (EntityCaches.TAGS.equals(event.getCollectionName())) {
+      caches.invalidate(EntityCaches.CLAIMS, null);
+    }
+  }
+
+  @Override
+  public void onAfterDelete(AfterDeleteEvent<Object> event) {
+    if (!caches.caches(event.getCollectionName())) return;
+    // The event carries the delete filter, keyed by property or field name depending on the
+    // caller; anything other than a single id (e.g. {$in: [...]}) drops the whole cache
+    Document filter = event.getDocument();
+    Object id =
+        filter == null ? null : filter.containsKey("_id") ? filter.get("_id") : filter.get("id");
+    caches.invalidate(event.getCollectionName(), idOf(id));
+    if (!EntityCaches.CLAIMS.equals(event.getCollectionName())) {
+      caches.invalidate(EntityCaches.CLAIMS, null);
+    }
+  }
+
+  // null (drop everything) when the changed entry cannot be identified
+  private static String idOf(Object id) {
+    if (id instanceof ObjectId || id instanceof String) return id.toString();
+    return null;
+  }
+}
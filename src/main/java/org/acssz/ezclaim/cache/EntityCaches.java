@@ -0,0 +1,91 @@
+package org.acssz.ezclaim.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Map;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.acssz.ezclaim.config.EntityCacheProperties;
+
+/**
+ * Node-local, size- and TTL-bounded caches of claims, photos and tags by id, named after their
+ * collections. Writes invalidate through {@link EntityCacheInvalidator}; {@link #invalidate} also
+ * tells the other instances when a {@link CacheInvalidationPublisher} is configured.
+ *
+ * <p>Cached objects are shared between requests; callers must treat them as read-only and load from
+ * the repository when they intend to modify and save.
+ *
+ * <p>Meters (tag {@code cache}): {@code cache.gets} (tag {@code result} hit/miss), {@code
+ * cache.puts}, {@code cache.evictions}, {@code cache.size}.
+ */
+@Slf4j
+public class EntityCaches {
+  public static final String CLAIMS = "claims";
+  public static final String PHOTOS = "photos";
+  public static final String TAGS = "tags";
+
+  private final Map<String, Cache<String, Object>> caches;
+  private final CacheInvalidationPublisher remote;
+
+  /** {@code remote} may be null on a single instance. */
+  public EntityCaches(
+      EntityCacheProperties props, MeterRegistry registry, CacheInvalidationPublisher remote) {
+    this.remote = remote;
+    this.caches =
+        Map.of(
+            CLAIMS, build(props, registry, CLAIMS),
+            PHOTOS, build(props, registry, PHOTOS),
+            TAGS, build(props, registry, TAGS));
+  }
+
+  /**
+   * The cached entity, or the loader's result, which is cached unless null. Concurrent misses for
+   * the same id share one load; exceptions from the loader propagate unchanged.
+   */
+  public <T> T get(String cache, String id, Class<T> type, Supplier<T> loader) {
+    return type.cast(caches.get(cache).get(id, k -> loader.get()));
+  }
+
+  /** The cached entity without loading it, or null. */
+  public <T> T getIfPresent(String cache, String id, Class<T> type) {
+    return type.cast(caches.get(cache).getIfPresent(id));
+  }
+
+  /** Drops the entry here and on every other instance; {@code id} null drops the whole cache. */
+  public void invalidate(String cache, String id) {
+    if (!caches.containsKey(cache)) return;
+    evictLocal(cache, id);
+    if (remote != null) remote.publish(new CacheInvalidation(cache, id));
+  }
+
+  /** Drops the entry on this instance only; for invalidations received from other instances. */
+  public void evictLocal(String cache, String id) {
+    Cache<String, Object> c = caches.get(cache);
+    if (c == null) return;
+    if (id == null) {
+      c.invalidateAll();
+    } else {
+      c.invalidate(id);
+    }
+  }
+
+  /** Whether entities stored in {@code collection} are cached here. */
+  public boolean caches(String collection) {
+    return caches.containsKey(collection);
+  }
+
+  private static Cache<String, Object> build(
+      EntityCacheProperties props, MeterRegistry registry, String name) {
+    // A zero TTL expires entries on write, which turns the cache off without special cases
+    Cache<String, Object> cache =
+        Caffeine.newBuilder()
+            .maximumSize(props.getMaximumSize())
+            .expireAfterWrite(props.getTtl())
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(registry, cache, name);
+    return cache;
+  }
+}
@@ -0,0 +1,22 @@
+package org.acssz.ezclaim.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.acssz.ezclaim.cache.CacheInvalidationPublisher;
+import org.acssz.ezclaim.cache.EntityCaches;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(EntityCacheProperties.class)
+public class CacheConfig {
+
+  @Bean
+  public EntityCaches entityCaches(
+      EntityCacheProperties props,
+      MeterRegistry registry,
+      ObjectProvider<CacheInvalidationPublisher> remote) {
+    return new EntityCaches(props, registry, remote.getIfAvailable());
+  }
+}
@@ -17,6 +17,9 @@ public class CorsConfig {
     c.setAllowedOriginPatterns(List.of("https://*.acssz.org", "https://acssz.org"));
     c.setAllowedMethods(List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "HEAD"));
     c.setAllowedHeaders(List.of("*"));
+    // Let browser clients read the validators they echo back in If-Match / If-None-Match, and
+    // tell a replayed idempotent create from a fresh one
+    c.setExposedHeaders(List.of("ETag", "Last-Modified", "Idempotent-Replayed"));
     c.setAllowCredentials(true);
     c.setMaxAge(Duration.ofHours(1));
 
@@ -0,0 +1,32 @@
+package org.acssz.ezclaim.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.cache")
+public class EntityCacheProperties {
+  /** Entries kept per cache (claims, photos, tags) before the least useful are evicted. */
+  private long maximumSize = 10_000;
+
+  /**
+   * Upper bound on how long an entry is served after it was loaded; a backstop for writes whose
+   * invalidation was missed. Zero disables caching.
+   */
+  private Duration ttl = Duration.ofMinutes(5);
+
+  public long getMaximumSize() {
+    return maximumSize;
+  }
+
+  public void setMaximumSize(long maximumSize) {
+    this.maximumSize = maximumSize;
+  }
+
+  public Duration getTtl() {
+    return ttl;
+  }
+
+  public void setTtl(Duration ttl) {
+    this.ttl = ttl;
+  }
+}
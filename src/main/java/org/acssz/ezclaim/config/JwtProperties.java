@@ -14,6 +14,9 @@ public class JwtProperties {
   /** Algorithm id. Currently only HS256 is supported. */
   private String algorithm = "HS256";
 
+  /** Lifetime of claim-scoped access tokens issued for password-protected claims. */
+  private Duration claimAccessTtl = Duration.ofMinutes(30);
+
   public String getSecret() {
     return secret;
   }
@@ -37,4 +40,12 @@ public class JwtProperties {
   public void setAlgorithm(String algorithm) {
     this.algorithm = algorithm;
   }
+
+  public Duration getClaimAccessTtl() {
+    return claimAccessTtl;
+  }
+
+  public void setClaimAccessTtl(Duration claimAccessTtl) {
+    this.claimAccessTtl = claimAccessTtl;
+  }
 }
@@ -0,0 +1,61 @@
+package org.acssz.ezclaim.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.acssz.ezclaim.domain.Claim;
+import org.acssz.ezclaim.service.ClaimAmountMigration;
+import org.acssz.ezclaim.service.ClaimRollupService;
+import org.acssz.ezclaim.service.ConflictException;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+@Configuration
+@Slf4j
+@Profile({"dev", "prod"})
+public class MongoMigrationConfig {
+
+  // Claims written before @Version existed would otherwise be treated as new and re-inserted
+  @Bean
+  public CommandLineRunner backfillClaimVersion(MongoTemplate template) {
+    return _ -> {
+      long n =
+          template
+              .updateMulti(
+                  Query.query(Criteria.where("version").exists(false)),
+                  new Update().set("version", 0L),
+                  Claim.class)
+              .getModifiedCount();
+      if (n > 0) log.info("Initialised version on {} claim(s)", n);
+    };
+  }
+
+  // Amounts used to be written as strings; convert them so the database can range-query and sum
+  @Bean
+  public CommandLineRunner migrateClaimAmounts(ClaimAmountMigration migration) {
+    return _ -> {
+      long n = migration.run();
+      if (n > 0) log.info("Converted amount on {} claim(s)", n);
+    };
+  }
+
+  // Rollups are maintained incrementally from here on; seed them once for existing claims
+  @Bean
+  public CommandLineRunner seedClaimRollups(MongoTemplate template, ClaimRollupService rollups) {
+    return _ -> {
+      if (template.count(new Query(), ClaimRollupService.COLLECTION) == 0
+          && template.count(new Query(), Claim.class) > 0) {
+        try {
+          rollups.rebuild();
+        } catch (ConflictException e) {
+          // Another node started up at the same time and is seeding them
+          log.info("Claim rollup seed skipped: {}", e.getMessage());
+        }
+      }
+    };
+  }
+}
@@ -2,6 +2,9 @@ package org.acssz.ezclaim.config;
 
 import java.net.URI;
 import lombok.extern.slf4j.Slf4j;
+import org.acssz.ezclaim.storage.LocalObjectStore;
+import org.acssz.ezclaim.storage.S3ObjectStore;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -11,7 +14,16 @@ import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.retry.RetryMode;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.core.retry.backoff.FullJitterBackoffStrategy;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3ClientBuilder;
 import software.amazon.awssdk.services.s3.S3Configuration;
@@ -23,69 +35,138 @@ import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner.Builder;
 
 @Configuration
-@EnableConfigurationProperties(ObjectStoreProperties.class)
+@EnableConfigurationProperties({ObjectStoreProperties.class, PhotoVariantProperties.class})
 @Slf4j
 public class ObjectStoreConfig {
 
+  /** One provider for every client, so credentials are resolved and refreshed once. */
   @Bean
-  public S3Client s3Client(ObjectStoreProperties props) {
-    S3ClientBuilder builder = S3Client.builder();
-
-    Region region = Region.of(props.getRegion() != null ? props.getRegion() : "us-east-1");
-    builder.region(region);
-
-    AwsCredentialsProvider credsProvider;
+  public AwsCredentialsProvider objectStoreCredentials(ObjectStoreProperties props) {
     if (props.getAccessKey() != null && props.getSecretKey() != null) {
-      credsProvider =
-          StaticCredentialsProvider.create(
-              AwsBasicCredentials.create(props.getAccessKey(), props.getSecretKey()));
-    } else {
-      credsProvider = DefaultCredentialsProvider.create();
-    }
-    builder.credentialsProvider(credsProvider);
-
-    if (props.getEndpoint() != null && !props.getEndpoint().isBlank()) {
-      builder.endpointOverride(URI.create(props.getEndpoint()));
+      return StaticCredentialsProvider.create(
+          AwsBasicCredentials.create(props.getAccessKey(), props.getSecretKey()));
     }
+    return DefaultCredentialsProvider.create();
+  }
 
-    boolean pathStyle =
-        props.getPathStyle() != null
-            ? props.getPathStyle()
-            : (props.getEndpoint() != null); // default true when using custom endpoint
+  /**
+   * Connection pool behind the blocking client. A bean rather than SDK-owned so it is built once,
+   * sized by {@code max-connections}, and closed by the context on shutdown.
+   */
+  @Bean
+  public SdkHttpClient objectStoreHttpClient(ObjectStoreProperties props) {
+    return ApacheHttpClient.builder()
+        .maxConnections(props.getMaxConnections())
+        .connectionTimeout(props.getConnectTimeout())
+        .socketTimeout(props.getSocketTimeout())
+        .connectionAcquisitionTimeout(props.getConnectionAcquireTimeout())
+        .connectionTimeToLive(props.getConnectionTtl())
+        .connectionMaxIdleTime(props.getConnectionMaxIdle())
+        .build();
+  }
 
-    builder.serviceConfiguration(
-        S3Configuration.builder().pathStyleAccessEnabled(pathStyle).build());
+  @Bean
+  public S3Client s3Client(
+      ObjectStoreProperties props,
+      AwsCredentialsProvider objectStoreCredentials,
+      SdkHttpClient objectStoreHttpClient) {
+    S3ClientBuilder builder =
+        S3Client.builder()
+            .credentialsProvider(objectStoreCredentials)
+            .httpClient(objectStoreHttpClient)
+            .overrideConfiguration(overrides(props))
+            .region(region(props))
+            .serviceConfiguration(serviceConfiguration(props));
+    if (hasEndpoint(props)) builder.endpointOverride(URI.create(props.getEndpoint()));
+    return builder.build();
+  }
 
+  /**
+   * Non-blocking client for calls whose callers can overlap them: deleting a photo's objects and
+   * paging through the bucket during garbage collection. Same pool limits and retry policy as the
+   * blocking client; the Netty pool is owned by, and closed with, this client.
+   */
+  @Bean
+  @ConditionalOnProperty(name = "app.objectstore.async-client", havingValue = "true")
+  public S3AsyncClient s3AsyncClient(
+      ObjectStoreProperties props, AwsCredentialsProvider objectStoreCredentials) {
+    S3AsyncClientBuilder builder =
+        S3AsyncClient.builder()
+            .credentialsProvider(objectStoreCredentials)
+            .httpClientBuilder(
+                NettyNioAsyncHttpClient.builder()
+                    .maxConcurrency(props.getMaxConnections())
+                    .connectionTimeout(props.getConnectTimeout())
+                    .readTimeout(props.getSocketTimeout())
+                    .writeTimeout(props.getSocketTimeout())
+                    .connectionAcquisitionTimeout(props.getConnectionAcquireTimeout())
+                    .connectionTimeToLive(props.getConnectionTtl())
+                    .connectionMaxIdleTime(props.getConnectionMaxIdle()))
+            .overrideConfiguration(overrides(props))
+            .region(region(props))
+            .serviceConfiguration(serviceConfiguration(props));
+    if (hasEndpoint(props)) builder.endpointOverride(URI.create(props.getEndpoint()));
     return builder.build();
   }
 
   @Bean
-  public S3Presigner s3Presigner(ObjectStoreProperties props) {
-    Builder builder = S3Presigner.builder();
-    Region region = Region.of(props.getRegion() != null ? props.getRegion() : "us-east-1");
-    builder.region(region);
+  public S3Presigner s3Presigner(
+      ObjectStoreProperties props, AwsCredentialsProvider objectStoreCredentials) {
+    Builder builder =
+        S3Presigner.builder()
+            .credentialsProvider(objectStoreCredentials)
+            .region(region(props))
+            .serviceConfiguration(serviceConfiguration(props));
+    if (hasEndpoint(props)) builder.endpointOverride(URI.create(props.getEndpoint()));
+    return builder.build();
+  }
 
-    AwsCredentialsProvider credsProvider;
-    if (props.getAccessKey() != null && props.getSecretKey() != null) {
-      credsProvider =
-          StaticCredentialsProvider.create(
-              AwsBasicCredentials.create(props.getAccessKey(), props.getSecretKey()));
-    } else {
-      credsProvider = DefaultCredentialsProvider.create();
-    }
-    builder.credentialsProvider(credsProvider);
+  // Standard retry mode (throttling-aware, retry quota) with full-jitter exponential backoff
+  private static ClientOverrideConfiguration overrides(ObjectStoreProperties props) {
+    return ClientOverrideConfiguration.builder()
+        .apiCallTimeout(props.getApiCallTimeout())
+        .retryPolicy(
+            RetryPolicy.builder(RetryMode.STANDARD)
+                .numRetries(props.getMaxRetries())
+                .backoffStrategy(
+                    FullJitterBackoffStrategy.builder()
+                        .baseDelay(props.getRetryBaseDelay())
+                        .maxBackoffTime(props.getRetryMaxBackoff())
+                        .build())
+                .build())
+        .build();
+  }
 
-    if (props.getEndpoint() != null && !props.getEndpoint().isBlank()) {
-      builder.endpointOverride(URI.create(props.getEndpoint()));
-    }
+  private static Region region(ObjectStoreProperties props) {
+    return Region.of(props.getRegion() != null ? props.getRegion() : "us-east-1");
+  }
 
+  private static boolean hasEndpoint(ObjectStoreProperties props) {
+    return props.getEndpoint() != null && !props.getEndpoint().isBlank();
+  }
+
+  private static S3Configuration serviceConfiguration(ObjectStoreProperties props) {
     boolean pathStyle =
-        props.getPathStyle() != null ? props.getPathStyle() : (props.getEndpoint() != null);
+        props.getPathStyle() != null
+            ? props.getPathStyle()
+            : (props.getEndpoint() != null); // default true when using custom endpoint
+    return S3Configuration.builder().pathStyleAccessEnabled(pathStyle).build();
+  }
 
-    builder.serviceConfiguration(
-        S3Configuration.builder().pathStyleAccessEnabled(pathStyle).build());
+  @Bean
+  @ConditionalOnProperty(
+      name = "app.objectstore.backend",
+      havingValue = "s3",
+      matchIfMissing = true)
+  public S3ObjectStore s3ObjectStore(
+      S3Client s3, ObjectProvider<S3AsyncClient> s3Async, S3Presigner presigner) {
+    return new S3ObjectStore(s3, s3Async, presigner);
+  }
 
-    return builder.build();
+  @Bean
+  @ConditionalOnProperty(name = "app.objectstore.backend", havingValue = "local")
+  public LocalObjectStore localObjectStore(ObjectStoreProperties props) {
+    return new LocalObjectStore(props);
   }
 
   @Bean
@@ -95,6 +176,8 @@ public class ObjectStoreConfig {
       matchIfMissing = true)
   public CommandLineRunner ensureBucket(S3Client s3, ObjectStoreProperties props) {
     return _ -> {
+      // Local buckets are directories, created on first write
+      if ("local".equals(props.getBackend())) return;
       String bucket = props.getBucket();
       if (bucket == null || bucket.isBlank()) {
         log.warn("Object store bucket not set; skip bucket creation.");
@@ -1,5 +1,7 @@
 package org.acssz.ezclaim.config;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 @ConfigurationProperties(prefix = "app.objectstore")
@@ -11,6 +13,30 @@ public class ObjectStoreProperties {
   private String bucket;
   private Boolean pathStyle; // If null, auto-enable when endpoint is set
   private Boolean ensureBucket; // Control bucket creation on startup
+  private Duration downloadUrlRenewBefore = Duration.ofMinutes(2); // Re-sign cached GET URLs
+  private Duration existenceTtl = Duration.ofHours(1); // Remember that an object exists
+  private Duration missingTtl = Duration.ofSeconds(30); // Remember that an object is missing
+  private long presignCacheSize = 10_000; // Max cached URLs, and existence entries
+  private Duration multipartAbandonAfter = Duration.ofHours(24); // Abort older unfinished uploads
+  private Duration multipartSweepInterval = Duration.ofHours(1); // How often to look for them
+  private long maxPhotoBytes = 50L * 1024 * 1024; // Larger uploads are refused a photo record
+  private Duration orphanGracePeriod = Duration.ofDays(7); // Unreferenced for this long: deleted
+  private String orphanSweepPrefix; // Only sweep keys under this; unset: the bucket is ours alone
+  private boolean asyncClient; // Also build an S3AsyncClient for deletes and bucket listings
+  private int maxConnections = 64; // Pooled connections per client
+  private Duration connectionTtl = Duration.ofMinutes(5); // Recycle older connections; 0 = never
+  private Duration connectionMaxIdle = Duration.ofSeconds(60); // Close connections idle this long
+  private Duration connectTimeout = Duration.ofSeconds(2);
+  private Duration socketTimeout = Duration.ofSeconds(30); // Longest wait for the next bytes
+  private Duration connectionAcquireTimeout = Duration.ofSeconds(5); // Wait for a free connection
+  private Duration apiCallTimeout = Duration.ofSeconds(60); // One call, all retries included
+  private int maxRetries = 3;
+  private Duration retryBaseDelay = Duration.ofMillis(100); // Exponential backoff, full jitter
+  private Duration retryMaxBackoff = Duration.ofSeconds(5);
+  private String backend = "s3"; // s3, or local: files under localRoot, served by this app
+  private Path localRoot = Path.of("data/objects"); // One directory per bucket
+  private String localBaseUrl = "http://localhost:8080"; // How clients reach this app
+  private String localSigningKey; // HMAC key for local links; random per start when unset
 
   public String getEndpoint() {
     return endpoint;
@@ -67,4 +93,196 @@ public class ObjectStoreProperties {
   public void setEnsureBucket(Boolean ensureBucket) {
     this.ensureBucket = ensureBucket;
   }
+
+  public Duration getDownloadUrlRenewBefore() {
+    return downloadUrlRenewBefore;
+  }
+
+  public void setDownloadUrlRenewBefore(Duration downloadUrlRenewBefore) {
+    this.downloadUrlRenewBefore = downloadUrlRenewBefore;
+  }
+
+  public Duration getExistenceTtl() {
+    return existenceTtl;
+  }
+
+  public void setExistenceTtl(Duration existenceTtl) {
+    this.existenceTtl = existenceTtl;
+  }
+
+  public Duration getMissingTtl() {
+    return missingTtl;
+  }
+
+  public void setMissingTtl(Duration missingTtl) {
+    this.missingTtl = missingTtl;
+  }
+
+  public long getPresignCacheSize() {
+    return presignCacheSize;
+  }
+
+  public void setPresignCacheSize(long presignCacheSize) {
+    this.presignCacheSize = presignCacheSize;
+  }
+
+  public Duration getMultipartAbandonAfter() {
+    return multipartAbandonAfter;
+  }
+
+  public void setMultipartAbandonAfter(Duration multipartAbandonAfter) {
+    this.multipartAbandonAfter = multipartAbandonAfter;
+  }
+
+  public Duration getMultipartSweepInterval() {
+    return multipartSweepInterval;
+  }
+
+  public void setMultipartSweepInterval(Duration multipartSweepInterval) {
+    this.multipartSweepInterval = multipartSweepInterval;
+  }
+
+  public long getMaxPhotoBytes() {
+    return maxPhotoBytes;
+  }
+
+  public void setMaxPhotoBytes(long maxPhotoBytes) {
+    this.maxPhotoBytes = maxPhotoBytes;
+  }
+
+  public Duration getOrphanGracePeriod() {
+    return orphanGracePeriod;
+  }
+
+  public void setOrphanGracePeriod(Duration orphanGracePeriod) {
+    this.orphanGracePeriod = orphanGracePeriod;
+  }
+
+  public String getOrphanSweepPrefix() {
+    return orphanSweepPrefix;
+  }
+
+  public void setOrphanSweepPrefix(String orphanSweepPrefix) {
+    this.orphanSweepPrefix = orphanSweepPrefix;
+  }
+
+  public boolean isAsyncClient() {
+    return asyncClient;
+  }
+
+  public void setAsyncClient(boolean asyncClient) {
+    this.asyncClient = asyncClient;
+  }
+
+  public int getMaxConnections() {
+    return maxConnections;
+  }
+
+  public void setMaxConnections(int maxConnections) {
+    this.maxConnections = maxConnections;
+  }
+
+  public Duration getConnectionTtl() {
+    return connectionTtl;
+  }
+
+  public void setConnectionTtl(Duration connectionTtl) {
+    this.connectionTtl = connectionTtl;
+  }
+
+  public Duration getConnectionMaxIdle() {
+    return connectionMaxIdle;
+  }
+
+  public void setConnectionMaxIdle(Duration connectionMaxIdle) {
+    this.connectionMaxIdle = connectionMaxIdle;
+  }
+
+  public Duration getConnectTimeout() {
+    return connectTimeout;
+  }
+
+  public void setConnectTimeout(Duration connectTimeout) {
+    this.connectTimeout = connectTimeout;
+  }
+
+  public Duration getSocketTimeout() {
+    return socketTimeout;
+  }
+
+  public void setSocketTimeout(Duration socketTimeout) {
+    this.socketTimeout = socketTimeout;
+  }
+
+  public Duration getConnectionAcquireTimeout() {
+    return connectionAcquireTimeout;
+  }
+
+  public void setConnectionAcquireTimeout(Duration connectionAcquireTimeout) {
+    this.connectionAcquireTimeout = connectionAcquireTimeout;
+  }
+
+  public Duration getApiCallTimeout() {
+    return apiCallTimeout;
+  }
+
+  public void setApiCallTimeout(Duration apiCallTimeout) {
+    this.apiCallTimeout = apiCallTimeout;
+  }
+
+  public int getMaxRetries() {
+    return maxRetries;
+  }
+
+  public void setMaxRetries(int maxRetries) {
+    this.maxRetries = maxRetries;
+  }
+
+  public Duration getRetryBaseDelay() {
+    return retryBaseDelay;
+  }
+
+  public void setRetryBaseDelay(Duration retryBaseDelay) {
+    this.retryBaseDelay = retryBaseDelay;
+  }
+
+  public Duration getRetryMaxBackoff() {
+    return retryMaxBackoff;
+  }
+
+  public void setRetryMaxBackoff(Duration retryMaxBackoff) {
+    this.retryMaxBackoff = retryMaxBackoff;
+  }
+
+  public String getBackend() {
+    return backend;
+  }
+
+  public void setBackend(String backend) {
+    this.backend = backend;
+  }
+
+  public Path getLocalRoot() {
+    return localRoot;
+  }
+
+  public void setLocalRoot(Path localRoot) {
+    this.localRoot = localRoot;
+  }
+
+  public String getLocalBaseUrl() {
+    return localBaseUrl;
+  }
+
+  public void setLocalBaseUrl(String localBaseUrl) {
+    this.localBaseUrl = localBaseUrl;
+  }
+
+  public String getLocalSigningKey() {
+    return localSigningKey;
+  }
+
+  public void setLocalSigningKey(String localSigningKey) {
+    this.localSigningKey = localSigningKey;
+  }
 }
@@ -0,0 +1,73 @@
+package org.acssz.ezclaim.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.security.password")
+public class PasswordHashingProperties {
+  /** Wall-clock time one bcrypt hash should take; the strength is calibrated to it at startup. */
+  private Duration targetLatency = Duration.ofMillis(250);
+
+  /** Lower bound for the calibrated strength. */
+  private int minStrength = 10;
+
+  /** Upper bound for the calibrated strength. */
+  private int maxStrength = 14;
+
+  /** Fixed bcrypt strength; skips calibration when set. */
+  private Integer strength;
+
+  /** Threads dedicated to hashing. Default: available processors. */
+  private int poolSize = Runtime.getRuntime().availableProcessors();
+
+  /** Hash requests allowed to wait for a thread before new ones are rejected with 429. */
+  private int queueCapacity = 32;
+
+  public Duration getTargetLatency() {
+    return targetLatency;
+  }
+
+  public void setTargetLatency(Duration targetLatency) {
+    this.targetLatency = targetLatency;
+  }
+
+  public int getMinStrength() {
+    return minStrength;
+  }
+
+  public void setMinStrength(int minStrength) {
+    this.minStrength = minStrength;
+  }
+
+  public int getMaxStrength() {
+    return maxStrength;
+  }
+
+  public void setMaxStrength(int maxStrength) {
+    this.maxStrength = maxStrength;
+  }
+
+  public Integer getStrength() {
+    return strength;
+  }
+
+  public void setStrength(Integer strength) {
+    this.strength = strength;
+  }
+
+  public int getPoolSize() {
+    return poolSize;
+  }
+
+  public void setPoolSize(int poolSize) {
+    this.poolSize = poolSize;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public void setQueueCapacity(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+  }
+}
@@ -0,0 +1,84 @@
+package org.acssz.ezclaim.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.photos.variants")
+public class PhotoVariantProperties {
+  /** Threads generating thumbnails and previews. */
+  private int poolSize = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+  /** Photos allowed to wait for a thread; later ones stay pending until the next sweep. */
+  private int queueCapacity = 200;
+
+  /** Originals larger than this are not downloaded for resizing. */
+  private long maxSourceBytes = 25L * 1024 * 1024;
+
+  /** Originals with more pixels than this are not decoded. */
+  private long maxSourcePixels = 60_000_000L;
+
+  /** How often the sweep re-queues pending photos. */
+  private Duration sweepInterval = Duration.ofMinutes(5);
+
+  /** Pending photos younger than this are left to the worker they were first queued on. */
+  private Duration retryAfter = Duration.ofMinutes(5);
+
+  /** Pending photos older than this are no longer retried, e.g. when the upload never happened. */
+  private Duration retryWindow = Duration.ofHours(24);
+
+  public int getPoolSize() {
+    return poolSize;
+  }
+
+  public void setPoolSize(int poolSize) {
+    this.poolSize = poolSize;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public void setQueueCapacity(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+  }
+
+  public long getMaxSourceBytes() {
+    return maxSourceBytes;
+  }
+
+  public void setMaxSourceBytes(long maxSourceBytes) {
+    this.maxSourceBytes = maxSourceBytes;
+  }
+
+  public long getMaxSourcePixels() {
+    return maxSourcePixels;
+  }
+
+  public void setMaxSourcePixels(long maxSourcePixels) {
+    this.maxSourcePixels = maxSourcePixels;
+  }
+
+  public Duration getSweepInterval() {
+    return sweepInterval;
+  }
+
+  public void setSweepInterval(Duration sweepInterval) {
+    this.sweepInterval = sweepInterval;
+  }
+
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+
+  public void setRetryAfter(Duration retryAfter) {
+    this.retryAfter = retryAfter;
+  }
+
+  public Duration getRetryWindow() {
+    return retryWindow;
+  }
+
+  public void setRetryWindow(Duration retryWindow) {
+    this.retryWindow = retryWindow;
+  }
+}
@@ -0,0 +1,81 @@
+package org.acssz.ezclaim.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+  /** Turns admission control for the anonymous write endpoints on or off. */
+  private boolean enabled = true;
+
+  /**
+   * How often buckets that have refilled completely are dropped; a full bucket behaves exactly like
+   * a missing one, so this only bounds memory.
+   */
+  private Duration idleSweepInterval = Duration.ofMinutes(1);
+
+  /**
+   * Per-route overrides keyed by route name (claim-create, claim-patch, claim-access-token,
+   * photo-presign, photo-create, photo-presign-batch, photo-create-batch). Routes not listed keep
+   * their built-in limits.
+   */
+  private Map<String, Limit> routes = new LinkedHashMap<>();
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Duration getIdleSweepInterval() {
+    return idleSweepInterval;
+  }
+
+  public void setIdleSweepInterval(Duration idleSweepInterval) {
+    this.idleSweepInterval = idleSweepInterval;
+  }
+
+  public Map<String, Limit> getRoutes() {
+    return routes;
+  }
+
+  public void setRoutes(Map<String, Limit> routes) {
+    this.routes = routes;
+  }
+
+  /** A token bucket per client IP: {@code capacity} requests at once, refilled at a steady rate. */
+  public static class Limit {
+    /** Burst size: requests a quiet client may make back to back. */
+    private int capacity;
+
+    /** Sustained rate the bucket refills at. */
+    private int perMinute;
+
+    public Limit() {}
+
+    public Limit(int capacity, int perMinute) {
+      this.capacity = capacity;
+      this.perMinute = perMinute;
+    }
+
+    public int getCapacity() {
+      return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+      this.capacity = capacity;
+    }
+
+    public int getPerMinute() {
+      return perMinute;
+    }
+
+    public void setPerMinute(int perMinute) {
+      this.perMinute = perMinute;
+    }
+  }
+}
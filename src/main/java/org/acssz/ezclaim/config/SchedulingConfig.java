@@ -0,0 +1,11 @@
+package org.acssz.ezclaim.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Background jobs touch Mongo; keep them out of profile-less test contexts
+@Configuration
+@EnableScheduling
+@Profile({"dev", "prod"})
+public class SchedulingConfig {}
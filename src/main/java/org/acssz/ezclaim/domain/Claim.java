@@ -8,34 +8,67 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DocumentReference;
 import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "claims")
+// Listing is keyset-paginated on (createdAt desc, _id desc); each equality filter gets its own
+// prefix so a page is a bounded index range scan regardless of how deep the cursor is.
+@CompoundIndexes({
+  @CompoundIndex(name = "createdAt_id", def = "{'createdAt': -1, '_id': -1}"),
+  @CompoundIndex(name = "status_createdAt_id", def = "{'status': 1, 'createdAt': -1, '_id': -1}"),
+  @CompoundIndex(
+      name = "currency_createdAt_id",
+      def = "{'currency': 1, 'createdAt': -1, '_id': -1}"),
+  @CompoundIndex(name = "tags_createdAt_id", def = "{'tags': 1, 'createdAt': -1, '_id': -1}"),
+  // Amount range filters and per-currency sorting run on the integer minor-units field
+  @CompoundIndex(name = "currency_amountMinor", def = "{'currency': 1, 'amountMinor': 1}"),
+  // Reverse index photo -> claims; the photo garbage collector asks which photos are referenced
+  @CompoundIndex(name = "photos", def = "{'photos': 1}")
+})
 public class Claim {
+  /** Decimal places kept in {@link #amountMinor}; every supported currency uses two. */
+  public static final int MINOR_UNIT_SCALE = 2;
+
   @Id private String id;
 
+  // Optimistic-locking counter; exposed to clients as the ETag
+  @Version private Long version;
+
+  // Text index for /api/claims/search; weights rank title hits above recipient and description
+  @TextIndexed(weight = 3)
   private String title;
-  private String description; // optional
+
+  @TextIndexed private String description; // optional
 
   private ClaimStatus status;
 
   private Instant createdAt;
   private Instant updatedAt;
 
-  // Amount and currency (defaults to CHF)
+  // Amount and currency (defaults to CHF). Stored as Decimal128 so the database can compare and
+  // sum it; amountMinor is the same value in minor units (cents) for indexed range queries.
+  @Field(targetType = FieldType.DECIMAL128)
   private BigDecimal amount;
+
+  private Long amountMinor;
   private Currency currency;
 
   // Payout info (structured, optional)
   private PayoutInfo payout;
 
   // Recipient display name
+  @TextIndexed(weight = 2)
   private String recipient;
 
   // Optional password hash protecting anonymous access
@@ -0,0 +1,42 @@
+package org.acssz.ezclaim.domain;
+
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+/**
+ * Pre-aggregated claim count and amount for one (dimension, key, currency) bucket, e.g. all CHF
+ * claims in status APPROVED. Maintained incrementally by ClaimRollupService.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "claim_rollups")
+public class ClaimRollup {
+  public enum Dimension {
+    STATUS,
+    CURRENCY,
+    TAG,
+    MONTH // expense month, yyyy-MM in UTC
+  }
+
+  @Id private String id; // DIMENSION|key|currency
+
+  @Indexed private Dimension dimension;
+  private String key;
+  private String currency;
+
+  private long count;
+
+  // Decimal128 so $inc stays exact
+  @Field(targetType = FieldType.DECIMAL128)
+  private BigDecimal total;
+}
@@ -0,0 +1,39 @@
+package org.acssz.ezclaim.domain;
+
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Outcome of a create request sent with an Idempotency-Key, so a retry can be answered with the
+ * resource the first attempt created. Removed by the TTL index once {@link #expiresAt} passes.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+  public enum Status {
+    IN_PROGRESS,
+    COMPLETED
+  }
+
+  @Id private String id; // scope:key, e.g. claims:4f9c...
+
+  // Hex HMAC-SHA256, under the server key, of the whole request as JSON (password included); see
+  // IdempotencyService#fingerprint
+  private String requestHash;
+  private Status status;
+  private String resourceId; // set once COMPLETED
+
+  private Instant createdAt; // when the current attempt started
+
+  @Indexed(expireAfter = "0s")
+  private Instant expiresAt;
+}
@@ -1,11 +1,14 @@
 package org.acssz.ezclaim.domain;
 
 import java.time.Instant;
+import java.util.Map;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
@@ -13,10 +16,43 @@ import org.springframework.data.mongodb.core.mapping.Document;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "photos")
+@CompoundIndexes({
+  // Finds records whose variants are still pending, oldest first
+  @CompoundIndex(name = "variantStatus_uploadedAt", def = "{'variantStatus': 1, 'uploadedAt': 1}"),
+  // Finds the records owning a page of listed bucket objects
+  @CompoundIndex(name = "bucket_key", def = "{'bucket': 1, 'key': 1}")
+})
 public class Photo {
   @Id private String id;
 
   private String bucket;
   private String key;
   private Instant uploadedAt;
+
+  // Object metadata as verified when the record was created; null for records from before that
+  private Long size; // bytes
+  private String etag;
+  private String contentType;
+  private Integer width; // pixels; null unless an image whose header could be read
+  private Integer height;
+
+  /** Generated renditions: {@link PhotoVariant#id()} to object key in the same bucket. */
+  private Map<String, String> variants;
+
+  private VariantStatus variantStatus; // null for records created before variants existed
+
+  private Instant updatedAt; // when variants were recorded; null until then
+
+  public enum VariantStatus {
+    PENDING, // queued, or waiting for the object to be uploaded
+    READY,
+    UNSUPPORTED, // not a decodable image, or over the size limits
+    FAILED
+  }
+
+  /** Key of the rendition to serve: the variant once generated, otherwise the original. */
+  public String keyFor(PhotoVariant variant) {
+    if (variant == null || variants == null) return key;
+    return variants.getOrDefault(variant.id(), key);
+  }
 }
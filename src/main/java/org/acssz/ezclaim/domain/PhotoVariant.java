@@ -0,0 +1,62 @@
+package org.acssz.ezclaim.domain;
+
+import java.util.Locale;
+import org.acssz.ezclaim.service.BadRequestException;
+
+/**
+ * Downscaled JPEG renditions generated for each photo, by width. A variant is stored beside the
+ * original at {@code <key>.<id>.jpg}.
+ */
+public enum PhotoVariant {
+  THUMB(320, 0.7f),
+  PREVIEW(1280, 0.8f);
+
+  /** Request value naming the original object rather than a rendition. */
+  public static final String ORIGINAL = "original";
+
+  private final int width;
+  private final float quality;
+
+  PhotoVariant(int width, float quality) {
+    this.width = width;
+    this.quality = quality;
+  }
+
+  public int width() {
+    return width;
+  }
+
+  /** JPEG compression quality, 0 to 1. */
+  public float quality() {
+    return quality;
+  }
+
+  /** Name used in requests and as the key in {@link Photo#getVariants()}. */
+  public String id() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+
+  public String keyFor(String originalKey) {
+    return originalKey + "." + id() + ".jpg";
+  }
+
+  /** The original key a variant key was derived from; {@code key} itself when it is no variant. */
+  public static String originalKeyOf(String key) {
+    for (PhotoVariant v : values()) {
+      String suffix = "." + v.id() + ".jpg";
+      if (key.endsWith(suffix) && key.length() > suffix.length()) {
+        return key.substring(0, key.length() - suffix.length());
+      }
+    }
+    return key;
+  }
+
+  /** The variant named {@code value}; null for null, blank or {@value #ORIGINAL}. */
+  public static PhotoVariant parse(String value) {
+    if (value == null || value.isBlank() || value.equalsIgnoreCase(ORIGINAL)) return null;
+    for (PhotoVariant v : values()) {
+      if (v.id().equalsIgnoreCase(value.trim())) return v;
+    }
+    throw new BadRequestException("Unknown photo variant: " + value);
+  }
+}
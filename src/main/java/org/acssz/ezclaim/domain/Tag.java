@@ -1,10 +1,12 @@
 package org.acssz.ezclaim.domain;
 
+import java.time.Instant;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
@@ -17,4 +19,7 @@ public class Tag {
 
   private String label;
   private String color; // e.g., hex like #RRGGBB or a named color
+
+  // Last create/update; with the tag count it fingerprints the list for conditional GETs
+  @Indexed private Instant updatedAt;
 }
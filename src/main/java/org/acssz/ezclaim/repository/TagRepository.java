@@ -1,6 +1,9 @@
 package org.acssz.ezclaim.repository;
 
+import java.util.Optional;
 import org.acssz.ezclaim.domain.Tag;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface TagRepository extends MongoRepository<Tag, String> {}
+public interface TagRepository extends MongoRepository<Tag, String> {
+  Optional<Tag> findFirstByOrderByUpdatedAtDesc();
+}
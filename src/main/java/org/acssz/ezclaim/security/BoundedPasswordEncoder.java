@@ -0,0 +1,149 @@
+package org.acssz.ezclaim.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.acssz.ezclaim.service.TooManyRequestsException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Runs a CPU-bound delegate encoder on a small fixed pool with a bounded queue, so a burst of
+ * submissions or password guesses cannot occupy every request thread. When the pool and queue are
+ * full the call fails fast with {@link TooManyRequestsException}.
+ *
+ * <p>Meters: {@code ezclaim.password.hash} (timer, tag {@code op}), {@code
+ * ezclaim.password.rejected} (counter, tag {@code op}), {@code ezclaim.password.active} and {@code
+ * ezclaim.password.queued} (gauges).
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+  private final PasswordEncoder delegate;
+  private final ThreadPoolExecutor pool;
+  private final Timer encodeTimer;
+  private final Timer matchesTimer;
+  private final Counter encodeRejected;
+  private final Counter matchesRejected;
+
+  public BoundedPasswordEncoder(
+      PasswordEncoder delegate, int poolSize, int queueCapacity, MeterRegistry registry) {
+    this.delegate = delegate;
+    BlockingQueue<Runnable> queue =
+        queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+    AtomicInteger n = new AtomicInteger();
+    this.pool =
+        new ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            0L,
+            TimeUnit.MILLISECONDS,
+            queue,
+            r -> {
+              Thread t = new Thread(r, "password-hash-" + n.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    this.encodeTimer = timer(registry, "encode");
+    this.matchesTimer = timer(registry, "matches");
+    this.encodeRejected = rejected(registry, "encode");
+    this.matchesRejected = rejected(registry, "matches");
+    registry.gauge("ezclaim.password.active", pool, ThreadPoolExecutor::getActiveCount);
+    registry.gauge("ezclaim.password.queued", queue, BlockingQueue::size);
+  }
+
+  /**
+   * Highest bcrypt strength in {@code [min, max]} whose measured hash time stays within {@code
+   * target}. Each strength step doubles the work, so one measurement at {@code min} suffices.
+   */
+  public static int strengthFor(Duration target, int min, int max) {
+    BCryptPasswordEncoder probe = new BCryptPasswordEncoder(min);
+    probe.encode("warm-up");
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < 3; i++) {
+      long start = System.nanoTime();
+      probe.encode("calibration");
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    int strength = min;
+    long estimate = best;
+    while (strength < max && estimate * 2 <= target.toNanos()) {
+      estimate *= 2;
+      strength++;
+    }
+    log.info(
+        "bcrypt strength {} (~{} ms per hash, target {} ms)",
+        strength,
+        TimeUnit.NANOSECONDS.toMillis(estimate),
+        target.toMillis());
+    return strength;
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return run(() -> delegate.encode(rawPassword), encodeTimer, encodeRejected);
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return run(() -> delegate.matches(rawPassword, encodedPassword), matchesTimer, matchesRejected);
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    // Parses the hash prefix only; cheap enough for the caller's thread
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  @Override
+  public void destroy() {
+    pool.shutdownNow();
+  }
+
+  private <T> T run(Callable<T> task, Timer timer, Counter rejected) {
+    Future<T> f;
+    try {
+      f = pool.submit(() -> timer.recordCallable(task));
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      throw new TooManyRequestsException("password hashing capacity exhausted; retry shortly");
+    }
+    try {
+      return f.get();
+    } catch (InterruptedException e) {
+      f.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted while hashing password", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException re) throw re;
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private static Timer timer(MeterRegistry registry, String op) {
+    return Timer.builder("ezclaim.password.hash")
+        .description("Time spent hashing or verifying a password")
+        .tag("op", op)
+        .register(registry);
+  }
+
+  private static Counter rejected(MeterRegistry registry, String op) {
+    return Counter.builder("ezclaim.password.rejected")
+        .description("Password operations refused because the hashing pool was saturated")
+        .tag("op", op)
+        .register(registry);
+  }
+}
@@ -0,0 +1,58 @@
+package org.acssz.ezclaim.security;
+
+import java.time.Instant;
+import lombok.RequiredArgsConstructor;
+import org.acssz.ezclaim.config.JwtProperties;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.stereotype.Component;
+
+/**
+ * Short-lived tokens granting access to a single claim. A submitter exchanges the claim password
+ * once (one bcrypt check) and then presents the token as a bearer credential; the resource server
+ * only verifies its HS256 MAC, so polling a protected claim no longer costs a bcrypt per request.
+ */
+@Component
+@RequiredArgsConstructor
+public class ClaimAccessTokens {
+  public static final String CLAIM_ID = "claim_id";
+
+  private final JwtEncoder jwtEncoder;
+  private final JwtProperties jwtProps;
+
+  public record Issued(String token, Instant expiresAt) {}
+
+  public Issued issue(String claimId) {
+    Instant now = Instant.now();
+    Instant exp = now.plus(jwtProps.getClaimAccessTtl());
+    JwtClaimsSet claims =
+        JwtClaimsSet.builder()
+            .issuer("ezclaim")
+            .issuedAt(now)
+            .expiresAt(exp)
+            .subject("claim:" + claimId)
+            .claim("scope", Scope.CLAIM_ACCESS.name())
+            .claim(CLAIM_ID, claimId)
+            .build();
+    JwsHeader header = JwsHeader.with(MacAlgorithm.HS256).build();
+    return new Issued(
+        jwtEncoder.encode(JwtEncoderParameters.from(header, claims)).getTokenValue(), exp);
+  }
+
+  /** True when {@code auth} is a (verified) access token scoped to {@code claimId}. */
+  public static boolean grants(Authentication auth, String claimId) {
+    return auth != null
+        && auth.isAuthenticated()
+        && auth.getPrincipal() instanceof Jwt jwt
+        && claimId.equals(jwt.getClaimAsString(CLAIM_ID))
+        && auth.getAuthorities().stream()
+            .map(GrantedAuthority::getAuthority)
+            .anyMatch(Scope.CLAIM_ACCESS.authority()::equals);
+  }
+}
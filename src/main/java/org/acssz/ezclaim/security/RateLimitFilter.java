@@ -0,0 +1,234 @@
+package org.acssz.ezclaim.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.acssz.ezclaim.config.RateLimitProperties;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+/**
+ * Admission control for the endpoints anonymous callers can write to: one token bucket per route
+ * and client IP. Buckets are a single {@link AtomicLong} each (the GCRA form of a token bucket: the
+ * time at which the bucket would be full again), updated with one CAS, and live in a {@link
+ * ConcurrentHashMap} per route; buckets that have refilled are swept in the background.
+ *
+ * <p>Routes are matched on the decoded path within the application, with {@code ;} parameters
+ * removed and {@code //} collapsed, as the dispatcher sees it, so {@code /api/%63laims} cannot slip
+ * past the limit for {@code /api/claims}.
+ *
+ * <p>The client IP is {@link HttpServletRequest#getRemoteAddr()}; behind a proxy, enable {@code
+ * server.forward-headers-strategy} so it reflects the original client.
+ *
+ * <p>Meters: {@code ezclaim.ratelimit.rejected} (counter, tag {@code route}), {@code
+ * ezclaim.ratelimit.clients} (gauge of tracked buckets).
+ */
+public class RateLimitFilter extends OncePerRequestFilter implements DisposableBean {
+
+  /** The anonymous write endpoints, with their built-in limits. */
+  public enum Route {
+    CLAIM_CREATE("claim-create", 10, 20),
+    CLAIM_PATCH("claim-patch", 20, 60),
+    // bcrypt per attempt, and the obvious place to guess claim passwords
+    CLAIM_ACCESS_TOKEN("claim-access-token", 5, 10),
+    PHOTO_PRESIGN("photo-presign", 30, 120),
+    PHOTO_CREATE("photo-create", 30, 120),
+    // A batch carries up to PhotoService.MAX_BATCH (20) items: 6/min keeps the item rate at 120/min
+    PHOTO_PRESIGN_BATCH("photo-presign-batch", 2, 6),
+    PHOTO_CREATE_BATCH("photo-create-batch", 2, 6);
+
+    final String key;
+    final RateLimitProperties.Limit defaults;
+
+    Route(String key, int capacity, int perMinute) {
+      this.key = key;
+      this.defaults = new RateLimitProperties.Limit(capacity, perMinute);
+    }
+
+    // Plain string checks: this runs for every request
+    static Route match(String method, String path) {
+      if (!path.startsWith("/api/")) return null;
+      switch (method) {
+        case "POST":
+          if (path.equals("/api/claims")) return CLAIM_CREATE;
+          if (path.equals("/api/photos")) return PHOTO_CREATE;
+          if (path.equals("/api/photos/batch")) return PHOTO_CREATE_BATCH;
+          if (path.equals("/api/photos/presign-upload") || path.startsWith("/api/photos/multipart"))
+            return PHOTO_PRESIGN;
+          if (path.equals("/api/photos/presign-upload/batch")) return PHOTO_PRESIGN_BATCH;
+          if (path.startsWith("/api/claims/") && path.endsWith("/access-token")) {
+            int slash = path.indexOf('/', "/api/claims/".length());
+            if (slash == path.length() - "/access-token".length()) return CLAIM_ACCESS_TOKEN;
+          }
+          return null;
+        case "PATCH":
+          if (path.startsWith("/api/claims/")
+              && path.length() > "/api/claims/".length()
+              && path.indexOf('/', "/api/claims/".length()) < 0) {
+            return CLAIM_PATCH;
+          }
+          return null;
+        default:
+          return null;
+      }
+    }
+  }
+
+  /** Theoretical arrival time in nanos: when the bucket would be full again. */
+  static final class Bucket {
+    private final AtomicLong tat;
+
+    Bucket(long now) {
+      this.tat = new AtomicLong(now);
+    }
+
+    /** 0 when admitted, else nanos until a token is available. */
+    long tryAcquire(long now, long interval, long burst) {
+      while (true) {
+        long t = tat.get();
+        long next = Math.max(t, now) + interval;
+        long wait = next - now - burst;
+        if (wait > 0) return wait;
+        if (tat.compareAndSet(t, next)) return 0;
+      }
+    }
+
+    boolean isFull(long now) {
+      return tat.get() <= now;
+    }
+  }
+
+  private record Rate(long intervalNanos, long burstNanos) {}
+
+  private final boolean enabled;
+  private final LongSupplier clock;
+  private final Map<Route, Rate> rates = new EnumMap<>(Route.class);
+  private final Map<Route, ConcurrentHashMap<String, Bucket>> buckets = new EnumMap<>(Route.class);
+  private final Map<Route, Counter> rejected = new EnumMap<>(Route.class);
+  private final ScheduledExecutorService sweeper;
+
+  public RateLimitFilter(RateLimitProperties props, MeterRegistry registry) {
+    this(props, registry, System::nanoTime);
+  }
+
+  RateLimitFilter(RateLimitProperties props, MeterRegistry registry, LongSupplier clock) {
+    this.enabled = props.isEnabled();
+    this.clock = clock;
+    for (Route r : Route.values()) {
+      RateLimitProperties.Limit limit = props.getRoutes().getOrDefault(r.key, r.defaults);
+      if (limit.getCapacity() < 1 || limit.getPerMinute() < 1) {
+        throw new IllegalStateException(
+            "app.rate-limit.routes." + r.key + " needs capacity and per-minute of at least 1");
+      }
+      long interval = TimeUnit.MINUTES.toNanos(1) / limit.getPerMinute();
+      rates.put(r, new Rate(interval, interval * limit.getCapacity()));
+      buckets.put(r, new ConcurrentHashMap<>());
+      rejected.put(
+          r,
+          Counter.builder("ezclaim.ratelimit.rejected")
+              .description("Requests refused with 429 by per-client admission control")
+              .tag("route", r.key)
+              .register(registry));
+    }
+    registry.gauge("ezclaim.ratelimit.clients", buckets, RateLimitFilter::trackedBuckets);
+
+    long sweepMillis = props.getIdleSweepInterval().toMillis();
+    this.sweeper =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread t = new Thread(r, "rate-limit-sweeper");
+              t.setDaemon(true);
+              return t;
+            });
+    sweeper.scheduleWithFixedDelay(
+        () -> evictIdle(clock.getAsLong()), sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !enabled;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    String path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+    Route route = Route.match(request.getMethod(), path);
+    if (route == null) {
+      chain.doFilter(request, response);
+      return;
+    }
+    long now = clock.getAsLong();
+    Rate rate = rates.get(route);
+    ConcurrentHashMap<String, Bucket> perClient = buckets.get(route);
+    String client = request.getRemoteAddr();
+    Bucket bucket = perClient.get(client);
+    if (bucket == null) bucket = perClient.computeIfAbsent(client, k -> new Bucket(now));
+
+    long wait = bucket.tryAcquire(now, rate.intervalNanos(), rate.burstNanos());
+    if (wait == 0) {
+      chain.doFilter(request, response);
+      return;
+    }
+    rejected.get(route).increment();
+    reject(response, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+  }
+
+  /**
+   * Drops buckets that have refilled; a request racing the removal may lose one token of
+   * accounting, which is harmless.
+   */
+  void evictIdle(long now) {
+    for (ConcurrentHashMap<String, Bucket> perClient : buckets.values()) {
+      perClient.values().removeIf(b -> b.isFull(now));
+    }
+  }
+
+  int trackedBuckets() {
+    return trackedBuckets(buckets);
+  }
+
+  @Override
+  public void destroy() {
+    sweeper.shutdownNow();
+  }
+
+  private static int trackedBuckets(Map<Route, ConcurrentHashMap<String, Bucket>> buckets) {
+    int n = 0;
+    for (ConcurrentHashMap<String, Bucket> m : buckets.values()) n += m.size();
+    return n;
+  }
+
+  // Same body shape as GlobalExceptionHandler; this runs before any controller
+  private static void reject(HttpServletResponse response, long retryAfterSeconds)
+      throws IOException {
+    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, retryAfterSeconds)));
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    response
+        .getWriter()
+        .write(
+            "{\"error\":\"too_many_requests\",\"message\":\"rate limit exceeded; retry after "
+                + Math.max(1, retryAfterSeconds)
+                + "s\"}");
+  }
+}
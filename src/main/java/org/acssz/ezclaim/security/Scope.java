@@ -8,7 +8,8 @@ public enum Scope {
   TAG_WRITE,
   PHOTO_READ,
   PHOTO_WRITE,
-  PHOTO_DELETE;
+  PHOTO_DELETE,
+  CLAIM_ACCESS; // claim-scoped token from a password exchange; see ClaimAccessTokens
 
   public String authority() {
     return "SCOPE_" + name();
@@ -1,11 +1,15 @@
 package org.acssz.ezclaim.security;
 
 import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.nio.charset.StandardCharsets;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import org.acssz.ezclaim.config.JwtProperties;
+import org.acssz.ezclaim.config.PasswordHashingProperties;
+import org.acssz.ezclaim.config.RateLimitProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
@@ -19,9 +23,14 @@ import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.web.filter.CorsFilter;
 
 @Configuration
-@EnableConfigurationProperties(JwtProperties.class)
+@EnableConfigurationProperties({
+  JwtProperties.class,
+  PasswordHashingProperties.class,
+  RateLimitProperties.class
+})
 public class SecurityConfig {
 
   @Bean
@@ -46,19 +55,44 @@ public class SecurityConfig {
   }
 
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  public PasswordEncoder passwordEncoder(PasswordHashingProperties props, MeterRegistry registry) {
+    int strength =
+        props.getStrength() != null
+            ? props.getStrength()
+            : BoundedPasswordEncoder.strengthFor(
+                props.getTargetLatency(), props.getMinStrength(), props.getMaxStrength());
+    return new BoundedPasswordEncoder(
+        new BCryptPasswordEncoder(strength),
+        props.getPoolSize(),
+        props.getQueueCapacity(),
+        registry);
   }
 
   @Bean
-  public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+  public RateLimitFilter rateLimitFilter(RateLimitProperties props, MeterRegistry registry) {
+    return new RateLimitFilter(props, registry);
+  }
+
+  // Runs inside the security chain (after CORS, so 429s stay readable cross-origin), not twice
+  @Bean
+  public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(
+      RateLimitFilter filter) {
+    FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+    registration.setEnabled(false);
+    return registration;
+  }
+
+  @Bean
+  public SecurityFilterChain securityFilterChain(HttpSecurity http, RateLimitFilter rateLimitFilter)
+      throws Exception {
     http.csrf(csrf -> csrf.disable())
         .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
         .authorizeHttpRequests(SecurityRules::apply)
         .httpBasic(b -> b.disable())
         .formLogin(form -> form.disable())
         .oauth2ResourceServer(oauth2 -> oauth2.jwt(Customizer.withDefaults()))
-        .cors(Customizer.withDefaults());
+        .cors(Customizer.withDefaults())
+        .addFilterAfter(rateLimitFilter, CorsFilter.class);
     return http.build();
   }
 }
@@ -21,15 +21,27 @@ public final class SecurityRules {
         .requestMatchers("/api/auth/login")
         .permitAll()
 
+        // Actuator: liveness is public; metrics are operational data
+        .requestMatchers(HttpMethod.GET, "/actuator/health")
+        .permitAll()
+        .requestMatchers(HttpMethod.GET, "/actuator/**")
+        .hasAuthority(Scope.AUDIT.authority())
+
         // Audit
         .requestMatchers("/api/audit-events/**")
         .hasAuthority(Scope.AUDIT.authority())
 
-        // Claims: list requires CLAIM_READ; single get is public; writes require CLAIM_WRITE
-        .requestMatchers(HttpMethod.GET, "/api/claims")
+        // Claims: list, search and export require CLAIM_READ; single get and its photo URLs are
+        // public; writes require CLAIM_WRITE
+        .requestMatchers(HttpMethod.GET, "/api/claims", "/api/claims/search", "/api/claims/export")
         .hasAuthority(Scope.CLAIM_READ.authority())
-        .requestMatchers(HttpMethod.GET, "/api/claims/*")
+        .requestMatchers(HttpMethod.GET, "/api/claims/*", "/api/claims/*/photo-urls")
         .permitAll()
+        // Password exchange for a claim-scoped token; the controller checks the password
+        .requestMatchers(HttpMethod.POST, "/api/claims/*/access-token")
+        .permitAll()
+        .requestMatchers(HttpMethod.POST, "/api/claims/bulk-transition")
+        .hasAuthority(Scope.CLAIM_WRITE.authority())
         // Anonymous can create claims
         .requestMatchers(HttpMethod.POST, "/api/claims")
         .permitAll()
@@ -42,6 +54,12 @@ public final class SecurityRules {
         .requestMatchers(HttpMethod.DELETE, "/api/claims/*")
         .hasAuthority(Scope.CLAIM_WRITE.authority())
 
+        // Reports: dashboard totals need CLAIM_READ; recomputing them CLAIM_WRITE
+        .requestMatchers(HttpMethod.GET, "/api/reports/claims")
+        .hasAuthority(Scope.CLAIM_READ.authority())
+        .requestMatchers(HttpMethod.POST, "/api/reports/claims/rebuild")
+        .hasAuthority(Scope.CLAIM_WRITE.authority())
+
         // Tags (labels): anonymous can read; writes require TAG_WRITE
         .requestMatchers(HttpMethod.GET, "/api/tags", "/api/tags/*")
         .permitAll()
@@ -56,16 +74,27 @@ public final class SecurityRules {
         // delete/write scoped
         .requestMatchers(HttpMethod.GET, "/api/photos/*")
         .permitAll()
-        .requestMatchers(HttpMethod.GET, "/api/photos/*/download-url")
+        .requestMatchers(HttpMethod.GET, "/api/photos/*/download-url", "/api/photos/*/content")
+        .permitAll()
+        .requestMatchers(
+            HttpMethod.POST, "/api/photos/presign-upload", "/api/photos/presign-upload/batch")
         .permitAll()
-        .requestMatchers(HttpMethod.POST, "/api/photos/presign-upload")
+        .requestMatchers(HttpMethod.POST, "/api/photos", "/api/photos/batch")
         .permitAll()
-        .requestMatchers(HttpMethod.POST, "/api/photos")
+        // Multipart uploads follow presign-upload; the upload id is the capability
+        .requestMatchers("/api/photos/multipart", "/api/photos/multipart/**")
+        .permitAll()
+        // Links signed by the local object store; the signature is the credential
+        .requestMatchers(HttpMethod.GET, "/api/objects/**")
+        .permitAll()
+        .requestMatchers(HttpMethod.PUT, "/api/objects/**")
         .permitAll()
         .requestMatchers(HttpMethod.GET, "/api/photos")
         .hasAuthority(Scope.PHOTO_READ.authority())
         .requestMatchers(HttpMethod.DELETE, "/api/photos/*")
         .hasAuthority(Scope.PHOTO_DELETE.authority())
+        .requestMatchers(HttpMethod.POST, "/api/photos/gc")
+        .hasAuthority(Scope.PHOTO_DELETE.authority())
 
         // Default deny
         .anyRequest()
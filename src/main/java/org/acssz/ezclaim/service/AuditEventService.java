@@ -8,15 +8,21 @@ import org.acssz.ezclaim.audit.AuditEvent;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 @Service
 @RequiredArgsConstructor
 public class AuditEventService {
+  private static final int STREAM_BATCH_SIZE = 100;
+
   private final MongoTemplate template;
+  private final ReactiveMongoTemplate reactiveTemplate;
 
   public Page<AuditEvent> search(
       String entityType,
@@ -25,6 +31,26 @@ public class AuditEventService {
       Instant from,
       Instant to,
       Pageable pageable) {
+    Query q = queryFor(entityType, entityId, action, from, to);
+    long total = template.count(q, AuditEvent.class);
+    q.with(pageable);
+    List<AuditEvent> content = template.find(q, AuditEvent.class);
+    return new PageImpl<>(content, pageable, total);
+  }
+
+  /**
+   * Every matching event in {@code sort} order on the reactive driver, read as the subscriber
+   * requests them rather than collected into a page.
+   */
+  public Flux<AuditEvent> stream(
+      String entityType, String entityId, String action, Instant from, Instant to, Sort sort) {
+    Query q = queryFor(entityType, entityId, action, from, to).with(sort);
+    q.cursorBatchSize(STREAM_BATCH_SIZE);
+    return reactiveTemplate.find(q, AuditEvent.class);
+  }
+
+  private static Query queryFor(
+      String entityType, String entityId, String action, Instant from, Instant to) {
     Query q = new Query();
     List<Criteria> criteria = new ArrayList<>();
 
@@ -44,11 +70,7 @@ public class AuditEventService {
     if (!criteria.isEmpty()) {
       q.addCriteria(new Criteria().andOperator(criteria.toArray(Criteria[]::new)));
     }
-
-    long total = template.count(q, AuditEvent.class);
-    q.with(pageable);
-    List<AuditEvent> content = template.find(q, AuditEvent.class);
-    return new PageImpl<>(content, pageable, total);
+    return q;
   }
 
   public AuditEvent getById(String id) {
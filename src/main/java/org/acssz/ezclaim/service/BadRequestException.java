@@ -0,0 +1,8 @@
+package org.acssz.ezclaim.service;
+
+/** Invalid client input; answered with 400 and this message, so keep it safe to show. */
+public class BadRequestException extends RuntimeException {
+  public BadRequestException(String message) {
+    super(message);
+  }
+}
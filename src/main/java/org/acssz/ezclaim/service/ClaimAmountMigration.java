@@ -0,0 +1,101 @@
+package org.acssz.ezclaim.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.acssz.ezclaim.domain.Claim;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rewrites claim amounts stored as strings (the Spring Data default for BigDecimal) as Decimal128
+ * and fills in {@code amountMinor}. Works in {@code _id} order, one bulk write per batch, and each
+ * update is conditional on the amount it read. An interrupted run can simply be started again:
+ * converted claims no longer match the filter.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ClaimAmountMigration {
+  static final int BATCH_SIZE = 500;
+
+  private final MongoTemplate template;
+
+  /** Converts every pending claim; returns how many were rewritten. */
+  public long run() {
+    Criteria pending =
+        new Criteria()
+            .orOperator(
+                Criteria.where("amount").type(JsonSchemaObject.Type.stringType()),
+                Criteria.where("amount").ne(null).and("amountMinor").exists(false));
+    Object lastId = null;
+    long converted = 0;
+    while (true) {
+      Criteria where =
+          lastId == null
+              ? pending
+              : new Criteria().andOperator(pending, Criteria.where("_id").gt(lastId));
+      Query q = Query.query(where).with(Sort.by("_id")).limit(BATCH_SIZE);
+      q.fields().include("amount");
+      List<Document> batch = template.find(q, Document.class, ClaimService.COLLECTION);
+      if (batch.isEmpty()) break;
+
+      BulkOperations ops =
+          template.bulkOps(BulkOperations.BulkMode.UNORDERED, ClaimService.COLLECTION);
+      int queued = 0;
+      for (Document doc : batch) {
+        Object raw = doc.get("amount");
+        BigDecimal amount = toBigDecimal(raw);
+        if (amount == null) {
+          log.warn("Claim {} has an unreadable amount '{}'; left as is", doc.get("_id"), raw);
+          continue;
+        }
+        // amount and amountMinor must agree, so both come from the same rounded value
+        BigDecimal rounded = amount.setScale(Claim.MINOR_UNIT_SCALE, RoundingMode.HALF_EVEN);
+        Decimal128 stored;
+        long minor;
+        try {
+          stored = new Decimal128(rounded);
+          minor = ClaimService.minorUnits(rounded, RoundingMode.UNNECESSARY);
+        } catch (NumberFormatException | ArithmeticException e) {
+          log.warn("Claim {} has an out-of-range amount '{}'; left as is", doc.get("_id"), raw);
+          continue;
+        }
+        if (rounded.compareTo(amount) != 0) {
+          log.warn("Claim {} amount '{}' rounded to {}", doc.get("_id"), raw, rounded);
+        }
+        ops.updateOne(
+            Query.query(Criteria.where("_id").is(doc.get("_id")).and("amount").is(raw)),
+            new Update().set("amount", stored).set("amountMinor", minor));
+        queued++;
+      }
+      if (queued > 0) converted += ops.execute().getModifiedCount();
+      lastId = batch.get(batch.size() - 1).get("_id");
+      log.info("Claim amount migration: {} converted so far", converted);
+    }
+    return converted;
+  }
+
+  private static BigDecimal toBigDecimal(Object raw) {
+    try {
+      return switch (raw) {
+        case Decimal128 d -> d.bigDecimalValue();
+        case String s -> new BigDecimal(s.trim());
+        case Number n -> new BigDecimal(n.toString());
+        default -> null;
+      };
+    } catch (NumberFormatException | ArithmeticException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package org.acssz.ezclaim.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/** Periodically recomputes claim rollups to repair any drift from failed incremental updates. */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@Profile({"dev", "prod"})
+public class ClaimRollupRebuildJob {
+  private final ClaimRollupService rollups;
+
+  @Scheduled(cron = "${app.reports.rollup-rebuild-cron:0 30 3 * * *}", zone = "UTC")
+  public void rebuild() {
+    try {
+      rollups.rebuild();
+    } catch (ConflictException e) {
+      log.info("Claim rollup rebuild skipped: {}", e.getMessage());
+    } catch (RuntimeException e) {
+      log.error("Claim rollup rebuild failed", e);
+    }
+  }
+}
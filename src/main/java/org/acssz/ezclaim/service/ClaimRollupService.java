@@ -0,0 +1,294 @@
+package org.acssz.ezclaim.service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.acssz.ezclaim.domain.ClaimRollup;
+import org.acssz.ezclaim.domain.ClaimRollup.Dimension;
+import org.acssz.ezclaim.domain.ClaimStatus;
+import org.acssz.ezclaim.domain.Currency;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps {@code claim_rollups} in step with the claims collection so dashboard totals are a read of
+ * a few bucket documents rather than a scan. Every write path in ClaimService reports the claim's
+ * facts before and after; the difference is applied as {@code $inc} upserts. Rollup writes are not
+ * transactional with the claim write, so {@link #rebuild()} recomputes everything from scratch and
+ * corrects the live buckets by the difference.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClaimRollupService {
+  public static final String COLLECTION = "claim_rollups";
+  static final String REBUILD_COLLECTION = "claim_rollups_rebuild"; // scratch output of rebuild()
+  static final String LEASE_COLLECTION = "claim_rollup_leases";
+  static final String LEASE = "rebuild";
+  private static final Duration LEASE_TTL = Duration.ofHours(1);
+  static final String NONE = "none"; // key/currency for claims missing the field
+
+  private final MongoTemplate template;
+  private final MongoLease lease;
+
+  /** The claim fields rollups depend on. */
+  public record Facts(
+      ClaimStatus status,
+      Currency currency,
+      BigDecimal amount,
+      Instant expenseAt,
+      List<String> tagIds) {}
+
+  /** One claim's facts before and after a write; see {@link #apply(Facts, Facts)}. */
+  public record Change(Facts before, Facts after) {}
+
+  private record Delta(long count, BigDecimal total) {
+    Delta plus(Delta o) {
+      return new Delta(count + o.count, total.add(o.total));
+    }
+
+    boolean isZero() {
+      return count == 0 && total.signum() == 0;
+    }
+  }
+
+  /**
+   * Moves a claim between buckets. {@code before} is null for a new claim, {@code after} null for a
+   * deleted one; buckets whose contribution is unchanged are not written.
+   */
+  public void apply(Facts before, Facts after) {
+    apply(List.of(new Change(before, after)));
+  }
+
+  /**
+   * Applies several claims' moves at once: their deltas are summed per bucket and written in a
+   * single bulk, so a batch of N claims costs one round trip rather than N.
+   */
+  public void apply(List<Change> changes) {
+    Map<String, Delta> deltas = new LinkedHashMap<>();
+    for (Change c : changes) {
+      if (c.before() != null) contribute(deltas, c.before(), -1);
+      if (c.after() != null) contribute(deltas, c.after(), 1);
+    }
+    deltas.values().removeIf(Delta::isZero);
+    if (deltas.isEmpty()) return;
+
+    try {
+      write(deltas);
+    } catch (DataAccessException e) {
+      // The claim write already succeeded; the nightly rebuild repairs the drift
+      log.warn(
+          "Failed to update claim rollups ({} buckets); totals stale until rebuild",
+          deltas.size(),
+          e);
+    }
+  }
+
+  private void write(Map<String, Delta> deltas) {
+    BulkOperations ops = template.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+    deltas.forEach(
+        (id, d) -> {
+          String[] parts = id.split("\\|", 3);
+          ops.upsert(
+              Query.query(Criteria.where("_id").is(id)),
+              new Update()
+                  .inc("count", d.count())
+                  .inc("total", new Decimal128(d.total()))
+                  .setOnInsert("dimension", parts[0])
+                  .setOnInsert("key", parts[1])
+                  .setOnInsert("currency", parts[2]));
+        });
+    ops.execute();
+  }
+
+  /** Non-empty buckets of one dimension, optionally for a single currency, ordered by key. */
+  public List<ClaimRollup> buckets(Dimension dimension, Currency currency) {
+    Criteria where = Criteria.where("dimension").is(dimension).and("count").gt(0);
+    if (currency != null) where.and("currency").is(currency.name());
+    return template.find(
+        Query.query(where).with(Sort.by("key", "currency")), ClaimRollup.class, COLLECTION);
+  }
+
+  /**
+   * Recomputes every bucket with one aggregation over the claims collection into a scratch
+   * collection, then brings the live buckets to those totals with {@code $inc} upserts of the
+   * difference. The live collection is never replaced, so increments applied by concurrent writes
+   * are kept; only a claim that changes while the pipeline reads it can be off until the next
+   * rebuild. Runs under a lease so the job, the seed runner and the endpoint never overlap across
+   * nodes; throws {@link ConflictException} when another rebuild holds it. Returns the number of
+   * non-empty buckets.
+   */
+  public long rebuild() {
+    if (!lease.acquire(LEASE_COLLECTION, LEASE, LEASE_TTL)) {
+      throw new ConflictException("A claim rollup rebuild is already running");
+    }
+    try {
+      aggregateInto(REBUILD_COLLECTION);
+      long buckets = reconcile();
+      log.info("Rebuilt claim rollups: {} buckets", buckets);
+      return buckets;
+    } finally {
+      template.dropCollection(REBUILD_COLLECTION);
+      lease.release(LEASE_COLLECTION, LEASE);
+    }
+  }
+
+  // Live += recomputed - live, per bucket; buckets left empty are removed
+  private long reconcile() {
+    Map<String, Delta> deltas = new LinkedHashMap<>();
+    long buckets = 0;
+    for (Document d : template.findAll(Document.class, REBUILD_COLLECTION)) {
+      deltas.merge(String.valueOf(d.get("_id")), deltaOf(d, 1), Delta::plus);
+      buckets++;
+    }
+    for (Document d : template.findAll(Document.class, COLLECTION)) {
+      deltas.merge(String.valueOf(d.get("_id")), deltaOf(d, -1), Delta::plus);
+    }
+    deltas.values().removeIf(Delta::isZero);
+    if (!deltas.isEmpty()) write(deltas);
+    template.remove(Query.query(Criteria.where("count").is(0L)), COLLECTION);
+    return buckets;
+  }
+
+  private static Delta deltaOf(Document bucket, int sign) {
+    Object count = bucket.get("count");
+    Object total = bucket.get("total");
+    BigDecimal amount =
+        switch (total) {
+          case Decimal128 d -> d.bigDecimalValue();
+          case Number n -> new BigDecimal(n.toString());
+          case null, default -> BigDecimal.ZERO;
+        };
+    return new Delta(
+        count instanceof Number n ? n.longValue() * sign : 0,
+        amount.multiply(BigDecimal.valueOf(sign)));
+  }
+
+  private void aggregateInto(String collection) {
+    Document amount =
+        new Document(
+            "$ifNull", List.of(new Document("$toDecimal", "$amount"), Decimal128.POSITIVE_ZERO));
+    Document month =
+        new Document(
+            "$cond",
+            Arrays.asList(
+                new Document("$eq", List.of(new Document("$type", "$expenseAt"), "date")),
+                new Document(
+                    "$dateToString",
+                    new Document("format", "%Y-%m")
+                        .append("date", "$expenseAt")
+                        .append("timezone", "UTC")),
+                null));
+    Document facts =
+        new Document("status", ifNone("$status"))
+            .append("currency", ifNone("$currency"))
+            .append("amount", amount)
+            .append(
+                "tags",
+                new Document(
+                    "$setUnion", List.of(new Document("$ifNull", List.of("$tags", List.of())))))
+            .append("month", month);
+
+    Document facet =
+        new Document(Dimension.STATUS.name(), List.of(group("$status", Dimension.STATUS)))
+            .append(Dimension.CURRENCY.name(), List.of(group("$currency", Dimension.CURRENCY)))
+            .append(
+                Dimension.TAG.name(),
+                List.of(
+                    new Document("$unwind", "$tags"),
+                    group(new Document("$toString", "$tags"), Dimension.TAG)))
+            .append(
+                Dimension.MONTH.name(),
+                List.of(
+                    new Document("$match", new Document("month", new Document("$ne", null))),
+                    group("$month", Dimension.MONTH)));
+    List<Object> all = new ArrayList<>();
+    for (Dimension d : Dimension.values()) all.add("$" + d.name());
+
+    Aggregation pipeline =
+        Aggregation.newAggregation(
+                stage("$project", facts),
+                stage("$facet", facet),
+                stage("$project", new Document("bucket", new Document("$concatArrays", all))),
+                stage("$unwind", "$bucket"),
+                stage("$replaceRoot", new Document("newRoot", "$bucket")),
+                stage(
+                    "$project",
+                    new Document(
+                            "_id",
+                            new Document(
+                                "$concat",
+                                List.of("$dimension", "|", "$_id.key", "|", "$_id.currency")))
+                        .append("dimension", 1)
+                        .append("key", "$_id.key")
+                        .append("currency", "$_id.currency")
+                        .append("count", new Document("$toLong", "$count"))
+                        .append("total", 1)),
+                stage("$out", collection))
+            .withOptions(Aggregation.newAggregationOptions().allowDiskUse(true).build());
+    template.aggregate(pipeline, ClaimService.COLLECTION, Document.class);
+  }
+
+  private static void contribute(Map<String, Delta> deltas, Facts f, int sign) {
+    String currency = f.currency() != null ? f.currency().name() : NONE;
+    Delta d =
+        new Delta(
+            sign,
+            f.amount() != null ? f.amount().multiply(BigDecimal.valueOf(sign)) : BigDecimal.ZERO);
+    deltas.merge(
+        bucketId(Dimension.STATUS, f.status() != null ? f.status().name() : NONE, currency),
+        d,
+        Delta::plus);
+    deltas.merge(bucketId(Dimension.CURRENCY, currency, currency), d, Delta::plus);
+    if (f.tagIds() != null) {
+      for (String tag : new LinkedHashSet<>(f.tagIds())) {
+        deltas.merge(bucketId(Dimension.TAG, tag, currency), d, Delta::plus);
+      }
+    }
+    if (f.expenseAt() != null) {
+      String m = YearMonth.from(f.expenseAt().atZone(ZoneOffset.UTC)).toString();
+      deltas.merge(bucketId(Dimension.MONTH, m, currency), d, Delta::plus);
+    }
+  }
+
+  static String bucketId(Dimension dimension, String key, String currency) {
+    return dimension.name() + "|" + key + "|" + currency;
+  }
+
+  private static Document ifNone(String field) {
+    return new Document("$ifNull", List.of(field, NONE));
+  }
+
+  private static Document group(Object key, Dimension dimension) {
+    return new Document(
+        "$group",
+        new Document("_id", new Document("key", key).append("currency", "$currency"))
+            .append("dimension", new Document("$first", dimension.name()))
+            .append("count", new Document("$sum", 1))
+            .append("total", new Document("$sum", "$amount")));
+  }
+
+  private static AggregationOperation stage(String operator, Object spec) {
+    return context -> new Document(operator, spec);
+  }
+}
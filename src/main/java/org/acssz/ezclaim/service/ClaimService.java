@@ -1,13 +1,30 @@
 package org.acssz.ezclaim.service;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.acssz.ezclaim.cache.EntityCaches;
 import org.acssz.ezclaim.domain.Claim;
 import org.acssz.ezclaim.domain.ClaimStatus;
 import org.acssz.ezclaim.domain.Currency;
@@ -17,20 +34,300 @@ import org.acssz.ezclaim.domain.Tag;
 import org.acssz.ezclaim.repository.ClaimRepository;
 import org.acssz.ezclaim.repository.PhotoRepository;
 import org.acssz.ezclaim.repository.TagRepository;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.LazyLoadingProxy;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ClaimService {
+  public static final int DEFAULT_PAGE_SIZE = 50;
+  public static final int MAX_PAGE_SIZE = 200;
+  public static final int MAX_SEARCH_RESULTS = 1000;
+  private static final int EXPORT_BATCH_SIZE = 500;
+  // Small enough that a slow streaming reader pins little memory
+  static final int STREAM_BATCH_SIZE = 50;
+  static final String COLLECTION = "claims";
+
+  /**
+   * Names accepted by {@code fields=}; each maps to the Claim property of the same name. {@code id}
+   * and {@code createdAt} are always returned because pages are keyed on them.
+   */
+  public static final Set<String> SELECTABLE_FIELDS =
+      Set.of(
+          "id",
+          "version",
+          "title",
+          "description",
+          "status",
+          "createdAt",
+          "updatedAt",
+          "amount",
+          "currency",
+          "recipient",
+          "expenseAt",
+          "payout",
+          "photos",
+          "tags");
+
+  private static final List<String> ALWAYS_SELECTED = List.of("id", "createdAt");
+
+  // Must match the compound indexes declared on Claim
+  private static final Sort KEYSET_SORT =
+      Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id"));
+
   private final ClaimRepository repository;
   private final PhotoRepository photoRepository;
   private final TagRepository tagRepository;
+  private final MongoTemplate template;
+  private final ReactiveMongoTemplate reactiveTemplate;
+  private final ApplicationEventPublisher events;
+  private final ClaimRollupService rollups;
+  private final EntityCaches caches;
+  private final ConcurrentCalls calls;
+
+  public record Filter(
+      List<ClaimStatus> statuses,
+      Currency currency,
+      String tagId,
+      Instant createdFrom,
+      Instant createdTo,
+      Instant expenseFrom,
+      Instant expenseTo,
+      BigDecimal amountMin,
+      BigDecimal amountMax) {}
+
+  /** One page of claims; {@code nextCursor} is null on the last page. */
+  public record KeysetPage(List<Claim> content, String nextCursor) {}
 
-  public List<Claim> findAll() {
-    return repository.findAll();
+  public KeysetPage search(Filter filter, String cursor, int size) {
+    return search(filter, cursor, size, null);
+  }
+
+  /**
+   * As {@link #search(Filter, String, int)}, loading only {@code fields} as returned by {@link
+   * #parseFields} (null for everything). Photos and tags are neither read nor resolved unless
+   * selected.
+   */
+  public KeysetPage search(Filter filter, String cursor, int size, Set<String> fields) {
+    int limit = Math.clamp(size, 1, MAX_PAGE_SIZE);
+    List<Criteria> criteria = criteriaFor(filter);
+    if (cursor != null && !cursor.isBlank()) criteria.add(afterCursor(cursor));
+
+    // fetch one extra row to learn whether another page exists
+    Query q = project(queryFor(criteria).with(KEYSET_SORT).limit(limit + 1), fields);
+
+    List<Claim> found = template.find(q, Claim.class);
+    List<Claim> content = found.size() <= limit ? found : List.copyOf(found.subList(0, limit));
+    resolveReferences(content);
+    String next = found.size() > limit ? encodeCursor(content.get(limit - 1)) : null;
+    return new KeysetPage(content, next);
+  }
+
+  /** One page of text-search hits, best match first. */
+  public record SearchPage(List<Claim> content, int page, boolean hasNext) {}
+
+  /**
+   * Ranked full-text search over title, recipient and description through the claims text index,
+   * narrowed by the same filters as {@link #search}. Relevance order has no usable keyset, so pages
+   * are offsets; {@link #MAX_SEARCH_RESULTS} caps how deep a caller can page.
+   */
+  public SearchPage textSearch(String text, Filter filter, int page, int size) {
+    if (text == null || text.isBlank()) throw new BadRequestException("q must not be blank");
+    int limit = Math.clamp(size, 1, MAX_PAGE_SIZE);
+    if (page < 0 || (long) (page + 1) * limit > MAX_SEARCH_RESULTS) {
+      throw new BadRequestException(
+          "page out of range; refine the search (at most " + MAX_SEARCH_RESULTS + " results)");
+    }
+    TextQuery q =
+        TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(text)).sortByScore();
+    List<Criteria> criteria = criteriaFor(filter);
+    if (!criteria.isEmpty())
+      q.addCriteria(new Criteria().andOperator(criteria.toArray(Criteria[]::new)));
+    q.with(Sort.by(Sort.Direction.DESC, "id")).skip((long) page * limit).limit(limit + 1);
+
+    List<Claim> found = template.find(q, Claim.class);
+    List<Claim> content = found.size() <= limit ? found : List.copyOf(found.subList(0, limit));
+    resolveReferences(content);
+    return new SearchPage(content, page, found.size() > limit);
+  }
+
+  /**
+   * Every claim matching the filter in list order (newest first) on the reactive driver, with only
+   * {@code fields} loaded. Claims are read as the subscriber requests them, in batches of {@link
+   * #STREAM_BATCH_SIZE} whose references are resolved with one {@code $in} query per collection.
+   */
+  public Flux<Claim> stream(Filter filter, Set<String> fields) {
+    // Lazy references cannot be resolved reactively, so read raw documents with the query mapped
+    // against Claim and resolve photos/tags per batch
+    MongoPersistentEntity<?> entity =
+        template.getConverter().getMappingContext().getRequiredPersistentEntity(Claim.class);
+    QueryMapper mapper = new QueryMapper(template.getConverter());
+    Query q = project(queryFor(criteriaFor(filter)).with(KEYSET_SORT), fields);
+    BasicQuery raw =
+        new BasicQuery(
+            mapper.getMappedObject(q.getQueryObject(), entity),
+            mapper.getMappedFields(q.getFieldsObject(), entity));
+    raw.setSortObject(mapper.getMappedSort(q.getSortObject(), entity));
+    raw.cursorBatchSize(STREAM_BATCH_SIZE);
+    return reactiveTemplate
+        .find(raw, Document.class, COLLECTION)
+        .buffer(STREAM_BATCH_SIZE)
+        .concatMap(this::toClaims, 0);
+  }
+
+  private Flux<Claim> toClaims(List<Document> batch) {
+    return Mono.zip(
+            fetchByIdsReactive(batch, "photos", Photo.class, Photo::getId),
+            fetchByIdsReactive(batch, "tags", Tag.class, Tag::getId))
+        .flatMapIterable(
+            refs ->
+                batch.stream()
+                    .map(
+                        d -> {
+                          Document plain = new Document(d);
+                          plain.remove("photos");
+                          plain.remove("tags");
+                          Claim c = template.getConverter().read(Claim.class, plain);
+                          if (d.containsKey("photos"))
+                            c.setPhotos(pickRaw(d.getList("photos", Object.class), refs.getT1()));
+                          if (d.containsKey("tags"))
+                            c.setTags(pickRaw(d.getList("tags", Object.class), refs.getT2()));
+                          return c;
+                        })
+                    .toList());
+  }
+
+  private <T> Mono<Map<String, T>> fetchByIdsReactive(
+      List<Document> batch, String field, Class<T> type, Function<T, String> idOf) {
+    Set<Object> distinct =
+        batch.stream()
+            .map(d -> d.getList(field, Object.class))
+            .filter(Objects::nonNull)
+            .flatMap(List::stream)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+    if (distinct.isEmpty()) return Mono.just(Map.of());
+    return reactiveTemplate
+        .find(Query.query(Criteria.where("id").in(distinct)), type)
+        .collectMap(idOf, Function.identity());
+  }
+
+  private static <T> List<T> pickRaw(List<Object> ids, Map<String, T> loaded) {
+    if (ids == null) return List.of();
+    return ids.stream()
+        .filter(Objects::nonNull)
+        .map(id -> loaded.get(id.toString()))
+        .filter(Objects::nonNull)
+        .toList();
+  }
+
+  /**
+   * Streams every claim matching the filter, oldest first, to {@code sink} in batches whose
+   * references are resolved together. Only the current batch is held in memory.
+   */
+  public void export(Filter filter, Consumer<List<Claim>> sink) {
+    Query q =
+        queryFor(criteriaFor(filter))
+            .with(Sort.by(Sort.Direction.ASC, "createdAt").and(Sort.by(Sort.Direction.ASC, "id")))
+            .cursorBatchSize(EXPORT_BATCH_SIZE);
+    try (Stream<Claim> claims = template.stream(q, Claim.class)) {
+      List<Claim> batch = new ArrayList<>(EXPORT_BATCH_SIZE);
+      for (Iterator<Claim> it = claims.iterator(); it.hasNext(); ) {
+        batch.add(it.next());
+        if (batch.size() == EXPORT_BATCH_SIZE) {
+          resolveReferences(batch);
+          sink.accept(batch);
+          batch = new ArrayList<>(EXPORT_BATCH_SIZE);
+        }
+      }
+      if (!batch.isEmpty()) {
+        resolveReferences(batch);
+        sink.accept(batch);
+      }
+    }
+  }
+
+  /**
+   * Replaces the lazy photo/tag proxies of a page of claims with entities loaded by one {@code $in}
+   * query per collection, instead of one lookup per claim and field on first access.
+   */
+  void resolveReferences(List<Claim> claims) {
+    if (claims.isEmpty()) return;
+    calls.both(
+        () ->
+            fetchByIds(
+                claims.stream().flatMap(c -> referenceIds(c.getPhotos()).stream()),
+                Photo.class,
+                Photo::getId),
+        () ->
+            fetchByIds(
+                claims.stream().flatMap(c -> referenceIds(c.getTags()).stream()),
+                Tag.class,
+                Tag::getId),
+        (photos, tags) -> {
+          for (Claim c : claims) {
+            if (c.getPhotos() instanceof LazyLoadingProxy) c.setPhotos(pick(c.getPhotos(), photos));
+            if (c.getTags() instanceof LazyLoadingProxy) c.setTags(pick(c.getTags(), tags));
+          }
+          return null;
+        });
+  }
+
+  // Raw stored ids behind an unresolved proxy; reading the source does not trigger a lookup
+  private static List<Object> referenceIds(List<?> refs) {
+    if (refs instanceof LazyLoadingProxy proxy && proxy.getSource() instanceof Collection<?> ids) {
+      return ids.stream().filter(Objects::nonNull).map(Object.class::cast).toList();
+    }
+    return List.of();
+  }
+
+  // Rollup inputs; tag ids come from the raw references so lazy lists stay unresolved
+  private static ClaimRollupService.Facts factsOf(Claim c) {
+    List<String> tagIds =
+        c.getTags() instanceof LazyLoadingProxy
+            ? referenceIds(c.getTags()).stream().map(Object::toString).toList()
+            : c.getTags() == null ? List.of() : c.getTags().stream().map(Tag::getId).toList();
+    return new ClaimRollupService.Facts(
+        c.getStatus(), c.getCurrency(), c.getAmount(), c.getExpenseAt(), tagIds);
+  }
+
+  private <T> Map<String, T> fetchByIds(
+      Stream<Object> ids, Class<T> type, Function<T, String> idOf) {
+    Set<Object> distinct = ids.collect(Collectors.toCollection(LinkedHashSet::new));
+    if (distinct.isEmpty()) return Map.of();
+    return template.find(Query.query(Criteria.where("id").in(distinct)), type).stream()
+        .collect(Collectors.toMap(idOf, Function.identity(), (a, b) -> a));
+  }
+
+  // Keeps reference order and drops dangling ids, as the lazy lookup would
+  private static <T> List<T> pick(List<?> refs, Map<String, T> loaded) {
+    return referenceIds(refs).stream()
+        .map(id -> loaded.get(id.toString()))
+        .filter(Objects::nonNull)
+        .toList();
   }
 
   public Claim findById(String id) {
@@ -39,6 +336,68 @@ public class ClaimService {
         .orElseThrow(() -> new ResourceNotFoundException("Claim not found: " + id));
   }
 
+  /**
+   * A single claim with only {@code fields} loaded (null for everything). Full claims come from the
+   * node-local cache with references resolved; treat them as read-only.
+   */
+  public Claim findById(String id, Set<String> fields) {
+    if (fields == null) {
+      return caches.get(
+          EntityCaches.CLAIMS,
+          id,
+          Claim.class,
+          () -> {
+            Claim c = findById(id);
+            resolveReferences(List.of(c));
+            return c;
+          });
+    }
+    Claim c =
+        template.findOne(project(Query.query(Criteria.where("id").is(id)), fields), Claim.class);
+    if (c == null) throw new ResourceNotFoundException("Claim not found: " + id);
+    resolveReferences(List.of(c));
+    return c;
+  }
+
+  /**
+   * Parses a comma-separated {@code fields=} value into property names; null or blank selects every
+   * field. Unknown names are rejected rather than ignored so typos do not silently drop data.
+   */
+  public static Set<String> parseFields(String spec) {
+    if (spec == null || spec.isBlank()) return null;
+    Set<String> fields = new LinkedHashSet<>(ALWAYS_SELECTED);
+    for (String f : spec.split(",")) {
+      String name = f.strip();
+      if (name.isEmpty()) continue;
+      if (!SELECTABLE_FIELDS.contains(name)) {
+        throw new BadRequestException("Unknown field: " + name);
+      }
+      fields.add(name);
+    }
+    return Set.copyOf(fields);
+  }
+
+  // Unselected fields stay null on the mapped Claim; unselected references get no lazy proxy
+  private static Query project(Query q, Set<String> fields) {
+    if (fields != null) q.fields().include(fields.toArray(String[]::new));
+    return q;
+  }
+
+  /**
+   * Just the fields needed to authorize a read and answer a conditional GET (version, updatedAt,
+   * passwordHash): the cached claim when there is one, else fetched by {@code _id} without mapping
+   * the rest of the document.
+   */
+  public Claim findHead(String id) {
+    Claim cached = caches.getIfPresent(EntityCaches.CLAIMS, id, Claim.class);
+    if (cached != null) return cached;
+    Query q = Query.query(Criteria.where("id").is(id));
+    q.fields().include("version", "updatedAt", "passwordHash");
+    Claim head = template.findOne(q, Claim.class);
+    if (head == null) throw new ResourceNotFoundException("Claim not found: " + id);
+    return head;
+  }
+
   public Claim create(
       String title,
       String description,
@@ -53,6 +412,7 @@ public class ClaimService {
       PasswordEncoder encoder,
       Instant expenseAt) {
     Instant now = Instant.now();
+    References refs = lookupReferences(photoIds, tagIds);
     Claim claim =
         Claim.builder()
             .title(title)
@@ -60,9 +420,10 @@ public class ClaimService {
             .status(status != null ? status : ClaimStatus.SUBMITTED)
             .createdAt(now)
             .updatedAt(now)
-            .photos(resolvePhotos(photoIds))
-            .tags(resolveTags(tagIds))
+            .photos(refs.photos() != null ? refs.photos() : List.of())
+            .tags(refs.tags() != null ? refs.tags() : List.of())
             .amount(amount)
+            .amountMinor(toMinorUnits(amount))
             .currency(currency != null ? currency : org.acssz.ezclaim.domain.Currency.CHF)
             .payout(payout)
             .recipient(recipient)
@@ -73,10 +434,34 @@ public class ClaimService {
             .expenseAt(expenseAt)
             .build();
     Claim saved = repository.save(claim);
+    rollups.apply(null, factsOf(saved));
     log.info("Created claim {}", saved.getId());
     return saved;
   }
 
+  /**
+   * Re-hashes a just-verified password when its stored hash is weaker than the encoder's current
+   * strength. The write only applies if the hash is unchanged, and is skipped while the hashing
+   * pool is saturated; the next successful verification retries it.
+   */
+  public void upgradePasswordHash(
+      String id, String currentHash, String passwordRaw, PasswordEncoder encoder) {
+    if (currentHash == null || !encoder.upgradeEncoding(currentHash)) return;
+    String upgraded;
+    try {
+      upgraded = encoder.encode(passwordRaw);
+    } catch (TooManyRequestsException e) {
+      return;
+    }
+    template.updateFirst(
+        Query.query(Criteria.where("id").is(id).and("passwordHash").is(currentHash)),
+        new Update().set("passwordHash", upgraded),
+        Claim.class);
+    // No lifecycle event for a bare updateFirst
+    caches.invalidate(EntityCaches.CLAIMS, id);
+    log.info("Upgraded password hash for claim {}", id);
+  }
+
   public Claim update(
       String id,
       String title,
@@ -84,28 +469,57 @@ public class ClaimService {
       ClaimStatus status,
       List<String> photoIds,
       List<String> tagIds) {
+    return update(id, title, description, status, photoIds, tagIds, null);
+  }
+
+  /**
+   * Full update guarded by optimistic locking. {@code title} and {@code description} replace the
+   * stored values, so a null description clears it; a null {@code status}, {@code photoIds} or
+   * {@code tagIds} keeps the current value. A status change follows the admin transition rules and
+   * is a {@link ConflictException} when the claim's current status does not allow it. {@code
+   * expectedVersion} is the If-Match version the caller last saw (null to skip the precondition); a
+   * concurrent write between load and save surfaces as {@link
+   * org.springframework.dao.OptimisticLockingFailureException}.
+   */
+  public Claim update(
+      String id,
+      String title,
+      String description,
+      ClaimStatus status,
+      List<String> photoIds,
+      List<String> tagIds,
+      Long expectedVersion) {
     Claim existing = findById(id);
+    if (expectedVersion != null && !expectedVersion.equals(existing.getVersion())) {
+      throw new PreconditionFailedException("Claim has been modified: " + id);
+    }
+    if (status != null
+        && status != existing.getStatus()
+        && !isAdminTransitionAllowed(existing.getStatus(), status)) {
+      throw new ConflictException(
+          "Claim " + id + " cannot move from " + existing.getStatus() + " to " + status);
+    }
+    ClaimRollupService.Facts before = factsOf(existing);
+    References refs = lookupReferences(photoIds, tagIds);
     existing.setTitle(title);
-    existing.setDescription(description);
+    existing.setDescription(description); // replaced, not merged: PUT semantics
     if (status != null) existing.setStatus(status);
-    if (photoIds != null) existing.setPhotos(resolvePhotos(photoIds));
-    if (tagIds != null) existing.setTags(resolveTags(tagIds));
-    // optional new fields updates
-    // null means no change
-    // amount, currency, payout, recipient, expenseAt
-    // password change intentionally not supported here unless explicitly provided
-    // (for admin flows you may add a dedicated endpoint)
-    // keep minimal per request
+    if (refs.photos() != null) existing.setPhotos(refs.photos());
+    if (refs.tags() != null) existing.setTags(refs.tags());
     existing.setUpdatedAt(Instant.now());
-    return repository.save(existing);
+    Claim saved = repository.save(existing);
+    rollups.apply(before, factsOf(saved));
+    return saved;
   }
 
   public void delete(String id) {
     Claim existing = findById(id);
     repository.delete(existing);
+    rollups.apply(factsOf(existing), null);
     log.info("Deleted claim {}", id);
   }
 
+  /** {@code expectedVersion} is the If-Match precondition; null skips the version check. */
   public record Patch(
       ClaimStatus status,
       BigDecimal amount,
@@ -114,25 +528,35 @@ public class ClaimService {
       String recipient,
       String title,
       String description,
-      Instant expenseAt) {}
+      Instant expenseAt,
+      Long expectedVersion) {
 
-  public Claim patch(String id, Patch patch, boolean privileged, boolean allowUserStatusChange) {
-    Claim c = findById(id);
-
-    // Handle status transitions
-    if (patch.status() != null) {
-      ClaimStatus from = c.getStatus();
-      ClaimStatus to = patch.status();
-      boolean ok = false;
-      if (privileged) {
-        ok = isAdminTransitionAllowed(from, to);
-      } else if (allowUserStatusChange) {
-        ok = isUserTransitionAllowed(from, to);
-      }
-      if (!ok) throw new AccessDeniedException("status transition not allowed");
-      c.setStatus(to);
+    /**
+     * True when the patch sets no field at all ({@code expectedVersion} is only a precondition).
+     */
+    boolean isEmpty() {
+      return status == null
+          && amount == null
+          && currency == null
+          && payout == null
+          && recipient == null
+          && title == null
+          && description == null
+          && expenseAt == null;
     }
+  }
 
+  /**
+   * Applies the patch as a single conditional findAndModify: the filter carries the statuses the
+   * requested transition may start from (and the expected version, if any), so a concurrent change
+   * makes the update miss instead of being overwritten. A caller that may neither write as admin
+   * nor change the claim's status is refused outright. An empty patch writes nothing and returns
+   * the current claim, so it cannot bump the version (and invalidate every client's ETag).
+   */
+  public Claim patch(String id, Patch patch, boolean privileged, boolean allowUserStatusChange) {
+    if (!privileged && !allowUserStatusChange) {
+      throw new AccessDeniedException("claim update not allowed");
+    }
     // Other fields only editable by privileged
     if (!privileged
         && (patch.amount() != null
@@ -144,22 +568,215 @@ public class ClaimService {
             || patch.expenseAt() != null)) {
       throw new AccessDeniedException("field update not allowed");
     }
+    if (patch.isEmpty()) {
+      Claim current = findById(id);
+      if (patch.expectedVersion() != null
+          && !patch.expectedVersion().equals(current.getVersion())) {
+        throw new PreconditionFailedException("Claim has been modified: " + id);
+      }
+      return current;
+    }
+
+    Criteria where = Criteria.where("id").is(id);
+    Update update = new Update();
+
+    // Handle status transitions
+    if (patch.status() != null) {
+      ClaimStatus to = patch.status();
+      Set<ClaimStatus> from = EnumSet.noneOf(ClaimStatus.class);
+      if (privileged) {
+        from = transitionSources(to, ClaimService::isAdminTransitionAllowed);
+      } else if (allowUserStatusChange) {
+        from = transitionSources(to, ClaimService::isUserTransitionAllowed);
+      }
+      if (from.isEmpty()) throw new AccessDeniedException("status transition not allowed");
+      where.and("status").in(from);
+      update.set("status", to);
+    }
+
+    if (privileged) {
+      if (patch.title() != null) update.set("title", patch.title());
+      if (patch.description() != null) update.set("description", patch.description());
+      if (patch.amount() != null) {
+        update
+            .set("amount", new Decimal128(patch.amount()))
+            .set("amountMinor", toMinorUnits(patch.amount()));
+      }
+      if (patch.currency() != null) update.set("currency", patch.currency());
+      if (patch.payout() != null) update.set("payout", patch.payout());
+      if (patch.recipient() != null) update.set("recipient", patch.recipient());
+      if (patch.expenseAt() != null) update.set("expenseAt", patch.expenseAt());
+    }
+
+    if (patch.expectedVersion() != null) where.and("version").is(patch.expectedVersion());
+    // Mongo stores millisecond precision; keep the in-memory copy identical
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    update.set("updatedAt", now).inc("version", 1);
 
+    // Pre-image, so rollups can move the claim out of its old buckets
+    Claim updated =
+        template.findAndModify(
+            Query.query(where),
+            update,
+            FindAndModifyOptions.options().returnNew(false),
+            Claim.class);
+    if (updated == null) throw patchConflict(id, patch);
+    ClaimRollupService.Facts before = factsOf(updated);
+    if (patch.status() != null) updated.setStatus(patch.status());
     if (privileged) {
-      if (patch.title() != null) c.setTitle(patch.title());
-      if (patch.description() != null) c.setDescription(patch.description());
-      if (patch.amount() != null) c.setAmount(patch.amount());
-      if (patch.currency() != null) c.setCurrency(patch.currency());
-      if (patch.payout() != null) c.setPayout(patch.payout());
-      if (patch.recipient() != null) c.setRecipient(patch.recipient());
-      if (patch.expenseAt() != null) c.setExpenseAt(patch.expenseAt());
+      if (patch.title() != null) updated.setTitle(patch.title());
+      if (patch.description() != null) updated.setDescription(patch.description());
+      if (patch.amount() != null) {
+        updated.setAmount(patch.amount());
+        updated.setAmountMinor(toMinorUnits(patch.amount()));
+      }
+      if (patch.currency() != null) updated.setCurrency(patch.currency());
+      if (patch.payout() != null) updated.setPayout(patch.payout());
+      if (patch.recipient() != null) updated.setRecipient(patch.recipient());
+      if (patch.expenseAt() != null) updated.setExpenseAt(patch.expenseAt());
+    }
+    updated.setUpdatedAt(now);
+    updated.setVersion(nextVersion(updated.getVersion()));
+    rollups.apply(before, factsOf(updated));
+    publishSaved(updated);
+    return updated;
+  }
+
+  public enum TransitionOutcome {
+    APPLIED, // status changed
+    NOT_FOUND, // no claim with this id
+    NOT_ALLOWED, // current status does not permit the transition
+    CONFLICT // claim changed between read and write; retry
+  }
+
+  /** Per-claim result of a bulk transition; {@code status} is the status after the call. */
+  public record TransitionResult(String id, TransitionOutcome outcome, ClaimStatus status) {}
+
+  /**
+   * Moves many claims to {@code to} under the admin transition rules with a constant number of
+   * round trips: one projected read, one unordered bulk of conditional updates and one read back to
+   * tell applied updates from concurrent losers.
+   */
+  public List<TransitionResult> bulkTransition(List<String> ids, ClaimStatus to) {
+    Set<ClaimStatus> from = transitionSources(to, ClaimService::isAdminTransitionAllowed);
+    if (from.isEmpty()) throw new AccessDeniedException("status transition not allowed");
+    List<String> requested = List.copyOf(new LinkedHashSet<>(ids));
+
+    Query current = Query.query(Criteria.where("id").in(requested));
+    current.fields().include("status", "version");
+    Map<String, Claim> before =
+        template.find(current, Claim.class).stream()
+            .collect(Collectors.toMap(Claim::getId, Function.identity()));
+
+    List<Claim> candidates =
+        before.values().stream().filter(c -> from.contains(c.getStatus())).toList();
+    Map<String, Snapshot> after = Map.of();
+    if (!candidates.isEmpty()) {
+      BulkOperations ops = template.bulkOps(BulkOperations.BulkMode.UNORDERED, Claim.class);
+      Update update =
+          new Update().set("status", to).set("updatedAt", Instant.now()).inc("version", 1);
+      for (Claim c : candidates) {
+        // conditional on the snapshot just read, so a concurrent writer is never overwritten
+        ops.updateOne(
+            Query.query(
+                Criteria.where("id")
+                    .is(c.getId())
+                    .and("status")
+                    .is(c.getStatus())
+                    .and("version")
+                    .is(c.getVersion())),
+            update);
+      }
+      ops.execute();
+      after = readBack(candidates.stream().map(Claim::getId).toList());
+    }
+
+    List<TransitionResult> results = new ArrayList<>(requested.size());
+    List<ClaimRollupService.Change> moves = new ArrayList<>();
+    for (String id : requested) {
+      Claim was = before.get(id);
+      Claim now = after.containsKey(id) ? after.get(id).claim() : null;
+      if (was == null) {
+        results.add(new TransitionResult(id, TransitionOutcome.NOT_FOUND, null));
+      } else if (!from.contains(was.getStatus())) {
+        results.add(new TransitionResult(id, TransitionOutcome.NOT_ALLOWED, was.getStatus()));
+      } else if (now != null
+          && now.getStatus() == to
+          && Objects.equals(now.getVersion(), nextVersion(was.getVersion()))) {
+        ClaimRollupService.Facts moved = factsOf(now);
+        moves.add(
+            new ClaimRollupService.Change(
+                new ClaimRollupService.Facts(
+                    was.getStatus(),
+                    moved.currency(),
+                    moved.amount(),
+                    moved.expenseAt(),
+                    moved.tagIds()),
+                moved));
+        publishSaved(now, after.get(id).document());
+        results.add(new TransitionResult(id, TransitionOutcome.APPLIED, to));
+      } else {
+        ClaimStatus status = now != null ? now.getStatus() : null;
+        results.add(new TransitionResult(id, TransitionOutcome.CONFLICT, status));
+      }
+    }
+    // One rollup bulk for the whole batch rather than one per claim
+    if (!moves.isEmpty()) rollups.apply(moves);
+    log.info(
+        "Bulk transition to {}: {} requested, {} applied",
+        to,
+        requested.size(),
+        results.stream().filter(r -> r.outcome() == TransitionOutcome.APPLIED).count());
+    return results;
+  }
+
+  // Only runs when the conditional update matched nothing, to tell the caller why
+  private RuntimeException patchConflict(String id, Patch patch) {
+    Claim current = findById(id);
+    if (patch.expectedVersion() != null && !patch.expectedVersion().equals(current.getVersion())) {
+      return new PreconditionFailedException("Claim has been modified: " + id);
     }
+    return new ConflictException(
+        "Claim " + id + " cannot move from " + current.getStatus() + " to " + patch.status());
+  }
+
+  private record Snapshot(Claim claim, Document document) {}
+
+  // Raw read so audit events can carry the stored document without resolving references
+  private Map<String, Snapshot> readBack(List<String> ids) {
+    Query q =
+        Query.query(Criteria.where("_id").in(ids.stream().map(ClaimService::toObjectId).toList()));
+    Map<String, Snapshot> out = new HashMap<>();
+    for (Document doc : template.find(q, Document.class, COLLECTION)) {
+      Claim c = template.getConverter().read(Claim.class, doc);
+      out.put(c.getId(), new Snapshot(c, doc));
+    }
+    return out;
+  }
+
+  private static Long nextVersion(Long version) {
+    return version == null ? 1L : version + 1;
+  }
+
+  // Updates bypass the repository lifecycle; keep audit listeners informed
+  private void publishSaved(Claim saved) {
+    Document doc = new Document();
+    template.getConverter().write(saved, doc);
+    publishSaved(saved, doc);
+  }
 
-    c.setUpdatedAt(Instant.now());
-    return repository.save(c);
+  private void publishSaved(Claim saved, Document doc) {
+    events.publishEvent(new AfterSaveEvent<>(saved, doc, COLLECTION));
   }
 
-  private boolean isAdminTransitionAllowed(ClaimStatus from, ClaimStatus to) {
+  private static Set<ClaimStatus> transitionSources(
+      ClaimStatus to, BiPredicate<ClaimStatus, ClaimStatus> allowed) {
+    Set<ClaimStatus> from = EnumSet.noneOf(ClaimStatus.class);
+    for (ClaimStatus s : ClaimStatus.values()) if (allowed.test(s, to)) from.add(s);
+    return from;
+  }
+
+  private static boolean isAdminTransitionAllowed(ClaimStatus from, ClaimStatus to) {
     if (to == ClaimStatus.REJECTED) {
       return from != ClaimStatus.FINISHED && from != ClaimStatus.WITHDRAW;
     }
@@ -168,11 +785,110 @@ public class ClaimService {
             && (to == ClaimStatus.PAID || to == ClaimStatus.PAYMENT_FAILED));
   }
 
-  private boolean isUserTransitionAllowed(ClaimStatus from, ClaimStatus to) {
+  private static boolean isUserTransitionAllowed(ClaimStatus from, ClaimStatus to) {
     return (from == ClaimStatus.SUBMITTED && to == ClaimStatus.WITHDRAW)
         || (from == ClaimStatus.PAID && to == ClaimStatus.FINISHED);
   }
 
+  private static Query queryFor(List<Criteria> criteria) {
+    Query q = new Query();
+    if (!criteria.isEmpty()) {
+      q.addCriteria(new Criteria().andOperator(criteria.toArray(Criteria[]::new)));
+    }
+    return q;
+  }
+
+  private List<Criteria> criteriaFor(Filter f) {
+    List<Criteria> criteria = new ArrayList<>();
+    if (f == null) return criteria;
+
+    if (f.statuses() != null && !f.statuses().isEmpty())
+      criteria.add(Criteria.where("status").in(f.statuses()));
+    if (f.currency() != null) criteria.add(Criteria.where("currency").is(f.currency()));
+    if (f.tagId() != null && !f.tagId().isBlank())
+      criteria.add(Criteria.where("tags").is(toObjectId(f.tagId())));
+
+    if (f.createdFrom() != null || f.createdTo() != null) {
+      Criteria created = Criteria.where("createdAt");
+      if (f.createdFrom() != null) created = created.gte(f.createdFrom());
+      if (f.createdTo() != null) created = created.lte(f.createdTo());
+      criteria.add(created);
+    }
+    if (f.expenseFrom() != null || f.expenseTo() != null) {
+      Criteria expense = Criteria.where("expenseAt");
+      if (f.expenseFrom() != null) expense = expense.gte(f.expenseFrom());
+      if (f.expenseTo() != null) expense = expense.lte(f.expenseTo());
+      criteria.add(expense);
+    }
+    if (f.amountMin() != null || f.amountMax() != null) {
+      // Bounds rounded inwards to whole minor units, so the range stays inclusive
+      Criteria amount = Criteria.where("amountMinor");
+      if (f.amountMin() != null)
+        amount = amount.gte(minorUnits(f.amountMin(), RoundingMode.CEILING));
+      if (f.amountMax() != null) amount = amount.lte(minorUnits(f.amountMax(), RoundingMode.FLOOR));
+      criteria.add(amount);
+    }
+    return criteria;
+  }
+
+  // Cursor is the (createdAt, id) of the last row of the previous page, base64url-encoded
+  private static String encodeCursor(Claim last) {
+    String raw = last.getCreatedAt().toEpochMilli() + ":" + last.getId();
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static Criteria afterCursor(String cursor) {
+    Instant createdAt;
+    String id;
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int sep = raw.indexOf(':');
+      createdAt = Instant.ofEpochMilli(Long.parseLong(raw.substring(0, sep)));
+      id = raw.substring(sep + 1);
+    } catch (RuntimeException e) {
+      throw new BadRequestException("Invalid cursor");
+    }
+    if (!ObjectId.isValid(id)) throw new BadRequestException("Invalid cursor");
+    return new Criteria()
+        .orOperator(
+            Criteria.where("createdAt").lt(createdAt),
+            Criteria.where("createdAt").is(createdAt).and("id").lt(new ObjectId(id)));
+  }
+
+  /** Amount in minor units; rejects amounts finer than {@link Claim#MINOR_UNIT_SCALE}. */
+  static Long toMinorUnits(BigDecimal amount) {
+    if (amount == null) return null;
+    try {
+      return minorUnits(amount, RoundingMode.UNNECESSARY);
+    } catch (ArithmeticException e) {
+      throw new BadRequestException(
+          "amount must have at most " + Claim.MINOR_UNIT_SCALE + " decimal places");
+    }
+  }
+
+  static long minorUnits(BigDecimal amount, RoundingMode rounding) {
+    return amount
+        .setScale(Claim.MINOR_UNIT_SCALE, rounding)
+        .movePointRight(Claim.MINOR_UNIT_SCALE)
+        .longValueExact();
+  }
+
+  private static Object toObjectId(String id) {
+    return ObjectId.isValid(id) ? new ObjectId(id) : id;
+  }
+
+  private record References(List<Photo> photos, List<Tag> tags) {}
+
+  // Photo and tag lookups are independent; null ids stay null (no change)
+  private References lookupReferences(List<String> photoIds, List<String> tagIds) {
+    return calls.both(
+        () -> photoIds == null ? null : resolvePhotos(photoIds),
+        () -> tagIds == null ? null : resolveTags(tagIds),
+        References::new);
+  }
+
   private List<Photo> resolvePhotos(List<String> ids) {
     if (ids == null || ids.isEmpty()) return List.of();
     List<Photo> found = photoRepository.findAllById(ids);
@@ -0,0 +1,71 @@
+package org.acssz.ezclaim.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs independent blocking calls (Mongo lookups, S3 requests) side by side in virtual-thread mode
+ * ({@code spring.threads.virtual.enabled}), each on its own virtual thread. In platform-thread mode
+ * they run one after the other on the caller, so no pool threads are borrowed.
+ *
+ * <p>The fan-out is structured: every call has finished or been cancelled when a method returns,
+ * and the first failure cancels the rest and is rethrown unchanged. Calls run on fresh threads, so
+ * they must not rely on thread-bound state such as the security context.
+ */
+@Component
+public class ConcurrentCalls {
+  private final boolean virtualThreads;
+
+  public ConcurrentCalls(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+    this.virtualThreads = virtualThreads;
+  }
+
+  @SuppressWarnings("unchecked")
+  public <A, B, R> R both(Supplier<A> first, Supplier<B> second, BiFunction<A, B, R> combine) {
+    if (!virtualThreads) return combine.apply(first.get(), second.get());
+    List<Object> results = fork(List.of(first, second));
+    return combine.apply((A) results.get(0), (B) results.get(1));
+  }
+
+  /** Results of every call, in order. */
+  @SuppressWarnings("unchecked")
+  public <T> List<T> all(List<? extends Supplier<? extends T>> calls) {
+    if (!virtualThreads || calls.size() < 2) {
+      return calls.stream().<T>map(Supplier::get).toList();
+    }
+    return (List<T>) fork(calls);
+  }
+
+  private static List<Object> fork(List<? extends Supplier<?>> calls) {
+    try (ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor()) {
+      CompletionService<Object> done = new ExecutorCompletionService<>(scope);
+      List<Future<Object>> futures = new ArrayList<>(calls.size());
+      for (Supplier<?> call : calls) futures.add(done.submit(call::get));
+      for (int i = 0; i < futures.size(); i++) {
+        try {
+          done.take().get();
+        } catch (ExecutionException e) {
+          scope.shutdownNow();
+          if (e.getCause() instanceof RuntimeException re) throw re;
+          if (e.getCause() instanceof Error err) throw err;
+          throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+          scope.shutdownNow();
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("interrupted while waiting for concurrent calls", e);
+        }
+      }
+      return futures.stream().map(Future::resultNow).toList();
+    }
+  }
+}
@@ -0,0 +1,7 @@
+package org.acssz.ezclaim.service;
+
+public class ConflictException extends RuntimeException {
+  public ConflictException(String message) {
+    super(message);
+  }
+}
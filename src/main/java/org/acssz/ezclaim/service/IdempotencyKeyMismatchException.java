@@ -0,0 +1,7 @@
+package org.acssz.ezclaim.service;
+
+public class IdempotencyKeyMismatchException extends RuntimeException {
+  public IdempotencyKeyMismatchException(String message) {
+    super(message);
+  }
+}
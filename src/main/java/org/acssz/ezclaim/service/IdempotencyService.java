@@ -0,0 +1,191 @@
+package org.acssz.ezclaim.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.acssz.ezclaim.domain.IdempotencyRecord;
+import org.acssz.ezclaim.domain.IdempotencyRecord.Status;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs a create at most once per Idempotency-Key. The first request inserts an IN_PROGRESS record
+ * (the unique {@code _id} makes that the lock), runs, and stores the created id; repeats with the
+ * same body are answered by re-reading that resource, and concurrent repeats wait briefly for the
+ * first to finish instead of running again. Keys are only unique within a scope; callers include
+ * the client in it so one client cannot replay another's resource by guessing its key.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+  public static final String HEADER = "Idempotency-Key";
+  public static final int MAX_KEY_LENGTH = 255;
+
+  /** How long a key is remembered. */
+  static final Duration TTL = Duration.ofHours(24);
+
+  /** How long a repeat waits for the first attempt before answering 409. */
+  static final Duration IN_PROGRESS_WAIT = Duration.ofSeconds(5);
+
+  /** An attempt in progress for longer than this is assumed dead and may be taken over. */
+  static final Duration STALE_AFTER = Duration.ofMinutes(2);
+
+  private static final long POLL_MILLIS = 50;
+
+  private final MongoTemplate template;
+  private final ObjectMapper objectMapper;
+  // The server's HS256 key; fingerprints are keyed so a stored one reveals nothing about secrets
+  private final SecretKey secretKey;
+
+  private static final byte[] FINGERPRINT_CONTEXT =
+      "idempotency-fingerprint\0".getBytes(StandardCharsets.UTF_8);
+
+  /** The action's result, or the earlier result when {@code replayed}. */
+  public record Result<T>(T value, boolean replayed) {}
+
+  /**
+   * Runs {@code action} unless this key already produced a resource, in which case that resource is
+   * loaded with {@code replay}. Without a key the action simply runs. A key reused with a different
+   * request is rejected; a failed action releases the key so the client can retry.
+   */
+  public <T> Result<T> run(
+      String scope,
+      String key,
+      String requestHash,
+      Supplier<T> action,
+      Function<T, String> idOf,
+      Function<String, T> replay) {
+    if (key == null || key.isBlank()) return new Result<>(action.get(), false);
+    if (key.length() > MAX_KEY_LENGTH) {
+      throw new BadRequestException(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+    }
+    String id = scope + ":" + key;
+    long deadline = System.nanoTime() + IN_PROGRESS_WAIT.toNanos();
+    while (true) {
+      Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+      if (acquire(id, requestHash, now)) return new Result<>(execute(id, action, idOf, now), false);
+
+      IdempotencyRecord existing = template.findById(id, IdempotencyRecord.class);
+      if (existing == null) continue; // the holder failed and released the key; try again
+      if (!requestHash.equals(existing.getRequestHash())) {
+        throw new IdempotencyKeyMismatchException(
+            HEADER + " was already used with a different request");
+      }
+      if (existing.getStatus() == Status.COMPLETED) {
+        log.debug("Replaying {} for {}", existing.getResourceId(), id);
+        return new Result<>(replay.apply(existing.getResourceId()), true);
+      }
+      if (existing.getCreatedAt() != null
+          && existing.getCreatedAt().isBefore(now.minus(STALE_AFTER))
+          && takeOver(existing, now)) {
+        log.warn("Taking over stale idempotent request {}", id);
+        return new Result<>(execute(id, action, idOf, now), false);
+      }
+      if (System.nanoTime() > deadline) {
+        throw new ConflictException("A request with this " + HEADER + " is still in progress");
+      }
+      pause();
+    }
+  }
+
+  /**
+   * Hex HMAC-SHA256 of the request as JSON under the server secret. Secrets in the request (a claim
+   * password) are covered, so a repeat with a different one is a different request, yet the stored
+   * fingerprint cannot be brute-forced without the server key.
+   */
+  public String fingerprint(Object request) {
+    try {
+      byte[] json = objectMapper.writeValueAsBytes(request);
+      Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(secretKey);
+      // Context prefix keeps these MACs apart from JWT signatures made with the same key
+      mac.update(FINGERPRINT_CONTEXT);
+      return HexFormat.of().formatHex(mac.doFinal(json));
+    } catch (JsonProcessingException | GeneralSecurityException e) {
+      throw new IllegalStateException("cannot fingerprint request", e);
+    }
+  }
+
+  private boolean acquire(String id, String requestHash, Instant now) {
+    try {
+      template.insert(
+          IdempotencyRecord.builder()
+              .id(id)
+              .requestHash(requestHash)
+              .status(Status.IN_PROGRESS)
+              .createdAt(now)
+              .expiresAt(now.plus(TTL))
+              .build());
+      return true;
+    } catch (DuplicateKeyException e) {
+      return false;
+    }
+  }
+
+  // Conditional on the attempt we saw, so only one waiter wins
+  private boolean takeOver(IdempotencyRecord stale, Instant now) {
+    return template
+            .updateFirst(
+                Query.query(
+                    Criteria.where("id")
+                        .is(stale.getId())
+                        .and("status")
+                        .is(Status.IN_PROGRESS)
+                        .and("createdAt")
+                        .is(stale.getCreatedAt())),
+                new Update().set("createdAt", now),
+                IdempotencyRecord.class)
+            .getModifiedCount()
+        > 0;
+  }
+
+  private <T> T execute(String id, Supplier<T> action, Function<T, String> idOf, Instant started) {
+    T value;
+    try {
+      value = action.get();
+    } catch (RuntimeException e) {
+      template.remove(inProgress(id, started), IdempotencyRecord.class);
+      throw e;
+    }
+    template.updateFirst(
+        inProgress(id, started),
+        new Update().set("status", Status.COMPLETED).set("resourceId", idOf.apply(value)),
+        IdempotencyRecord.class);
+    return value;
+  }
+
+  private static Query inProgress(String id, Instant started) {
+    return Query.query(
+        Criteria.where("id")
+            .is(id)
+            .and("status")
+            .is(Status.IN_PROGRESS)
+            .and("createdAt")
+            .is(started));
+  }
+
+  private static void pause() {
+    try {
+      Thread.sleep(POLL_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted while waiting for idempotent request", e);
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package org.acssz.ezclaim.service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Time-limited exclusive leases kept as documents in the caller's own collection, so a job that
+ * every node schedules runs on one node at a time. A lease is taken (or renewed by its holder) with
+ * one findAndModify upsert: while another node holds an unexpired lease the upsert collides with
+ * the existing {@code _id} and fails. A holder that dies frees the lease when it expires.
+ */
+@Component
+public class MongoLease {
+  private final MongoTemplate template;
+  // Unique per process, readable in the lease document
+  private final String holder =
+      ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+
+  public MongoLease(MongoTemplate template) {
+    this.template = template;
+  }
+
+  /** Takes or renews lease {@code id} for {@code ttl}; false when another node holds it. */
+  public boolean acquire(String collection, String id, Duration ttl) {
+    Instant now = Instant.now();
+    Query free =
+        Query.query(
+            Criteria.where("_id")
+                .is(id)
+                .orOperator(Criteria.where("holder").is(holder), Criteria.where("until").lt(now)));
+    try {
+      Document lease =
+          template.findAndModify(
+              free,
+              new Update().set("holder", holder).set("until", now.plus(ttl)),
+              FindAndModifyOptions.options().upsert(true).returnNew(true),
+              Document.class,
+              collection);
+      return lease != null;
+    } catch (DuplicateKeyException e) {
+      return false;
+    }
+  }
+
+  /** Gives up lease {@code id} if this process holds it. */
+  public void release(String collection, String id) {
+    template.remove(Query.query(Criteria.where("_id").is(id).and("holder").is(holder)), collection);
+  }
+}
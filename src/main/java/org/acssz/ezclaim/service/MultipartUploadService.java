@@ -0,0 +1,215 @@
+package org.acssz.ezclaim.service;
+
+import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.acssz.ezclaim.config.ObjectStoreProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.ListMultipartUploadsRequest;
+import software.amazon.awssdk.services.s3.model.ListPartsRequest;
+import software.amazon.awssdk.services.s3.model.MultipartUpload;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
+
+/**
+ * S3 multipart uploads driven by the client through presigned part URLs, for receipts too large to
+ * upload reliably in one PUT. The client initiates, uploads parts (in parallel, and resuming from
+ * {@link #listParts} after a failure), then completes or aborts; the object never passes through
+ * this server. Every part but the last must be at least 5 MiB.
+ *
+ * <p>Uploads that are never completed keep their parts billed until aborted, so {@link
+ * MultipartUploadSweeper} aborts those older than {@code multipart-abandon-after}.
+ */
+@Service
+@ConditionalOnProperty(name = "app.objectstore.backend", havingValue = "s3", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class MultipartUploadService {
+  public static final int MAX_PARTS = 10_000; // S3 limit per upload
+  public static final int MAX_PARTS_PER_REQUEST = 100;
+
+  private final S3Client s3;
+  private final S3Presigner presigner;
+  private final ObjectStoreProperties props;
+
+  public record Started(String bucket, String key, String uploadId) {}
+
+  /** The assembled object; {@code bucket} is the one used, the default when none was given. */
+  public record Completed(String bucket, String key, String etag) {}
+
+  public record PartUrl(int partNumber, URL url, Instant expiresAt) {}
+
+  /** A part S3 holds for the upload; {@code size} is null when the client reports it. */
+  public record Part(int partNumber, String etag, Long size) {}
+
+  public Started initiate(String bucket, String key, String contentType) {
+    String b = bucketOrDefault(bucket);
+    String k = key != null && !key.isBlank() ? key : UUID.randomUUID().toString();
+    CreateMultipartUploadRequest.Builder req =
+        CreateMultipartUploadRequest.builder().bucket(b).key(k);
+    if (contentType != null && !contentType.isBlank()) req.contentType(contentType);
+    String uploadId = s3.createMultipartUpload(req.build()).uploadId();
+    return new Started(b, k, uploadId);
+  }
+
+  /** Presigned PUT URLs for the given part numbers, in request order. */
+  public List<PartUrl> signParts(
+      String bucket, String key, String uploadId, List<Integer> partNumbers, Duration expiresIn) {
+    String b = bucketOrDefault(bucket);
+    if (partNumbers.size() > MAX_PARTS_PER_REQUEST) {
+      throw new BadRequestException("At most " + MAX_PARTS_PER_REQUEST + " part URLs per request");
+    }
+    partNumbers.forEach(MultipartUploadService::checkPartNumber);
+    Duration ttl = expiresIn != null ? expiresIn : Duration.ofMinutes(15);
+    return partNumbers.stream()
+        .map(
+            n -> {
+              UploadPartPresignRequest req =
+                  UploadPartPresignRequest.builder()
+                      .signatureDuration(ttl)
+                      .uploadPartRequest(
+                          UploadPartRequest.builder()
+                              .bucket(b)
+                              .key(key)
+                              .uploadId(uploadId)
+                              .partNumber(n)
+                              .build())
+                      .build();
+              return new PartUrl(
+                  n, presigner.presignUploadPart(req).url(), Instant.now().plus(ttl));
+            })
+        .toList();
+  }
+
+  /** Parts already uploaded, by part number; a resuming client uploads only the rest. */
+  public List<Part> listParts(String bucket, String key, String uploadId) {
+    String b = bucketOrDefault(bucket);
+    try {
+      return s3
+          .listPartsPaginator(
+              ListPartsRequest.builder().bucket(b).key(key).uploadId(uploadId).build())
+          .parts()
+          .stream()
+          .map(p -> new Part(p.partNumber(), p.eTag(), p.size()))
+          .toList();
+    } catch (NoSuchUploadException e) {
+      throw notFound(uploadId);
+    }
+  }
+
+  /** Assembles the object from the listed parts. */
+  public Completed complete(String bucket, String key, String uploadId, List<Part> parts) {
+    String b = bucketOrDefault(bucket);
+    if (parts.isEmpty()) throw new BadRequestException("At least one part is required");
+    Set<Integer> seen = new HashSet<>();
+    for (Part p : parts) {
+      checkPartNumber(p.partNumber());
+      if (!seen.add(p.partNumber())) {
+        throw new BadRequestException("Duplicate part number: " + p.partNumber());
+      }
+    }
+    List<CompletedPart> completed =
+        parts.stream()
+            .sorted(Comparator.comparingInt(Part::partNumber))
+            .map(p -> CompletedPart.builder().partNumber(p.partNumber()).eTag(p.etag()).build())
+            .toList();
+    try {
+      String etag =
+          s3.completeMultipartUpload(
+                  CompleteMultipartUploadRequest.builder()
+                      .bucket(b)
+                      .key(key)
+                      .uploadId(uploadId)
+                      .multipartUpload(CompletedMultipartUpload.builder().parts(completed).build())
+                      .build())
+              .eTag();
+      return new Completed(b, key, etag);
+    } catch (NoSuchUploadException e) {
+      throw notFound(uploadId);
+    } catch (S3Exception e) {
+      // InvalidPart, InvalidPartOrder, EntityTooSmall: the client's part list is wrong
+      if (e.statusCode() == 400) throw new BadRequestException(errorMessage(e));
+      throw e;
+    }
+  }
+
+  public void abort(String bucket, String key, String uploadId) {
+    String b = bucketOrDefault(bucket);
+    try {
+      s3.abortMultipartUpload(
+          AbortMultipartUploadRequest.builder().bucket(b).key(key).uploadId(uploadId).build());
+    } catch (NoSuchUploadException e) {
+      throw notFound(uploadId);
+    }
+  }
+
+  /**
+   * Aborts uploads in the default bucket initiated before {@code now - olderThan}. Walks every page
+   * of in-progress uploads; a failed abort is logged and skipped. Returns the number aborted.
+   */
+  public int abortStale(Duration olderThan) {
+    String b = props.getBucket();
+    if (b == null || b.isBlank()) return 0;
+    Instant cutoff = Instant.now().minus(olderThan);
+    int aborted = 0;
+    for (MultipartUpload u :
+        s3.listMultipartUploadsPaginator(ListMultipartUploadsRequest.builder().bucket(b).build())
+            .uploads()) {
+      if (u.initiated() == null || !u.initiated().isBefore(cutoff)) continue;
+      try {
+        s3.abortMultipartUpload(
+            AbortMultipartUploadRequest.builder()
+                .bucket(b)
+                .key(u.key())
+                .uploadId(u.uploadId())
+                .build());
+        aborted++;
+      } catch (NoSuchUploadException e) {
+        // completed or aborted meanwhile, e.g. by another instance
+      } catch (S3Exception e) {
+        log.warn("Failed to abort multipart upload {}/{}: {}", b, u.key(), errorMessage(e));
+      }
+    }
+    if (aborted > 0) log.info("Aborted {} abandoned multipart uploads in {}", aborted, b);
+    return aborted;
+  }
+
+  private String bucketOrDefault(String bucket) {
+    String b = bucket != null && !bucket.isBlank() ? bucket : props.getBucket();
+    if (b == null || b.isBlank()) throw new BadRequestException("Bucket is required");
+    return b;
+  }
+
+  private static void checkPartNumber(int n) {
+    if (n < 1 || n > MAX_PARTS) {
+      throw new BadRequestException("Part number must be between 1 and " + MAX_PARTS);
+    }
+  }
+
+  private static ResourceNotFoundException notFound(String uploadId) {
+    return new ResourceNotFoundException("Multipart upload not found: " + uploadId);
+  }
+
+  private static String errorMessage(S3Exception e) {
+    return e.awsErrorDetails() != null && e.awsErrorDetails().errorMessage() != null
+        ? e.awsErrorDetails().errorMessage()
+        : e.getMessage();
+  }
+}
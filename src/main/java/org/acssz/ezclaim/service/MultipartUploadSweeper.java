@@ -0,0 +1,34 @@
+package org.acssz.ezclaim.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.acssz.ezclaim.config.ObjectStoreProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically aborts multipart uploads the client never completed, so their parts stop using
+ * storage. A bucket lifecycle rule (AbortIncompleteMultipartUpload) does the same where available.
+ */
+@Component
+@ConditionalOnProperty(name = "app.objectstore.backend", havingValue = "s3", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+@Profile({"dev", "prod"})
+public class MultipartUploadSweeper {
+  private final MultipartUploadService uploads;
+  private final ObjectStoreProperties props;
+
+  @Scheduled(
+      fixedDelayString = "${app.objectstore.multipart-sweep-interval:PT1H}",
+      initialDelayString = "${app.objectstore.multipart-sweep-interval:PT1H}")
+  public void sweep() {
+    try {
+      uploads.abortStale(props.getMultipartAbandonAfter());
+    } catch (RuntimeException e) {
+      log.error("Multipart upload sweep failed", e);
+    }
+  }
+}
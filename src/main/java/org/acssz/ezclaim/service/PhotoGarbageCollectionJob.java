@@ -0,0 +1,29 @@
+package org.acssz.ezclaim.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/** Nightly removal of orphaned photo records and objects; see {@link PhotoGarbageCollector}. */
+@Component
+@ConditionalOnProperty(name = "app.objectstore.backend", havingValue = "s3", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+@Profile({"dev", "prod"})
+public class PhotoGarbageCollectionJob {
+  private final PhotoGarbageCollector collector;
+
+  @Scheduled(cron = "${app.objectstore.orphan-sweep-cron:0 0 4 * * *}", zone = "UTC")
+  public void collect() {
+    try {
+      collector.collect(false);
+    } catch (ConflictException e) {
+      log.info("Photo garbage collection skipped: {}", e.getMessage());
+    } catch (RuntimeException e) {
+      log.error("Photo garbage collection failed", e);
+    }
+  }
+}
@@ -0,0 +1,454 @@
+package org.acssz.ezclaim.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.acssz.ezclaim.config.ObjectStoreProperties;
+import org.acssz.ezclaim.domain.Photo;
+import org.acssz.ezclaim.domain.PhotoVariant;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * Removes storage nothing refers to any more: photo records no claim references (e.g. left by a
+ * deleted claim), and objects in the default bucket no photo record owns (uploads never recorded,
+ * variants of deleted photos). The object sweep assumes nothing else writes to that bucket; when it
+ * is shared, set {@code orphan-sweep-prefix} to the part this app owns. Either only once older than
+ * {@code orphan-grace-period}, which leaves room for a claim still being put together and for an
+ * upload not recorded yet.
+ *
+ * <p>Claims are asked about photos through their {@code photos} index, which doubles as the
+ * photo-to-claims reverse index. Both walks go in key order and checkpoint their position in {@code
+ * photo_gc} after every page, so a run cut short resumes where it stopped. Objects are removed with
+ * DeleteObjects, up to 1000 keys per request. A dry run reports the same findings without deleting
+ * anything or moving the checkpoints. Only with the {@code s3} object store backend.
+ *
+ * <p>A run that deletes holds the {@code lease} document in {@code photo_gc} (see {@link
+ * MongoLease}), renewed with every checkpoint, so nodes scheduling the same nightly job take turns
+ * instead of racing on the checkpoints.
+ *
+ * <p>With {@code app.objectstore.async-client} the next listing page is fetched while the current
+ * one is checked, and delete batches are sent without waiting; all of a page's deletes have
+ * completed before its checkpoint is saved.
+ *
+ * <p>Meters: {@code ezclaim.photo.gc.scanned} and {@code ezclaim.photo.gc.deleted} (counters, tag
+ * {@code kind} record/object), {@code ezclaim.photo.gc.bytes} (counter, object bytes deleted),
+ * {@code ezclaim.photo.gc.run} (timer, tag {@code dryRun}).
+ */
+@Service
+@ConditionalOnProperty(name = "app.objectstore.backend", havingValue = "s3", matchIfMissing = true)
+@Slf4j
+public class PhotoGarbageCollector {
+  static final String STATE_COLLECTION = "photo_gc";
+  static final int RECORD_PAGE = 500;
+  static final int DELETE_BATCH = 1000; // DeleteObjects limit, also the listing page size
+  static final int SAMPLE_SIZE = 20;
+  static final String LEASE = "lease";
+  static final Duration LEASE_TTL = Duration.ofMinutes(30); // renewed after every page
+
+  private final MongoTemplate template;
+  private final MongoLease lease;
+  private final S3Client s3;
+  private final ObjectProvider<S3AsyncClient> s3Async;
+  private final ObjectStoreProperties props;
+  private final PresignedUrlCache urls;
+  private final MeterRegistry registry;
+  private final Counter recordsScanned;
+  private final Counter recordsDeleted;
+  private final Counter objectsScanned;
+  private final Counter objectsDeleted;
+  private final Counter bytesDeleted;
+
+  public PhotoGarbageCollector(
+      MongoTemplate template,
+      MongoLease lease,
+      S3Client s3,
+      ObjectProvider<S3AsyncClient> s3Async,
+      ObjectStoreProperties props,
+      PresignedUrlCache urls,
+      MeterRegistry registry) {
+    this.template = template;
+    this.lease = lease;
+    this.s3 = s3;
+    this.s3Async = s3Async;
+    this.props = props;
+    this.urls = urls;
+    this.registry = registry;
+    this.recordsScanned = counter("ezclaim.photo.gc.scanned", "record");
+    this.recordsDeleted = counter("ezclaim.photo.gc.deleted", "record");
+    this.objectsScanned = counter("ezclaim.photo.gc.scanned", "object");
+    this.objectsDeleted = counter("ezclaim.photo.gc.deleted", "object");
+    this.bytesDeleted =
+        Counter.builder("ezclaim.photo.gc.bytes")
+            .description("Bytes of orphaned objects deleted")
+            .baseUnit("bytes")
+            .register(registry);
+  }
+
+  /**
+   * What one run found. Orphaned objects include those of orphaned records; variant sizes are not
+   * known for the latter. {@code sample}: up to {@value #SAMPLE_SIZE} {@code bucket/key} of objects
+   * that were (or in a dry run would be) deleted.
+   */
+  public record Report(
+      boolean dryRun,
+      long recordsScanned,
+      long recordsOrphaned,
+      long objectsScanned,
+      long objectsOrphaned,
+      long bytesOrphaned,
+      List<String> sample) {}
+
+  /**
+   * Runs both sweeps, records first, resuming from their checkpoints unless a dry run. Fails with
+   * ConflictException while another node is collecting; a dry run changes nothing and goes ahead.
+   */
+  public Report collect(boolean dryRun) {
+    if (!dryRun && !lease.acquire(STATE_COLLECTION, LEASE, LEASE_TTL)) {
+      throw new ConflictException("Photo garbage collection is already running");
+    }
+    try {
+      return run(dryRun);
+    } finally {
+      if (!dryRun) lease.release(STATE_COLLECTION, LEASE);
+    }
+  }
+
+  private Report run(boolean dryRun) {
+    Instant cutoff = Instant.now().minus(props.getOrphanGracePeriod());
+    Tally tally = new Tally(dryRun);
+    Timer.Sample timer = Timer.start(registry);
+    try {
+      Deleter deleter = new Deleter(tally);
+      sweepRecords(cutoff, tally, deleter);
+      // Their objects go before the listing, which would otherwise find them again
+      deleter.flush();
+      String bucket = props.getBucket();
+      if (bucket != null && !bucket.isBlank()) sweepObjects(bucket, cutoff, tally, deleter);
+    } finally {
+      timer.stop(
+          Timer.builder("ezclaim.photo.gc.run")
+              .description("Time taken by one photo garbage collection run")
+              .tag("dryRun", Boolean.toString(dryRun))
+              .register(registry));
+    }
+    Report report = tally.report();
+    log.info(
+        "Photo GC{}: {}/{} records and {}/{} objects ({} bytes) orphaned",
+        dryRun ? " (dry run)" : "",
+        report.recordsOrphaned(),
+        report.recordsScanned(),
+        report.objectsOrphaned(),
+        report.objectsScanned(),
+        report.bytesOrphaned());
+    return report;
+  }
+
+  private void sweepRecords(Instant cutoff, Tally tally, Deleter deleter) {
+    String phase = "records";
+    String after = tally.dryRun ? null : checkpoint(phase);
+    while (true) {
+      Criteria where = Criteria.where("uploadedAt").lt(cutoff);
+      if (after != null) where.and("_id").gt(new ObjectId(after));
+      List<Photo> page =
+          template.find(Query.query(where).with(Sort.by("_id")).limit(RECORD_PAGE), Photo.class);
+      if (page.isEmpty()) break;
+      recordsScanned.increment(page.size());
+      tally.recordsScanned += page.size();
+
+      Set<String> referenced = referenced(page.stream().map(Photo::getId).toList());
+      List<Photo> orphans = page.stream().filter(p -> !referenced.contains(p.getId())).toList();
+      tally.recordsOrphaned += orphans.size();
+      if (!orphans.isEmpty() && !tally.dryRun) {
+        long removed =
+            template
+                .remove(
+                    Query.query(
+                        Criteria.where("_id").in(orphans.stream().map(Photo::getId).toList())),
+                    Photo.class)
+                .getDeletedCount();
+        recordsDeleted.increment(removed);
+      }
+      // Another record for the same object (a re-registered key, a retried create) keeps it alive
+      Set<String> owned = stillOwned(orphans);
+      for (Photo p : orphans) {
+        if (!owned.add(p.getBucket() + "/" + p.getKey())) continue;
+        deleter.add(p.getBucket(), p.getKey(), p.getSize() != null ? p.getSize() : 0);
+        if (p.getVariants() != null) {
+          p.getVariants().values().forEach(k -> deleter.add(p.getBucket(), k, 0));
+        }
+      }
+
+      after = page.get(page.size() - 1).getId();
+      if (!tally.dryRun) saveCheckpoint(phase, after);
+      if (page.size() < RECORD_PAGE) break;
+    }
+    if (!tally.dryRun) clearCheckpoint(phase);
+  }
+
+  // bucket/key of the orphans' objects that a record other than the orphans also points at
+  private Set<String> stillOwned(List<Photo> orphans) {
+    if (orphans.isEmpty()) return new HashSet<>();
+    Set<String> orphanIds = orphans.stream().map(Photo::getId).collect(Collectors.toSet());
+    Set<String> buckets = orphans.stream().map(Photo::getBucket).collect(Collectors.toSet());
+    Set<String> keys = orphans.stream().map(Photo::getKey).collect(Collectors.toSet());
+    // bucket_key index; exact pairs are checked below
+    Query q =
+        Query.query(
+            Criteria.where("bucket")
+                .in(buckets)
+                .and("key")
+                .in(keys)
+                .and("_id")
+                .nin(orphanIds.stream().map(PhotoGarbageCollector::rawId).toList()));
+    q.fields().include("bucket", "key");
+    Set<String> out = new HashSet<>();
+    for (Photo p : template.find(q, Photo.class)) {
+      if (!orphanIds.contains(p.getId())) out.add(p.getBucket() + "/" + p.getKey());
+    }
+    return out;
+  }
+
+  private static Object rawId(String id) {
+    return ObjectId.isValid(id) ? new ObjectId(id) : id;
+  }
+
+  // Ids among photoIds that at least one claim references
+  private Set<String> referenced(List<String> photoIds) {
+    List<Object> raw = photoIds.stream().map(PhotoGarbageCollector::rawId).toList();
+    Set<String> out = new HashSet<>();
+    template
+        .findDistinct(
+            Query.query(Criteria.where("photos").in(raw)),
+            "photos",
+            ClaimService.COLLECTION,
+            Object.class)
+        .forEach(v -> out.add(v.toString()));
+    return out;
+  }
+
+  private void sweepObjects(String bucket, Instant cutoff, Tally tally, Deleter deleter) {
+    String prefix = props.getOrphanSweepPrefix();
+    boolean scoped = prefix != null && !prefix.isEmpty();
+    String phase = "objects:" + bucket + (scoped ? "/" + prefix : "");
+    String after = tally.dryRun ? null : checkpoint(phase);
+    CompletableFuture<ListObjectsV2Response> next =
+        list(
+            ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix(scoped ? prefix : null)
+                .maxKeys(DELETE_BATCH)
+                .startAfter(after));
+    while (next != null) {
+      ListObjectsV2Response page = next.join();
+      next =
+          Boolean.TRUE.equals(page.isTruncated())
+              ? list(
+                  ListObjectsV2Request.builder()
+                      .bucket(bucket)
+                      .prefix(scoped ? prefix : null)
+                      .maxKeys(DELETE_BATCH)
+                      .continuationToken(page.nextContinuationToken()))
+              : null;
+      List<S3Object> objects = page.contents();
+      objectsScanned.increment(objects.size());
+      tally.objectsScanned += objects.size();
+
+      List<S3Object> old =
+          objects.stream()
+              .filter(o -> o.lastModified() == null || o.lastModified().isBefore(cutoff))
+              .toList();
+      Set<String> owned = owned(bucket, old);
+      for (S3Object o : old) {
+        // A variant belongs to its original's record; a key merely looking like one may be an
+        // original itself
+        if (owned.contains(o.key()) || owned.contains(PhotoVariant.originalKeyOf(o.key()))) {
+          continue;
+        }
+        deleter.add(bucket, o.key(), o.size() != null ? o.size() : 0);
+      }
+      deleter.flush();
+
+      if (!objects.isEmpty() && !tally.dryRun) {
+        saveCheckpoint(phase, objects.get(objects.size() - 1).key());
+      }
+    }
+    if (!tally.dryRun) clearCheckpoint(phase);
+  }
+
+  // In flight on the async client, if any; otherwise already completed on the caller
+  private CompletableFuture<ListObjectsV2Response> list(ListObjectsV2Request.Builder req) {
+    S3AsyncClient async = s3Async.getIfAvailable();
+    return async != null
+        ? async.listObjectsV2(req.build())
+        : CompletableFuture.completedFuture(s3.listObjectsV2(req.build()));
+  }
+
+  // Keys among the objects, or the originals they are variants of, that a photo record owns
+  private Set<String> owned(String bucket, List<S3Object> objects) {
+    if (objects.isEmpty()) return Set.of();
+    Set<String> keys = new HashSet<>();
+    for (S3Object o : objects) {
+      keys.add(o.key());
+      keys.add(PhotoVariant.originalKeyOf(o.key()));
+    }
+    Query q = Query.query(Criteria.where("bucket").is(bucket).and("key").in(keys));
+    q.fields().include("key");
+    return template.find(q, Photo.class).stream().map(Photo::getKey).collect(Collectors.toSet());
+  }
+
+  private String checkpoint(String phase) {
+    Document state = template.findById(phase, Document.class, STATE_COLLECTION);
+    return state != null ? state.getString("after") : null;
+  }
+
+  private void saveCheckpoint(String phase, String after) {
+    // Also the heartbeat: a run that lost its lease stops before doing more
+    if (!lease.acquire(STATE_COLLECTION, LEASE, LEASE_TTL)) {
+      throw new ConflictException("Photo garbage collection lease lost to another node");
+    }
+    template.upsert(
+        Query.query(Criteria.where("_id").is(phase)),
+        new Update().set("after", after).set("at", Instant.now()),
+        STATE_COLLECTION);
+  }
+
+  private void clearCheckpoint(String phase) {
+    template.remove(Query.query(Criteria.where("_id").is(phase)), STATE_COLLECTION);
+  }
+
+  private Counter counter(String name, String kind) {
+    return Counter.builder(name)
+        .description("Photo records or objects seen or deleted by the photo garbage collector")
+        .tag("kind", kind)
+        .register(registry);
+  }
+
+  private static final class Tally {
+    final boolean dryRun;
+    final List<String> sample = new ArrayList<>();
+    long recordsScanned;
+    long recordsOrphaned;
+    long objectsScanned;
+    long objectsOrphaned;
+    long bytesOrphaned;
+
+    Tally(boolean dryRun) {
+      this.dryRun = dryRun;
+    }
+
+    Report report() {
+      return new Report(
+          dryRun,
+          recordsScanned,
+          recordsOrphaned,
+          objectsScanned,
+          objectsOrphaned,
+          bytesOrphaned,
+          List.copyOf(sample));
+    }
+  }
+
+  // Collects keys per bucket and deletes them DELETE_BATCH at a time
+  private final class Deleter {
+    private final Tally tally;
+    private final List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+    private final Map<String, List<String>> pending = new HashMap<>();
+    private final Map<String, Long> pendingBytes = new HashMap<>();
+
+    Deleter(Tally tally) {
+      this.tally = tally;
+    }
+
+    void add(String bucket, String key, long size) {
+      tally.objectsOrphaned++;
+      tally.bytesOrphaned += size;
+      if (tally.sample.size() < SAMPLE_SIZE) tally.sample.add(bucket + "/" + key);
+      if (tally.dryRun) return;
+      urls.evict(bucket, key);
+      List<String> keys = pending.computeIfAbsent(bucket, b -> new ArrayList<>());
+      keys.add(key);
+      pendingBytes.merge(bucket, size, Long::sum);
+      if (keys.size() >= DELETE_BATCH) flush(bucket);
+    }
+
+    /** Sends everything pending and waits for every batch sent so far. */
+    void flush() {
+      for (String bucket : List.copyOf(pending.keySet())) flush(bucket);
+      try {
+        CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).join();
+      } finally {
+        inFlight.clear();
+      }
+    }
+
+    private void flush(String bucket) {
+      List<String> keys = pending.remove(bucket);
+      long bytes = pendingBytes.getOrDefault(bucket, 0L);
+      pendingBytes.remove(bucket);
+      if (keys == null || keys.isEmpty()) return;
+      DeleteObjectsRequest request =
+          DeleteObjectsRequest.builder()
+              .bucket(bucket)
+              .delete(
+                  Delete.builder()
+                      .objects(
+                          keys.stream()
+                              .map(k -> ObjectIdentifier.builder().key(k).build())
+                              .toList())
+                      .quiet(true)
+                      .build())
+              .build();
+      S3AsyncClient async = s3Async.getIfAvailable();
+      if (async != null) {
+        inFlight.add(async.deleteObjects(request).thenAccept(r -> deleted(bucket, keys, bytes, r)));
+      } else {
+        deleted(bucket, keys, bytes, s3.deleteObjects(request));
+      }
+    }
+
+    private void deleted(
+        String bucket, List<String> keys, long bytes, DeleteObjectsResponse response) {
+      int failed = response.hasErrors() ? response.errors().size() : 0;
+      if (failed > 0) {
+        log.warn(
+            "Photo GC could not delete {} of {} objects in {}, e.g. {}",
+            failed,
+            keys.size(),
+            bucket,
+            response.errors().get(0).key() + ": " + response.errors().get(0).message());
+      }
+      objectsDeleted.increment(keys.size() - failed);
+      // Sizes are known per batch only; leave out a partly failed one rather than over-count
+      if (failed == 0) bytesDeleted.increment(bytes);
+    }
+  }
+}
@@ -1,123 +1,271 @@
 package org.acssz.ezclaim.service;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.net.URL;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.acssz.ezclaim.cache.EntityCaches;
 import org.acssz.ezclaim.config.ObjectStoreProperties;
 import org.acssz.ezclaim.domain.Photo;
+import org.acssz.ezclaim.domain.PhotoVariant;
 import org.acssz.ezclaim.repository.PhotoRepository;
+import org.acssz.ezclaim.storage.NoSuchObjectException;
+import org.acssz.ezclaim.storage.ObjectStore;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
-import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
-import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
-import software.amazon.awssdk.services.s3.model.S3Exception;
-import software.amazon.awssdk.services.s3.presigner.S3Presigner;
-import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
-import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
-import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
-import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PhotoService {
+  /** Most uploads, records or URLs handled by one batch call. */
+  public static final int MAX_BATCH = 20;
+
+  /** Bytes read from the start of an upload to find its image dimensions. */
+  static final int PROBE_BYTES = 64 * 1024;
+
   private final PhotoRepository photoRepository;
-  private final S3Client s3;
-  private final S3Presigner presigner;
+  private final ObjectStore store;
   private final ObjectStoreProperties props;
+  private final EntityCaches caches;
+  private final PresignedUrlCache urls;
+  private final ConcurrentCalls calls;
+  private final PhotoVariantService variants;
 
   public List<Photo> list() {
     return photoRepository.findAll();
   }
 
+  /**
+   * Served from the node-local cache. Records change only once after creation, when their variants
+   * are recorded, and that update invalidates the entry.
+   */
   public Photo get(String id) {
-    return photoRepository
-        .findById(id)
-        .orElseThrow(() -> new ResourceNotFoundException("Photo not found: " + id));
+    return caches.get(
+        EntityCaches.PHOTOS,
+        id,
+        Photo.class,
+        () ->
+            photoRepository
+                .findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Photo not found: " + id)));
   }
 
+  /**
+   * Verifies the uploaded object, saves a record carrying its metadata and queues generation of its
+   * variants. Missing, empty or oversized objects are rejected with BadRequestException.
+   */
   public Photo createRecord(String bucket, String key) {
+    Photo saved = photoRepository.save(newRecord(bucket, key, Instant.now()));
+    variants.submit(saved);
+    return saved;
+  }
+
+  /** An uploaded object to record; {@code bucket} null for the default bucket. */
+  public record ObjectRef(String bucket, String key) {}
+
+  /**
+   * Records several uploaded objects with a single insert, in request order. The objects are
+   * verified concurrently (see {@link ConcurrentCalls}); one bad object rejects the batch.
+   */
+  public List<Photo> createRecords(List<ObjectRef> objects) {
+    checkBatch(objects);
+    Instant now = Instant.now();
+    List<Photo> saved =
+        photoRepository.saveAll(
+            calls.all(
+                objects.stream()
+                    .<Supplier<Photo>>map(o -> () -> newRecord(o.bucket(), o.key(), now))
+                    .toList()));
+    saved.forEach(variants::submit);
+    return saved;
+  }
+
+  private Photo newRecord(String bucket, String key, Instant uploadedAt) {
     String b = bucket != null && !bucket.isBlank() ? bucket : props.getBucket();
-    if (b == null || b.isBlank()) throw new IllegalArgumentException("Bucket is required");
-    Photo p = Photo.builder().bucket(b).key(key).uploadedAt(Instant.now()).build();
-    return photoRepository.save(p);
+    if (b == null || b.isBlank()) throw new BadRequestException("Bucket is required");
+    Photo photo =
+        Photo.builder()
+            .bucket(b)
+            .key(key)
+            .uploadedAt(uploadedAt)
+            .variantStatus(Photo.VariantStatus.PENDING)
+            .build();
+    inspect(photo);
+    return photo;
+  }
+
+  /**
+   * Fills in the object's size, ETag, content type and, for images whose header fits in the first
+   * {@link #PROBE_BYTES}, dimensions, from one read of the object's head.
+   */
+  private void inspect(Photo photo) {
+    String where = photo.getBucket() + "/" + photo.getKey();
+    ObjectStore.ObjectHead head;
+    try {
+      head = store.head(photo.getBucket(), photo.getKey(), PROBE_BYTES);
+    } catch (NoSuchObjectException e) {
+      throw new BadRequestException("Object not found: " + where + "; upload it first");
+    }
+    if (head.size() == 0) throw new BadRequestException("Object is empty: " + where);
+    if (head.size() > props.getMaxPhotoBytes()) {
+      throw new BadRequestException(
+          "Object too large: "
+              + where
+              + " is "
+              + head.size()
+              + " bytes, limit "
+              + props.getMaxPhotoBytes());
+    }
+    photo.setSize(head.size());
+    photo.setEtag(head.etag());
+    photo.setContentType(head.contentType());
+    int[] dimensions = dimensions(head.bytes());
+    if (dimensions != null) {
+      photo.setWidth(dimensions[0]);
+      photo.setHeight(dimensions[1]);
+    }
+  }
+
+  // Width and height from the image header; null when no installed reader recognises it
+  static int[] dimensions(byte[] head) {
+    try (ImageInputStream iis = new MemoryCacheImageInputStream(new ByteArrayInputStream(head))) {
+      Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+      if (!readers.hasNext()) return null;
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(iis, true, true);
+        return new int[] {reader.getWidth(0), reader.getHeight(0)};
+      } finally {
+        reader.dispose();
+      }
+    } catch (IOException e) {
+      return null; // e.g. the header runs past the probe
+    }
   }
 
   public void delete(String id, boolean deleteObject) {
     Photo p = get(id);
     photoRepository.deleteById(id);
     if (deleteObject) {
-      try {
-        s3.deleteObject(
-            DeleteObjectRequest.builder().bucket(p.getBucket()).key(p.getKey()).build());
-      } catch (S3Exception e) {
-        log.warn(
-            "Failed to delete object from S3: {}/{} - {}",
-            p.getBucket(),
-            p.getKey(),
-            e.getMessage());
-      }
+      List<String> keys = new ArrayList<>();
+      keys.add(p.getKey());
+      if (p.getVariants() != null) keys.addAll(p.getVariants().values());
+      keys.forEach(key -> urls.evict(p.getBucket(), key));
+      store.delete(p.getBucket(), keys);
     }
   }
 
   public PresignedPut signUpload(
       String bucket, String key, String contentType, Duration expiresIn) {
     String b = bucket != null && !bucket.isBlank() ? bucket : props.getBucket();
-    if (b == null || b.isBlank()) throw new IllegalArgumentException("Bucket is required");
+    if (b == null || b.isBlank()) throw new BadRequestException("Bucket is required");
     String k = key != null && !key.isBlank() ? key : UUID.randomUUID().toString();
 
-    PutObjectRequest.Builder put = PutObjectRequest.builder().bucket(b).key(k);
-    if (contentType != null && !contentType.isBlank()) put.contentType(contentType);
-
-    PutObjectPresignRequest req =
-        PutObjectPresignRequest.builder()
-            .signatureDuration(expiresIn != null ? expiresIn : Duration.ofMinutes(15))
-            .putObjectRequest(put.build())
-            .build();
+    Duration ttl = expiresIn != null ? expiresIn : Duration.ofMinutes(15);
+    ObjectStore.SignedUpload signed = store.signUpload(b, k, contentType, ttl);
+    return new PresignedPut(b, k, signed.url(), signed.headers(), Instant.now().plus(ttl));
+  }
 
-    PresignedPutObjectRequest presigned = presigner.presignPutObject(req);
+  /** An upload to presign; see {@link #signUpload}. */
+  public record UploadTarget(String bucket, String key, String contentType, Duration expiresIn) {}
 
-    return new PresignedPut(
-        b,
-        k,
-        presigned.url(),
-        presigned.httpRequest().headers(),
-        Instant.now().plus(req.signatureDuration()));
+  /**
+   * Presigns several uploads, in request order. Signing is local computation, so the batch saves
+   * client round trips rather than server time.
+   */
+  public List<PresignedPut> signUploads(List<UploadTarget> targets) {
+    checkBatch(targets);
+    return targets.stream()
+        .map(t -> signUpload(t.bucket(), t.key(), t.contentType(), t.expiresIn()))
+        .toList();
   }
 
-  public PresignedGet signDownload(String bucket, String key, Duration expiresIn) {
-    String b = bucket != null && !bucket.isBlank() ? bucket : props.getBucket();
-    if (b == null || b.isBlank()) throw new IllegalArgumentException("Bucket is required");
+  /**
+   * Download URLs for several photos, in order, of {@code variant} (see {@link PhotoVariant#parse})
+   * where generated and of the original otherwise. Records created before uploads were verified may
+   * need a HEAD request each; those run concurrently (see {@link ConcurrentCalls}). The entry is
+   * null for a photo whose object turns out to be missing, so one bad record does not fail the
+   * rest.
+   */
+  public List<PresignedGet> signDownloads(List<Photo> photos, String variant, Duration expiresIn) {
+    PhotoVariant v = PhotoVariant.parse(variant);
+    return calls.all(
+        photos.stream()
+            .<Supplier<PresignedGet>>map(
+                p ->
+                    () -> {
+                      try {
+                        return signDownload(p, v, expiresIn);
+                      } catch (ResourceNotFoundException e) {
+                        log.warn("Photo {} has no object: {}", p.getId(), e.getMessage());
+                        return null;
+                      }
+                    })
+            .toList());
+  }
 
-    // optional: verify object exists
-    try {
-      s3.headObject(HeadObjectRequest.builder().bucket(b).key(key).build());
-    } catch (NoSuchKeyException e) {
-      throw new ResourceNotFoundException("Object not found: " + b + "/" + key);
-    } catch (S3Exception e) {
-      log.debug("headObject failed: {}", e.getMessage());
+  private static void checkBatch(List<?> items) {
+    if (items.size() > MAX_BATCH) {
+      throw new BadRequestException("At most " + MAX_BATCH + " items per batch");
     }
+  }
 
-    GetObjectPresignRequest req =
-        GetObjectPresignRequest.builder()
-            .signatureDuration(expiresIn != null ? expiresIn : Duration.ofMinutes(15))
-            .getObjectRequest(b1 -> b1.bucket(b).key(key))
-            .build();
+  /**
+   * A presigned GET URL for the photo, or for its {@code variant} once generated. Objects verified
+   * when their record was created, and generated variants, are trusted to exist without a HEAD.
+   */
+  public PresignedGet signDownload(Photo photo, PhotoVariant variant, Duration expiresIn) {
+    String key = photo.keyFor(variant);
+    boolean known = photo.getSize() != null || !key.equals(photo.getKey());
+    return sign(photo.getBucket(), key, expiresIn, !known);
+  }
 
-    PresignedGetObjectRequest presigned = presigner.presignGetObject(req);
-    return new PresignedGet(presigned.url(), Instant.now().plus(req.signatureDuration()));
+  /**
+   * A presigned GET URL for the object, reused from {@link PresignedUrlCache} while it has enough
+   * lifetime left. Existence is checked only when signing, and remembered.
+   */
+  public PresignedGet signDownload(String bucket, String key, Duration expiresIn) {
+    return sign(bucket, key, expiresIn, true);
+  }
+
+  private PresignedGet sign(String bucket, String key, Duration expiresIn, boolean checkExists) {
+    String b = bucket != null && !bucket.isBlank() ? bucket : props.getBucket();
+    if (b == null || b.isBlank()) throw new BadRequestException("Bucket is required");
+    Duration ttl =
+        PresignedUrlCache.bucketed(expiresIn != null ? expiresIn : Duration.ofMinutes(15));
+
+    return urls.url(
+        b,
+        key,
+        ttl,
+        () -> {
+          if (checkExists
+              && Boolean.FALSE.equals(urls.exists(b, key, () -> store.exists(b, key)))) {
+            throw new ResourceNotFoundException("Object not found: " + b + "/" + key);
+          }
+          Instant now = Instant.now();
+          URL url = store.signDownload(b, key, ttl);
+          return new PresignedGet(url, now.plus(ttl), urls.reusableUntil(now, ttl));
+        });
   }
 
   // Simple records for responses
   public record PresignedPut(
       String bucket, String key, URL url, Map<String, List<String>> headers, Instant expiresAt) {}
 
-  public record PresignedGet(URL url, Instant expiresAt) {}
+  /** {@code reusableUntil}: when the URL stops being handed out, ahead of {@code expiresAt}. */
+  public record PresignedGet(URL url, Instant expiresAt, Instant reusableUntil) {}
 }
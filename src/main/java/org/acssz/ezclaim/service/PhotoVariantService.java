@@ -0,0 +1,334 @@
+package org.acssz.ezclaim.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.acssz.ezclaim.cache.EntityCaches;
+import org.acssz.ezclaim.config.PhotoVariantProperties;
+import org.acssz.ezclaim.domain.Photo;
+import org.acssz.ezclaim.domain.Photo.VariantStatus;
+import org.acssz.ezclaim.domain.PhotoVariant;
+import org.acssz.ezclaim.storage.NoSuchObjectException;
+import org.acssz.ezclaim.storage.ObjectStore;
+import org.acssz.ezclaim.storage.ObjectStoreException;
+import org.bson.Document;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+/**
+ * Generates the {@link PhotoVariant} renditions of new photos in the background, on a small
+ * low-priority pool with a bounded queue so a burst of uploads cannot take CPU from request
+ * handling. Photos that do not fit in the queue, or whose object the store could not serve at the
+ * time, stay {@code PENDING} and are re-queued by {@link PhotoVariantSweeper}.
+ *
+ * <p>Each original is downloaded and decoded once, subsampled while decoding to about twice the
+ * widest variant, then scaled down per variant and stored as JPEG beside the original.
+ *
+ * <p>Meters: {@code ezclaim.photo.variants} (timer, tag {@code outcome}), {@code
+ * ezclaim.photo.variants.rejected} (counter), {@code ezclaim.photo.variants.active} and {@code
+ * ezclaim.photo.variants.queued} (gauges).
+ */
+@Service
+@Slf4j
+public class PhotoVariantService implements DisposableBean {
+  private static final int WIDEST =
+      Arrays.stream(PhotoVariant.values()).mapToInt(PhotoVariant::width).max().orElseThrow();
+
+  private final ObjectStore store;
+  private final MongoTemplate template;
+  private final ApplicationEventPublisher events;
+  private final PhotoVariantProperties props;
+  private final MeterRegistry registry;
+  private final ThreadPoolExecutor pool;
+  private final Counter rejected;
+  // Queued or running, so a sweep does not queue the same photo twice
+  private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+  public PhotoVariantService(
+      ObjectStore store,
+      MongoTemplate template,
+      ApplicationEventPublisher events,
+      PhotoVariantProperties props,
+      MeterRegistry registry) {
+    this.store = store;
+    this.template = template;
+    this.events = events;
+    this.props = props;
+    this.registry = registry;
+    ArrayBlockingQueue<Runnable> queue =
+        new ArrayBlockingQueue<>(Math.max(1, props.getQueueCapacity()));
+    AtomicInteger n = new AtomicInteger();
+    this.pool =
+        new ThreadPoolExecutor(
+            props.getPoolSize(),
+            props.getPoolSize(),
+            0L,
+            TimeUnit.MILLISECONDS,
+            queue,
+            r -> {
+              Thread t = new Thread(r, "photo-variants-" + n.incrementAndGet());
+              t.setDaemon(true);
+              t.setPriority(Thread.MIN_PRIORITY);
+              return t;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    this.rejected =
+        Counter.builder("ezclaim.photo.variants.rejected")
+            .description("Photos left pending because the variant queue was full")
+            .register(registry);
+    registry.gauge("ezclaim.photo.variants.active", pool, ThreadPoolExecutor::getActiveCount);
+    registry.gauge("ezclaim.photo.variants.queued", queue, ArrayBlockingQueue::size);
+  }
+
+  /**
+   * Queues variant generation for a pending photo. False when the queue is full or the photo is
+   * already queued; either way it is not lost, since it stays pending until processed.
+   */
+  public boolean submit(Photo photo) {
+    if (photo.getVariantStatus() != VariantStatus.PENDING) return false;
+    if (!inFlight.add(photo.getId())) return false;
+    try {
+      pool.execute(
+          () -> {
+            try {
+              generate(photo);
+            } finally {
+              inFlight.remove(photo.getId());
+            }
+          });
+      return true;
+    } catch (RejectedExecutionException e) {
+      inFlight.remove(photo.getId());
+      rejected.increment();
+      log.debug("Variant queue full; photo {} left pending", photo.getId());
+      return false;
+    }
+  }
+
+  /**
+   * Queues pending photos uploaded within the retry window but longer than the retry delay ago,
+   * oldest first and no more than the queue has room for. Returns how many were queued.
+   */
+  public int resubmitPending() {
+    int room = pool.getQueue().remainingCapacity();
+    if (room == 0) return 0;
+    Instant now = Instant.now();
+    Query q =
+        Query.query(
+                Criteria.where("variantStatus")
+                    .is(VariantStatus.PENDING)
+                    .and("uploadedAt")
+                    .gt(now.minus(props.getRetryWindow()))
+                    .lt(now.minus(props.getRetryAfter())))
+            .with(Sort.by("uploadedAt"))
+            .limit(room);
+    int queued = 0;
+    for (Photo p : template.find(q, Photo.class)) {
+      if (submit(p)) queued++;
+    }
+    if (queued > 0) log.info("Re-queued {} pending photos for variant generation", queued);
+    return queued;
+  }
+
+  @Override
+  public void destroy() {
+    pool.shutdownNow();
+  }
+
+  /** Generates and records the variants of one photo on the calling thread. */
+  void generate(Photo photo) {
+    Timer.Sample sample = Timer.start(registry);
+    Map<String, String> keys;
+    VariantStatus status;
+    try {
+      keys = render(photo);
+      status = keys != null ? VariantStatus.READY : VariantStatus.UNSUPPORTED;
+    } catch (NoSuchObjectException e) {
+      // Only older records were created unverified; the sweep tries again within its window
+      stop(sample, "missing");
+      return;
+    } catch (ObjectStoreException e) {
+      log.warn("Variant generation for photo {} deferred: {}", photo.getId(), e.getMessage());
+      stop(sample, "deferred");
+      return;
+    } catch (IOException | RuntimeException e) {
+      log.warn("Variant generation for photo {} failed", photo.getId(), e);
+      keys = null;
+      status = VariantStatus.FAILED;
+    }
+    try {
+      record(photo, status, keys);
+    } catch (DataAccessException e) {
+      log.warn("Failed to record variants of photo {}; left pending", photo.getId(), e);
+      stop(sample, "deferred");
+      return;
+    }
+    stop(sample, status.name().toLowerCase(Locale.ROOT));
+  }
+
+  // Variant keys by id, or null when the original cannot be made into variants
+  private Map<String, String> render(Photo photo) throws IOException {
+    if (photo.getSize() != null && photo.getSize() > props.getMaxSourceBytes()) return null;
+    BufferedImage source;
+    // Unverified older records have no size; the store checks it then
+    try (InputStream in =
+        store.open(photo.getBucket(), photo.getKey(), props.getMaxSourceBytes())) {
+      if (in == null) return null;
+      source = decode(in, props.getMaxSourcePixels());
+    }
+    if (source == null) return null;
+
+    Map<String, String> keys = new LinkedHashMap<>();
+    for (PhotoVariant v : PhotoVariant.values()) {
+      String key = v.keyFor(photo.getKey());
+      byte[] jpeg = encode(scale(source, v.width()), v.quality());
+      store.put(photo.getBucket(), key, jpeg, "image/jpeg");
+      keys.put(v.id(), key);
+    }
+    return keys;
+  }
+
+  private void record(Photo photo, VariantStatus status, Map<String, String> keys) {
+    Update update = new Update().set("variantStatus", status).set("updatedAt", Instant.now());
+    if (keys != null) update.set("variants", keys);
+    Photo saved =
+        template.findAndModify(
+            Query.query(
+                Criteria.where("_id")
+                    .is(photo.getId())
+                    .and("variantStatus")
+                    .is(VariantStatus.PENDING)),
+            update,
+            FindAndModifyOptions.options().returnNew(true),
+            Photo.class);
+    if (saved == null) {
+      // Another instance finished first (same keys, keep them), or the photo was deleted meanwhile
+      if (keys != null
+          && !template.exists(Query.query(Criteria.where("_id").is(photo.getId())), Photo.class)) {
+        store.delete(photo.getBucket(), keys.values());
+      }
+      return;
+    }
+    // Updates bypass the repository lifecycle; keep the cache invalidator and audit informed
+    Document doc = new Document();
+    template.getConverter().write(saved, doc);
+    events.publishEvent(new AfterSaveEvent<>(saved, doc, EntityCaches.PHOTOS));
+  }
+
+  private void stop(Timer.Sample sample, String outcome) {
+    sample.stop(
+        Timer.builder("ezclaim.photo.variants")
+            .description("Time spent generating the variants of one photo")
+            .tag("outcome", outcome)
+            .register(registry));
+  }
+
+  /**
+   * Decodes the first image in the stream, subsampled to no less than twice the widest variant.
+   * Null when no installed reader understands the format or the image has more than {@code
+   * maxPixels} pixels.
+   */
+  static BufferedImage decode(InputStream in, long maxPixels) throws IOException {
+    try (ImageInputStream iis = new MemoryCacheImageInputStream(in)) {
+      Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+      if (!readers.hasNext()) return null;
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(iis, true, true);
+        int width = reader.getWidth(0);
+        if ((long) width * reader.getHeight(0) > maxPixels) return null;
+        // Skipping source pixels while decoding is far cheaper than scaling a full-size raster
+        int step = Math.max(1, width / (2 * WIDEST));
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(step, step, 0, 0);
+        return reader.read(0, param);
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  /**
+   * {@code source} at most {@code width} pixels wide, as opaque RGB on white. Halves first while
+   * the reduction is large, since a single bilinear pass would skip most source pixels.
+   */
+  static BufferedImage scale(BufferedImage source, int width) {
+    int w = Math.min(width, source.getWidth());
+    int h = Math.max(1, Math.round(source.getHeight() * (float) w / source.getWidth()));
+    BufferedImage current = source;
+    while (current.getWidth() / 2 >= w) {
+      current = draw(current, current.getWidth() / 2, Math.max(1, current.getHeight() / 2));
+    }
+    return draw(current, w, h);
+  }
+
+  private static BufferedImage draw(BufferedImage source, int w, int h) {
+    BufferedImage out = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = out.createGraphics();
+    try {
+      g.setColor(Color.WHITE);
+      g.fillRect(0, 0, w, h);
+      g.setRenderingHint(
+          RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      g.drawImage(source, 0, 0, w, h, null);
+    } finally {
+      g.dispose();
+    }
+    return out;
+  }
+
+  static byte[] encode(BufferedImage image, float quality) throws IOException {
+    ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (ImageOutputStream ios = new MemoryCacheImageOutputStream(out)) {
+      ImageWriteParam param = writer.getDefaultWriteParam();
+      param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+      param.setCompressionQuality(quality);
+      writer.setOutput(ios);
+      writer.write(null, new IIOImage(image, null, null), param);
+    } finally {
+      writer.dispose();
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,30 @@
+package org.acssz.ezclaim.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Re-queues photos still waiting for their variants: those that did not fit in the queue, were
+ * recorded before their upload finished, or were queued on an instance that since stopped.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@Profile({"dev", "prod"})
+public class PhotoVariantSweeper {
+  private final PhotoVariantService variants;
+
+  @Scheduled(
+      fixedDelayString = "${app.photos.variants.sweep-interval:PT5M}",
+      initialDelayString = "${app.photos.variants.sweep-interval:PT5M}")
+  public void sweep() {
+    try {
+      variants.resubmitPending();
+    } catch (RuntimeException e) {
+      log.error("Photo variant sweep failed", e);
+    }
+  }
+}
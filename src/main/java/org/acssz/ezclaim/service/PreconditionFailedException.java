@@ -0,0 +1,7 @@
+package org.acssz.ezclaim.service;
+
+public class PreconditionFailedException extends RuntimeException {
+  public PreconditionFailedException(String message) {
+    super(message);
+  }
+}
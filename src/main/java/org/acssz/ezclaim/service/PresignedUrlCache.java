@@ -0,0 +1,108 @@
+package org.acssz.ezclaim.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.function.Supplier;
+import org.acssz.ezclaim.config.ObjectStoreProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Node-local memory of presigned GET URLs and object existence, so repeated downloads of the same
+ * receipt need neither a HEAD request nor a new signature. A URL is reused until {@code
+ * download-url-renew-before} ahead of its expiry, which also keeps it stable for the browser's HTTP
+ * cache. Missing objects are remembered for a shorter time than existing ones, since they may still
+ * be uploaded.
+ *
+ * <p>Meters (tag {@code cache}): the Caffeine cache meters for {@code presigned-urls} and {@code
+ * object-existence}.
+ */
+@Component
+public class PresignedUrlCache {
+  // S3 rejects signatures valid for longer than 7 days
+  static final Duration MAX_EXPIRY = Duration.ofDays(7);
+
+  private record Key(String bucket, String key, Duration expiresIn) {}
+
+  private final Duration renewBefore;
+  private final Duration existenceTtl;
+  private final Duration missingTtl;
+  private final Cache<Key, PhotoService.PresignedGet> urls;
+  private final Cache<String, Boolean> existence;
+
+  public PresignedUrlCache(ObjectStoreProperties props, MeterRegistry registry) {
+    this.renewBefore = props.getDownloadUrlRenewBefore();
+    this.existenceTtl = props.getExistenceTtl();
+    this.missingTtl = props.getMissingTtl();
+    this.urls =
+        Caffeine.newBuilder()
+            .maximumSize(props.getPresignCacheSize())
+            .expireAfter(
+                Expiry.creating(
+                    (Key k, PhotoService.PresignedGet signed) ->
+                        nonNegative(Duration.between(Instant.now(), signed.reusableUntil()))))
+            .recordStats()
+            .build();
+    this.existence =
+        Caffeine.newBuilder()
+            .maximumSize(props.getPresignCacheSize())
+            .expireAfter(
+                Expiry.creating((String k, Boolean found) -> found ? existenceTtl : missingTtl))
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(registry, urls, "presigned-urls");
+    CaffeineCacheMetrics.monitor(registry, existence, "object-existence");
+  }
+
+  /**
+   * Signature lifetimes are rounded up to whole minutes and capped at {@link #MAX_EXPIRY}, so
+   * callers asking for similar lifetimes share one cached URL.
+   */
+  public static Duration bucketed(Duration expiresIn) {
+    Duration minutes = expiresIn.truncatedTo(ChronoUnit.MINUTES);
+    if (minutes.compareTo(expiresIn) < 0) minutes = minutes.plusMinutes(1);
+    if (minutes.compareTo(Duration.ofMinutes(1)) < 0) return Duration.ofMinutes(1);
+    return minutes.compareTo(MAX_EXPIRY) > 0 ? MAX_EXPIRY : minutes;
+  }
+
+  /**
+   * The cached URL for {@code bucket/key} signed for {@code expiresIn} (already {@link #bucketed}),
+   * or the signer's result. Concurrent misses share one signing; exceptions propagate uncached.
+   */
+  public PhotoService.PresignedGet url(
+      String bucket, String key, Duration expiresIn, Supplier<PhotoService.PresignedGet> signer) {
+    return urls.get(new Key(bucket, key, expiresIn), k -> signer.get());
+  }
+
+  /**
+   * Whether the object exists, from memory or the probe. A null probe result (existence unknown,
+   * e.g. the store was unreachable) is passed through and not remembered.
+   */
+  public Boolean exists(String bucket, String key, Supplier<Boolean> probe) {
+    return existence.get(bucket + "/" + key, k -> probe.get());
+  }
+
+  /**
+   * When a URL signed at {@code signedAt} for {@code expiresIn} stops being handed out: {@code
+   * download-url-renew-before} ahead of its expiry, but not before half its lifetime has passed.
+   */
+  public Instant reusableUntil(Instant signedAt, Duration expiresIn) {
+    Duration half = expiresIn.dividedBy(2);
+    return signedAt.plus(expiresIn).minus(renewBefore.compareTo(half) > 0 ? half : renewBefore);
+  }
+
+  /** Forgets URLs and existence of an object, e.g. after deleting it. */
+  public void evict(String bucket, String key) {
+    existence.invalidate(bucket + "/" + key);
+    urls.asMap().keySet().removeIf(k -> k.bucket().equals(bucket) && k.key().equals(key));
+  }
+
+  private static Duration nonNegative(Duration d) {
+    return d.isNegative() ? Duration.ZERO : d;
+  }
+}
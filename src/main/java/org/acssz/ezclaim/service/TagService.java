@@ -1,7 +1,9 @@
 package org.acssz.ezclaim.service;
 
+import java.time.Instant;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.acssz.ezclaim.cache.EntityCaches;
 import org.acssz.ezclaim.domain.Tag;
 import org.acssz.ezclaim.repository.TagRepository;
 import org.springframework.stereotype.Service;
@@ -10,25 +12,47 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class TagService {
   private final TagRepository repository;
+  private final EntityCaches caches;
 
   public List<Tag> list() {
     return repository.findAll();
   }
 
+  /**
+   * Fingerprint of the whole list: tag count plus the latest change. Updates move the timestamp and
+   * deletes the count, so it changes whenever {@link #list()} would.
+   */
+  public String listVersion() {
+    long latest =
+        repository
+            .findFirstByOrderByUpdatedAtDesc()
+            .map(Tag::getUpdatedAt)
+            .map(Instant::toEpochMilli)
+            .orElse(0L);
+    return repository.count() + "-" + latest;
+  }
+
+  /** Served from the node-local cache; treat the result as read-only. */
   public Tag get(String id) {
+    return caches.get(EntityCaches.TAGS, id, Tag.class, () -> load(id));
+  }
+
+  private Tag load(String id) {
     return repository
         .findById(id)
         .orElseThrow(() -> new ResourceNotFoundException("Tag not found: " + id));
   }
 
   public Tag create(String label, String color) {
-    return repository.save(Tag.builder().label(label).color(color).build());
+    return repository.save(
+        Tag.builder().label(label).color(color).updatedAt(Instant.now()).build());
   }
 
   public Tag update(String id, String label, String color) {
-    Tag t = get(id);
+    Tag t = load(id);
     t.setLabel(label);
     t.setColor(color);
+    t.setUpdatedAt(Instant.now());
     return repository.save(t);
   }
 
@@ -0,0 +1,7 @@
+package org.acssz.ezclaim.service;
+
+public class TooManyRequestsException extends RuntimeException {
+  public TooManyRequestsException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,347 @@
+package org.acssz.ezclaim.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.extern.slf4j.Slf4j;
+import org.acssz.ezclaim.config.ObjectStoreProperties;
+import org.acssz.ezclaim.service.BadRequestException;
+import org.springframework.web.util.UriUtils;
+
+/**
+ * {@link ObjectStore} on the local filesystem, one directory per bucket under {@code local-root},
+ * for single-node deployments and for running without an S3 service. Clients upload and download
+ * through this app at {@value #PATH} with links signed here: an HMAC-SHA256 over method, bucket,
+ * key, expiry and (for uploads) content type, so a link only works for what it was issued for and
+ * until it expires.
+ *
+ * <p>Writes go to a temporary file beside the target, are forced to disk and then renamed over it
+ * atomically: readers see the old object or the complete new one, never a partial upload. Reads
+ * hand out the {@link FileChannel} so the bytes can be moved with {@code transferTo}. The ETag is
+ * derived from size and modification time. Content types are not stored but sniffed from the first
+ * bytes, which suffices for the image formats photos come in.
+ */
+@Slf4j
+public class LocalObjectStore implements ObjectStore {
+  public static final String PATH = "/api/objects";
+  private static final Pattern BUCKET = Pattern.compile("[a-z0-9][a-z0-9.-]{2,62}");
+  private static final String TEMP_PREFIX = ".upload-";
+  private static final long CHUNK = 8L * 1024 * 1024;
+
+  private final Path root;
+  private final String baseUrl;
+  private final long maxObjectBytes;
+  private final SecretKeySpec signingKey;
+
+  public LocalObjectStore(ObjectStoreProperties props) {
+    this.root = props.getLocalRoot().toAbsolutePath().normalize();
+    this.baseUrl = stripTrailingSlash(props.getLocalBaseUrl());
+    this.maxObjectBytes = props.getMaxPhotoBytes();
+    byte[] key;
+    if (props.getLocalSigningKey() != null && !props.getLocalSigningKey().isBlank()) {
+      key = props.getLocalSigningKey().getBytes(StandardCharsets.UTF_8);
+    } else {
+      key = new byte[32];
+      new SecureRandom().nextBytes(key);
+      log.warn("No local-signing-key set; object links will stop working when the app restarts");
+    }
+    this.signingKey = new SecretKeySpec(key, "HmacSHA256");
+    log.info("Local object store at {}, links to {}{}", root, baseUrl, PATH);
+  }
+
+  /** An open object; closing it closes the channel. */
+  public record LocalObject(FileChannel channel, long size, String etag, String contentType)
+      implements Closeable {
+
+    /** Moves the whole file to {@code target}, by the OS directly where the target allows it. */
+    public void transferTo(WritableByteChannel target) throws IOException {
+      long position = 0;
+      while (position < size) {
+        position += channel.transferTo(position, Math.min(CHUNK, size - position), target);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+
+  /** Opens the object for reading; the caller closes it. */
+  public LocalObject read(String bucket, String key) {
+    Path file = file(bucket, key);
+    if (!Files.isRegularFile(file)) throw new NoSuchObjectException(bucket, key);
+    FileChannel channel = null;
+    try {
+      channel = FileChannel.open(file, StandardOpenOption.READ);
+      long size = channel.size();
+      ByteBuffer head = ByteBuffer.allocate((int) Math.min(size, 16));
+      channel.read(head, 0); // positional: the channel still starts at 0
+      return new LocalObject(
+          channel,
+          size,
+          etag(file, size),
+          contentType(key, Arrays.copyOf(head.array(), head.position())));
+    } catch (NoSuchFileException e) {
+      throw new NoSuchObjectException(bucket, key);
+    } catch (IOException e) {
+      closeQuietly(channel);
+      throw new ObjectStoreException("Failed to read " + bucket + "/" + key, e);
+    }
+  }
+
+  /**
+   * Stores the stream as the object, atomically replacing any previous one, and returns its ETag.
+   * Fails with {@link ObjectTooLargeException} once more than {@code maxBytes} arrive; nothing is
+   * stored then.
+   */
+  public String write(String bucket, String key, InputStream in, long maxBytes) {
+    Path file = file(bucket, key);
+    Path temp = null;
+    try {
+      Files.createDirectories(file.getParent());
+      temp = Files.createTempFile(file.getParent(), TEMP_PREFIX, ".tmp");
+      long size = 0;
+      try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE);
+          ReadableByteChannel src = Channels.newChannel(in)) {
+        long n;
+        // One byte past the limit is enough to know it was exceeded
+        while ((n = out.transferFrom(src, size, Math.min(CHUNK, maxBytes - size) + 1)) > 0) {
+          size += n;
+          if (size > maxBytes) {
+            throw new ObjectTooLargeException(bucket, key, maxBytes);
+          }
+        }
+        out.force(true);
+      }
+      Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      temp = null;
+      return etag(file, size);
+    } catch (IOException e) {
+      throw new ObjectStoreException("Failed to write " + bucket + "/" + key, e);
+    } finally {
+      if (temp != null) deleteQuietly(temp);
+    }
+  }
+
+  @Override
+  public ObjectHead head(String bucket, String key, int maxBytes) {
+    try (LocalObject o = read(bucket, key)) {
+      ByteBuffer head = ByteBuffer.allocate((int) Math.min(o.size(), maxBytes));
+      while (head.hasRemaining() && o.channel().read(head) >= 0) {
+        // fill up to maxBytes or the end of the file
+      }
+      return new ObjectHead(
+          o.size(), o.etag(), o.contentType(), Arrays.copyOf(head.array(), head.position()));
+    } catch (IOException e) {
+      throw new ObjectStoreException("Failed to read " + bucket + "/" + key, e);
+    }
+  }
+
+  @Override
+  public InputStream open(String bucket, String key, long maxBytes) {
+    LocalObject o = read(bucket, key);
+    if (o.size() > maxBytes) {
+      closeQuietly(o.channel());
+      return null;
+    }
+    return Channels.newInputStream(o.channel());
+  }
+
+  @Override
+  public void put(String bucket, String key, byte[] content, String contentType) {
+    write(bucket, key, new ByteArrayInputStream(content), content.length);
+  }
+
+  @Override
+  public void delete(String bucket, Collection<String> keys) {
+    for (String key : keys) {
+      try {
+        Files.deleteIfExists(file(bucket, key));
+      } catch (IOException | BadRequestException e) {
+        log.warn("Failed to delete local object {}/{} - {}", bucket, key, e.getMessage());
+      }
+    }
+  }
+
+  @Override
+  public Boolean exists(String bucket, String key) {
+    return Files.isRegularFile(file(bucket, key));
+  }
+
+  @Override
+  public SignedUpload signUpload(String bucket, String key, String contentType, Duration ttl) {
+    String type = contentType != null && !contentType.isBlank() ? contentType : null;
+    URL url = sign("PUT", bucket, key, type, ttl);
+    return new SignedUpload(url, type != null ? Map.of("Content-Type", List.of(type)) : Map.of());
+  }
+
+  @Override
+  public URL signDownload(String bucket, String key, Duration ttl) {
+    return sign("GET", bucket, key, null, ttl);
+  }
+
+  /**
+   * Whether {@code signature} was issued by this store for exactly this request and has not
+   * expired. {@code contentType} matters for uploads only.
+   */
+  public boolean verify(
+      String method,
+      String bucket,
+      String key,
+      long expires,
+      String contentType,
+      String signature) {
+    if (signature == null || Instant.now().getEpochSecond() > expires) return false;
+    byte[] expected = mac(method, bucket, key, expires, contentType);
+    byte[] given;
+    try {
+      given = Base64.getUrlDecoder().decode(signature);
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+    return MessageDigest.isEqual(expected, given);
+  }
+
+  /** Largest upload accepted through a signed link. */
+  public long maxObjectBytes() {
+    return maxObjectBytes;
+  }
+
+  private URL sign(String method, String bucket, String key, String contentType, Duration ttl) {
+    file(bucket, key); // reject what could never be stored
+    long expires = Instant.now().plus(ttl).getEpochSecond();
+    String signature =
+        Base64.getUrlEncoder()
+            .withoutPadding()
+            .encodeToString(mac(method, bucket, key, expires, contentType));
+    String path =
+        Arrays.stream(key.split("/", -1))
+            .map(s -> UriUtils.encodePathSegment(s, StandardCharsets.UTF_8))
+            .collect(Collectors.joining("/"));
+    try {
+      return URI.create(
+              baseUrl
+                  + PATH
+                  + "/"
+                  + bucket
+                  + "/"
+                  + path
+                  + "?expires="
+                  + expires
+                  + "&signature="
+                  + signature)
+          .toURL();
+    } catch (MalformedURLException | IllegalArgumentException e) {
+      throw new IllegalStateException("Invalid local-base-url: " + baseUrl, e);
+    }
+  }
+
+  private byte[] mac(String method, String bucket, String key, long expires, String contentType) {
+    String payload =
+        String.join(
+            "\n",
+            method,
+            bucket,
+            key,
+            Long.toString(expires),
+            contentType != null ? contentType : "");
+    try {
+      Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(signingKey);
+      return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("HmacSHA256 unavailable", e);
+    }
+  }
+
+  // The file for the object; BadRequestException for names that would leave the bucket
+  Path file(String bucket, String key) {
+    if (bucket == null || !BUCKET.matcher(bucket).matches()) {
+      throw new BadRequestException("Invalid bucket name: " + bucket);
+    }
+    if (key == null || key.isBlank() || key.startsWith("/") || key.endsWith("/")) {
+      throw new BadRequestException("Invalid object key: " + key);
+    }
+    for (String segment : key.split("/")) {
+      if (segment.isEmpty()
+          || segment.equals(".")
+          || segment.equals("..")
+          || segment.startsWith(TEMP_PREFIX)) {
+        throw new BadRequestException("Invalid object key: " + key);
+      }
+    }
+    Path dir = root.resolve(bucket);
+    Path file = dir.resolve(key).normalize();
+    if (!file.startsWith(dir)) throw new BadRequestException("Invalid object key: " + key);
+    return file;
+  }
+
+  private static String etag(Path file, long size) throws IOException {
+    long modified = Files.getLastModifiedTime(file).toMillis();
+    return "\"" + Long.toHexString(modified) + "-" + Long.toHexString(size) + "\"";
+  }
+
+  // Sniffed from the first bytes (JPEG, PNG, GIF, ...), else guessed from the key's extension
+  private static String contentType(String key, byte[] head) {
+    try {
+      String sniffed = URLConnection.guessContentTypeFromStream(new ByteArrayInputStream(head));
+      if (sniffed != null) return sniffed;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e); // not thrown for an in-memory stream
+    }
+    return URLConnection.guessContentTypeFromName(key);
+  }
+
+  private static String stripTrailingSlash(String url) {
+    return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+  }
+
+  private static void closeQuietly(Closeable c) {
+    if (c == null) return;
+    try {
+      c.close();
+    } catch (IOException ignored) {
+      // nothing left to do with it
+    }
+  }
+
+  private static void deleteQuietly(Path p) {
+    try {
+      Files.deleteIfExists(p);
+    } catch (IOException e) {
+      log.warn("Failed to remove temporary upload {}: {}", p, e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,7 @@
+package org.acssz.ezclaim.storage;
+
+public class NoSuchObjectException extends RuntimeException {
+  public NoSuchObjectException(String bucket, String key) {
+    super("Object not found: " + bucket + "/" + key);
+  }
+}
@@ -0,0 +1,54 @@
+package org.acssz.ezclaim.storage;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where photo bytes live. The app reads and writes objects only through this interface; clients
+ * upload and download directly, with URLs it signs. {@code app.objectstore.backend} picks the
+ * implementation: {@link S3ObjectStore} (default) or {@link LocalObjectStore}.
+ *
+ * <p>A missing object is reported as {@link NoSuchObjectException}; a store that failed to answer
+ * as {@link ObjectStoreException}, which is worth retrying later.
+ */
+public interface ObjectStore {
+
+  /**
+   * Up to {@code maxBytes} from the start of the object, and what the store knows about all of it.
+   */
+  ObjectHead head(String bucket, String key, int maxBytes);
+
+  /**
+   * The whole object, or null when it is larger than {@code maxBytes} (nothing more is read). The
+   * caller closes the stream.
+   */
+  InputStream open(String bucket, String key, long maxBytes);
+
+  void put(String bucket, String key, byte[] content, String contentType);
+
+  /** Best effort: failures are logged, not thrown, and missing keys are ignored. */
+  void delete(String bucket, Collection<String> keys);
+
+  /** True or false when the store could tell; null when it could not. */
+  Boolean exists(String bucket, String key);
+
+  /**
+   * A URL a client can PUT the object to until {@code ttl} has passed, with the headers to send.
+   */
+  SignedUpload signUpload(String bucket, String key, String contentType, Duration ttl);
+
+  /** A URL a client can GET the object from until {@code ttl} has passed. */
+  URL signDownload(String bucket, String key, Duration ttl);
+
+  /**
+   * {@code size}: of the whole object, 0 when empty; {@code bytes}: its first bytes. ETag and
+   * content type are null when the store does not know them.
+   */
+  record ObjectHead(long size, String etag, String contentType, byte[] bytes) {}
+
+  record SignedUpload(URL url, Map<String, List<String>> headers) {}
+}
@@ -0,0 +1,7 @@
+package org.acssz.ezclaim.storage;
+
+public class ObjectStoreException extends RuntimeException {
+  public ObjectStoreException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
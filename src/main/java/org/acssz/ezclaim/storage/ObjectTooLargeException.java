@@ -0,0 +1,9 @@
+package org.acssz.ezclaim.storage;
+
+import org.acssz.ezclaim.service.BadRequestException;
+
+public class ObjectTooLargeException extends BadRequestException {
+  public ObjectTooLargeException(String bucket, String key, long maxBytes) {
+    super("Object too large: " + bucket + "/" + key + " exceeds " + maxBytes + " bytes");
+  }
+}
@@ -0,0 +1,186 @@
+package org.acssz.ezclaim.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+/**
+ * {@link ObjectStore} on S3 or an S3-compatible service (MinIO, GCS interoperability). Reads use
+ * ranged GETs rather than HEAD where the first bytes are wanted too; with {@code
+ * app.objectstore.async-client} the keys of a delete are removed side by side.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class S3ObjectStore implements ObjectStore {
+  private final S3Client s3;
+  private final ObjectProvider<S3AsyncClient> s3Async;
+  private final S3Presigner presigner;
+
+  // The Content-Range of a ranged reply carries the full size, so no separate HEAD is needed
+  @Override
+  public ObjectHead head(String bucket, String key, int maxBytes) {
+    GetObjectRequest get =
+        GetObjectRequest.builder()
+            .bucket(bucket)
+            .key(key)
+            .range("bytes=0-" + (maxBytes - 1))
+            .build();
+    try (ResponseInputStream<GetObjectResponse> in = s3.getObject(get)) {
+      GetObjectResponse r = in.response();
+      byte[] head = in.readNBytes(maxBytes);
+      // A store that ignored the range is sending the whole object; don't drain it
+      if (r.contentLength() != null && r.contentLength() > head.length) in.abort();
+      return new ObjectHead(totalSize(r), r.eTag(), r.contentType(), head);
+    } catch (NoSuchKeyException e) {
+      throw new NoSuchObjectException(bucket, key);
+    } catch (S3Exception e) {
+      // 416: no byte satisfies the range, i.e. the object is empty
+      if (e.statusCode() == 416) return new ObjectHead(0, null, null, new byte[0]);
+      throw failed("read", bucket, key, e);
+    } catch (SdkException e) {
+      throw failed("read", bucket, key, e);
+    } catch (IOException e) {
+      throw new ObjectStoreException("Failed to read " + bucket + "/" + key, e);
+    }
+  }
+
+  private static long totalSize(GetObjectResponse r) {
+    String range = r.contentRange(); // bytes 0-65535/1234567
+    if (range != null && range.indexOf('/') > 0) {
+      String total = range.substring(range.indexOf('/') + 1);
+      if (!total.equals("*")) return Long.parseLong(total);
+    }
+    return r.contentLength() != null ? r.contentLength() : 0L;
+  }
+
+  @Override
+  public InputStream open(String bucket, String key, long maxBytes) {
+    try {
+      ResponseInputStream<GetObjectResponse> in =
+          s3.getObject(GetObjectRequest.builder().bucket(bucket).key(key).build());
+      Long length = in.response().contentLength();
+      if (length != null && length > maxBytes) {
+        in.abort(); // closing would drain the rest of the body first
+        return null;
+      }
+      return in;
+    } catch (NoSuchKeyException e) {
+      throw new NoSuchObjectException(bucket, key);
+    } catch (SdkException e) {
+      throw failed("read", bucket, key, e);
+    }
+  }
+
+  @Override
+  public void put(String bucket, String key, byte[] content, String contentType) {
+    try {
+      s3.putObject(
+          PutObjectRequest.builder().bucket(bucket).key(key).contentType(contentType).build(),
+          RequestBody.fromBytes(content));
+    } catch (SdkException e) {
+      throw failed("write", bucket, key, e);
+    }
+  }
+
+  @Override
+  public void delete(String bucket, Collection<String> keys) {
+    S3AsyncClient async = s3Async.getIfAvailable();
+    if (async != null) {
+      // All keys side by side, without a thread each
+      CompletableFuture.allOf(
+              keys.stream()
+                  .map(
+                      key ->
+                          async
+                              .deleteObject(deleteRequest(bucket, key))
+                              .exceptionally(
+                                  e -> {
+                                    deleteFailed(bucket, key, e);
+                                    return null;
+                                  }))
+                  .toArray(CompletableFuture[]::new))
+          .join();
+      return;
+    }
+    for (String key : keys) {
+      try {
+        s3.deleteObject(deleteRequest(bucket, key));
+      } catch (SdkException e) {
+        deleteFailed(bucket, key, e);
+      }
+    }
+  }
+
+  private static DeleteObjectRequest deleteRequest(String bucket, String key) {
+    return DeleteObjectRequest.builder().bucket(bucket).key(key).build();
+  }
+
+  private static void deleteFailed(String bucket, String key, Throwable e) {
+    Throwable cause = e.getCause() != null && !(e instanceof SdkException) ? e.getCause() : e;
+    log.warn("Failed to delete object from S3: {}/{} - {}", bucket, key, cause.getMessage());
+  }
+
+  @Override
+  public Boolean exists(String bucket, String key) {
+    try {
+      s3.headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build());
+      return true;
+    } catch (NoSuchKeyException e) {
+      return false;
+    } catch (SdkException e) {
+      log.debug("headObject failed: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  @Override
+  public SignedUpload signUpload(String bucket, String key, String contentType, Duration ttl) {
+    PutObjectRequest.Builder put = PutObjectRequest.builder().bucket(bucket).key(key);
+    if (contentType != null && !contentType.isBlank()) put.contentType(contentType);
+    PresignedPutObjectRequest presigned =
+        presigner.presignPutObject(
+            PutObjectPresignRequest.builder()
+                .signatureDuration(ttl)
+                .putObjectRequest(put.build())
+                .build());
+    return new SignedUpload(presigned.url(), presigned.httpRequest().headers());
+  }
+
+  @Override
+  public URL signDownload(String bucket, String key, Duration ttl) {
+    return presigner
+        .presignGetObject(
+            GetObjectPresignRequest.builder()
+                .signatureDuration(ttl)
+                .getObjectRequest(b -> b.bucket(bucket).key(key))
+                .build())
+        .url();
+  }
+
+  private static ObjectStoreException failed(String op, String bucket, String key, Exception e) {
+    return new ObjectStoreException(
+        "Failed to " + op + " " + bucket + "/" + key + ": " + e.getMessage(), e);
+  }
+}
@@ -16,12 +16,14 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 
 @RestController
 @RequestMapping("/api/audit-events")
@@ -55,6 +57,31 @@ public class AuditEventController {
     return result.map(this::toResponse);
   }
 
+  @GetMapping(produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+  @Operation(
+      summary = "Stream audit events",
+      description =
+          "Requires AUDIT scope. Selected by Accept: application/x-ndjson or text/event-stream."
+              + " Every matching event in sort order, written as fast as the client reads.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "Events streamed"),
+    @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content),
+    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content)
+  })
+  @SecurityRequirement(name = "bearerAuth")
+  public Flux<AuditEventResponse> stream(
+      @RequestParam(required = false) String entityType,
+      @RequestParam(required = false) String entityId,
+      @RequestParam(required = false) String action,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          Instant from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          Instant to,
+      @RequestParam(required = false, defaultValue = "occurredAt,desc") String sort) {
+    return service.stream(entityType, entityId, action, from, to, parseSort(sort))
+        .map(this::toResponse);
+  }
+
   @GetMapping("/{id}")
   @Operation(summary = "Get audit event", description = "Requires AUDIT scope")
   @ApiResponses({
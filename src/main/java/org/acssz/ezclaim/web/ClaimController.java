@@ -1,5 +1,6 @@
 package org.acssz.ezclaim.web;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -7,19 +8,47 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import lombok.RequiredArgsConstructor;
 import org.acssz.ezclaim.domain.Claim;
 import org.acssz.ezclaim.domain.Photo;
 import org.acssz.ezclaim.domain.Tag;
+import org.acssz.ezclaim.security.ClaimAccessTokens;
+import org.acssz.ezclaim.service.BadRequestException;
 import org.acssz.ezclaim.service.ClaimService;
+import org.acssz.ezclaim.service.IdempotencyService;
+import org.acssz.ezclaim.service.PhotoService;
+import org.acssz.ezclaim.web.dto.ClaimAccessRequest;
+import org.acssz.ezclaim.web.dto.ClaimBulkTransitionRequest;
+import org.acssz.ezclaim.web.dto.ClaimBulkTransitionResponse;
+import org.acssz.ezclaim.web.dto.ClaimFilterRequest;
+import org.acssz.ezclaim.web.dto.ClaimPageResponse;
 import org.acssz.ezclaim.web.dto.ClaimPatchRequest;
 import org.acssz.ezclaim.web.dto.ClaimRequest;
 import org.acssz.ezclaim.web.dto.ClaimResponse;
+import org.acssz.ezclaim.web.dto.ClaimSearchResponse;
+import org.acssz.ezclaim.web.dto.ClaimUpdateRequest;
 import org.acssz.ezclaim.web.dto.PhotoResponse;
+import org.acssz.ezclaim.web.dto.PhotoUrlResponse;
 import org.acssz.ezclaim.web.dto.TagResponse;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -30,10 +59,14 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
 
 @RestController
 @RequestMapping("/api/claims")
@@ -42,28 +75,171 @@ import org.springframework.web.bind.annotation.RestController;
 @io.swagger.v3.oas.annotations.tags.Tag(name = "Claims", description = "Operations on claims")
 public class ClaimController {
 
+  private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+  private static final MediaType CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+  private static final String CSV_HEADER =
+      "id,status,createdAt,expenseAt,title,description,recipient,amount,currency,tags\r\n";
+  private static final String FIELDS_DOC =
+      "Comma-separated fields to return, e.g. title,status,amount,currency; id and createdAt are"
+          + " always included. Omit for every field.";
+
   private final ClaimService service;
   private final PasswordEncoder passwordEncoder;
+  private final ObjectMapper objectMapper;
+  private final ClaimAccessTokens accessTokens;
+  private final IdempotencyService idempotency;
+  private final PhotoService photoService;
 
   @GetMapping
-  @Operation(summary = "List claims", description = "Requires CLAIM_READ scope.")
+  @Operation(
+      summary = "List claims",
+      description =
+          "Requires CLAIM_READ scope. Newest first; pass nextCursor back as cursor for the next page.")
   @ApiResponses({
-    @ApiResponse(responseCode = "200", description = "List of claims returned"),
+    @ApiResponse(responseCode = "200", description = "Page of claims returned"),
+    @ApiResponse(
+        responseCode = "400",
+        description = "Invalid cursor or unknown field",
+        content = @Content),
     @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content),
     @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content)
   })
   @SecurityRequirement(name = "bearerAuth")
-  public List<ClaimResponse> list() {
-    return service.findAll().stream().map(this::toResponse).collect(Collectors.toList());
+  public ClaimPageResponse list(
+      @ParameterObject ClaimFilterRequest filter,
+      @Parameter(description = "nextCursor from the previous page") @RequestParam(required = false)
+          String cursor,
+      @RequestParam(defaultValue = "" + ClaimService.DEFAULT_PAGE_SIZE) int size,
+      @Parameter(description = FIELDS_DOC) @RequestParam(required = false) String fields) {
+    Set<String> selected = ClaimService.parseFields(fields);
+    ClaimService.KeysetPage page = service.search(toFilter(filter), cursor, size, selected);
+    return ClaimPageResponse.builder()
+        .content(
+            page.content().stream().map(c -> toResponse(c, selected)).collect(Collectors.toList()))
+        .size(page.content().size())
+        .nextCursor(page.nextCursor())
+        .build();
+  }
+
+  @GetMapping(produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+  @Operation(
+      summary = "Stream claims",
+      description =
+          "Requires CLAIM_READ scope. Selected by Accept: application/x-ndjson or"
+              + " text/event-stream. Every matching claim, newest first, one ClaimResponse per"
+              + " line/event, written as fast as the client reads.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "Claims streamed"),
+    @ApiResponse(responseCode = "400", description = "Unknown field", content = @Content),
+    @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content),
+    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content)
+  })
+  @SecurityRequirement(name = "bearerAuth")
+  public Flux<ClaimResponse> stream(
+      @ParameterObject ClaimFilterRequest filter,
+      @Parameter(description = FIELDS_DOC) @RequestParam(required = false) String fields) {
+    Set<String> selected = ClaimService.parseFields(fields);
+    return service.stream(toFilter(filter), selected).map(c -> toResponse(c, selected));
+  }
+
+  @GetMapping("/search")
+  @Operation(
+      summary = "Search claims",
+      description =
+          "Requires CLAIM_READ scope. Full-text search over title, recipient and description,"
+              + " best match first; accepts the same filters as list.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "Page of matching claims"),
+    @ApiResponse(
+        responseCode = "400",
+        description = "Blank query or page out of range",
+        content = @Content),
+    @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content),
+    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content)
+  })
+  @SecurityRequirement(name = "bearerAuth")
+  public ClaimSearchResponse search(
+      @Parameter(description = "Words to search for; quote phrases, prefix - to exclude")
+          @RequestParam
+          String q,
+      @ParameterObject ClaimFilterRequest filter,
+      @RequestParam(defaultValue = "0") int page,
+      @RequestParam(defaultValue = "" + ClaimService.DEFAULT_PAGE_SIZE) int size) {
+    ClaimService.SearchPage result = service.textSearch(q, toFilter(filter), page, size);
+    return ClaimSearchResponse.builder()
+        .content(result.content().stream().map(this::toResponse).collect(Collectors.toList()))
+        .page(result.page())
+        .size(result.content().size())
+        .hasNext(result.hasNext())
+        .build();
+  }
+
+  @GetMapping("/export")
+  @Operation(
+      summary = "Export claims",
+      description =
+          "Requires CLAIM_READ scope. Streams every matching claim, oldest first, as NDJSON (one"
+              + " ClaimResponse per line) or CSV.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "Export streamed"),
+    @ApiResponse(responseCode = "400", description = "Unknown format", content = @Content),
+    @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content),
+    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content)
+  })
+  @SecurityRequirement(name = "bearerAuth")
+  public ResponseEntity<StreamingResponseBody> export(
+      @ParameterObject ClaimFilterRequest filter,
+      @Parameter(description = "ndjson or csv") @RequestParam(defaultValue = "ndjson")
+          String format) {
+    boolean csv =
+        switch (format.toLowerCase(Locale.ROOT)) {
+          case "ndjson" -> false;
+          case "csv" -> true;
+          default -> throw new BadRequestException("Unsupported export format: " + format);
+        };
+    ClaimService.Filter f = toFilter(filter);
+    StreamingResponseBody body =
+        out -> {
+          Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+          if (csv) w.write(CSV_HEADER);
+          service.export(
+              f,
+              batch -> {
+                try {
+                  for (Claim c : batch) w.write(csv ? toCsvRow(c) : toNdjsonLine(c));
+                  // push each batch to the client instead of waiting for the whole result
+                  w.flush();
+                } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+                }
+              });
+          w.flush();
+        };
+    return ResponseEntity.ok()
+        .contentType(csv ? CSV : NDJSON)
+        .header(
+            HttpHeaders.CONTENT_DISPOSITION,
+            ContentDisposition.attachment()
+                .filename("claims." + (csv ? "csv" : "ndjson"))
+                .build()
+                .toString())
+        .body(body);
   }
 
   @GetMapping("/{id}")
   @Operation(
       summary = "Get claim by id",
       description =
-          "Public access; if the claim is password-protected, provide password or use privileged token.")
+          "Public access; if the claim is password-protected, provide password, a claim access"
+              + " token, or a privileged token. Send the ETag as If-None-Match to get 304 when"
+              + " unchanged.")
   @ApiResponses({
     @ApiResponse(responseCode = "200", description = "Claim returned"),
+    @ApiResponse(responseCode = "400", description = "Unknown field", content = @Content),
+    @ApiResponse(
+        responseCode = "304",
+        description = "Unchanged since If-None-Match / If-Modified-Since",
+        content = @Content),
     @ApiResponse(
         responseCode = "401",
         description = "Unauthorized (if using token)",
@@ -72,62 +248,175 @@ public class ClaimController {
         responseCode = "403",
         description = "Password required or invalid",
         content = @Content),
-    @ApiResponse(responseCode = "404", description = "Not found")
+    @ApiResponse(responseCode = "404", description = "Not found"),
+    @ApiResponse(
+        responseCode = "429",
+        description = "Password hashing saturated; retry later",
+        content = @Content)
+  })
+  public ResponseEntity<ClaimResponse> get(
+      @PathVariable String id,
+      @Parameter(description = "Password for protected claim") @RequestParam(required = false)
+          String password,
+      @Parameter(description = FIELDS_DOC) @RequestParam(required = false) String fields,
+      @RequestHeader HttpHeaders headers,
+      Authentication auth) {
+    Set<String> selected = ClaimService.parseFields(fields);
+    // Authorize and answer 304 from a projected lookup; only a changed claim is fully loaded
+    Claim head = service.findHead(id);
+    authorizeRead(head, id, password, auth);
+    String etag = ETags.of(head.getVersion(), selected);
+    if (ETags.notModified(headers, etag, head.getUpdatedAt())) {
+      return ETags.notModifiedResponse(etag, head.getUpdatedAt());
+    }
+    return withETag(head, toResponse(service.findById(id, selected), selected));
+  }
+
+  @GetMapping("/{id}/photo-urls")
+  @Operation(
+      summary = "Presign downloads for a claim's photos",
+      description =
+          "Same access as get. Download URLs for every photo on the claim in one call, in claim"
+              + " order. variant=thumb suits a review grid; photos without the variant yet get"
+              + " their original.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "OK"),
+    @ApiResponse(responseCode = "400", description = "Unknown variant", content = @Content),
+    @ApiResponse(
+        responseCode = "403",
+        description = "Password required or invalid",
+        content = @Content),
+    @ApiResponse(responseCode = "404", description = "Not found"),
+    @ApiResponse(
+        responseCode = "429",
+        description = "Password hashing saturated; retry later",
+        content = @Content)
   })
-  public ClaimResponse get(
+  public List<PhotoUrlResponse> photoUrls(
       @PathVariable String id,
       @Parameter(description = "Password for protected claim") @RequestParam(required = false)
           String password,
+      @RequestParam(required = false) Integer expiresInSeconds,
+      @Parameter(description = "thumb, preview or original (default)")
+          @RequestParam(required = false)
+          String variant,
       Authentication auth) {
+    authorizeRead(service.findHead(id), id, password, auth);
+    List<Photo> photos = service.findById(id, ClaimService.parseFields("photos")).getPhotos();
+    if (photos == null || photos.isEmpty()) return List.of();
+    List<PhotoService.PresignedGet> signed =
+        photoService.signDownloads(
+            photos,
+            variant,
+            expiresInSeconds != null ? Duration.ofSeconds(expiresInSeconds) : null);
+    return IntStream.range(0, photos.size())
+        .mapToObj(
+            i -> {
+              PhotoService.PresignedGet s = signed.get(i);
+              // Missing object: listed without a URL rather than failing the whole claim
+              return PhotoUrlResponse.builder()
+                  .photoId(photos.get(i).getId())
+                  .url(s != null ? s.url().toString() : null)
+                  .expiresAt(s != null ? s.expiresAt() : null)
+                  .build();
+            })
+        .toList();
+  }
+
+  @PostMapping("/{id}/access-token")
+  @Operation(
+      summary = "Exchange claim password for an access token",
+      description =
+          "Checks the claim password once and returns a short-lived bearer token scoped to this"
+              + " claim, accepted by GET and PATCH in place of the password.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "Token issued"),
+    @ApiResponse(responseCode = "403", description = "Password invalid", content = @Content),
+    @ApiResponse(responseCode = "404", description = "Not found"),
+    @ApiResponse(
+        responseCode = "429",
+        description = "Password hashing saturated; retry later",
+        content = @Content)
+  })
+  public ResponseEntity<Map<String, String>> accessToken(
+      @PathVariable String id, @RequestBody(required = false) ClaimAccessRequest req) {
     Claim c = service.findById(id);
-    boolean hasPassword = c.getPasswordHash() != null && !c.getPasswordHash().isBlank();
-    boolean privileged =
-        auth != null
-            && auth.isAuthenticated()
-            && auth.getAuthorities() != null
-            && auth.getAuthorities().stream()
-                .map(GrantedAuthority::getAuthority)
-                .anyMatch(a -> a.equals("SCOPE_CLAIM_READ") || a.equals("SCOPE_CLAIM_WRITE"));
-    if (hasPassword && !privileged) {
-      if (password == null
-          || password.isBlank()
-          || !passwordEncoder.matches(password, c.getPasswordHash())) {
-        throw new org.springframework.security.access.AccessDeniedException(
-            "password required or invalid");
-      }
+    String password = req == null ? null : req.getPassword();
+    if (c.getPasswordHash() != null
+        && !c.getPasswordHash().isBlank()
+        && !passwordMatches(c, password)) {
+      throw new org.springframework.security.access.AccessDeniedException("password invalid");
     }
-    return toResponse(c);
+    ClaimAccessTokens.Issued issued = accessTokens.issue(c.getId());
+    return ResponseEntity.ok(
+        Map.of(
+            "token",
+            issued.token(),
+            "tokenType",
+            "Bearer",
+            "expiresAt",
+            issued.expiresAt().toString()));
   }
 
   @PostMapping
-  @Operation(summary = "Create claim", description = "Anonymous users may create claims.")
+  @Operation(
+      summary = "Create claim",
+      description =
+          "Anonymous users may create claims. Send a unique Idempotency-Key to make retries safe:"
+              + " a repeat returns the claim created by the first request.")
   @ApiResponses({
-    @ApiResponse(responseCode = "200", description = "Created"),
-    @ApiResponse(responseCode = "400", description = "Validation error")
+    @ApiResponse(responseCode = "200", description = "Created, or replayed for a repeated key"),
+    @ApiResponse(responseCode = "400", description = "Validation error"),
+    @ApiResponse(
+        responseCode = "409",
+        description = "A request with this Idempotency-Key is still in progress",
+        content = @Content),
+    @ApiResponse(
+        responseCode = "422",
+        description = "Idempotency-Key reused with a different request",
+        content = @Content),
+    @ApiResponse(
+        responseCode = "429",
+        description = "Password hashing saturated; retry later",
+        content = @Content)
   })
-  public ResponseEntity<ClaimResponse> create(@Valid @RequestBody ClaimRequest req) {
-    Claim created =
-        service.create(
-            req.getTitle(),
-            req.getDescription(),
-            req.getStatus(),
-            req.getPhotoIds(),
-            req.getTagIds(),
-            req.getAmount(),
-            req.getCurrency(),
-            toDomain(req.getPayout()),
-            req.getRecipient(),
-            req.getPassword(),
-            passwordEncoder,
-            req.getExpenseAt());
-    return ResponseEntity.ok(toResponse(created));
+  public ResponseEntity<ClaimResponse> create(
+      @Valid @RequestBody ClaimRequest req,
+      @Parameter(description = "Client-generated key, e.g. a UUID, reused on retries")
+          @RequestHeader(value = IdempotencyService.HEADER, required = false)
+          String idempotencyKey,
+      Authentication auth,
+      HttpServletRequest request) {
+    IdempotencyService.Result<Claim> result =
+        idempotency.run(
+            Idempotency.scope("claims", auth, request),
+            idempotencyKey,
+            idempotencyKey == null ? null : idempotency.fingerprint(req),
+            () ->
+                service.create(
+                    req.getTitle(),
+                    req.getDescription(),
+                    req.getStatus(),
+                    req.getPhotoIds(),
+                    req.getTagIds(),
+                    req.getAmount(),
+                    req.getCurrency(),
+                    toDomain(req.getPayout()),
+                    req.getRecipient(),
+                    req.getPassword(),
+                    passwordEncoder,
+                    req.getExpenseAt()),
+            Claim::getId,
+            service::findById);
+    return Idempotency.respond(result).body(toResponse(result.value()));
   }
 
   @PatchMapping("/{id}")
   @Operation(
       summary = "Patch claim",
       description =
-          "Anonymous may update limited fields with password; privileged token required for other fields.")
+          "Anonymous may update limited fields with password or a claim access token; privileged"
+              + " token required for other fields. Send the ETag as If-Match to reject the write if the claim changed.")
   @ApiResponses({
     @ApiResponse(responseCode = "200", description = "Updated"),
     @ApiResponse(responseCode = "400", description = "Validation error"),
@@ -135,11 +424,21 @@ public class ClaimController {
         responseCode = "401",
         description = "Unauthorized (if using token)",
         content = @Content),
-    @ApiResponse(responseCode = "403", description = "Not allowed", content = @Content)
+    @ApiResponse(responseCode = "403", description = "Not allowed", content = @Content),
+    @ApiResponse(
+        responseCode = "409",
+        description = "Status changed concurrently; transition no longer allowed",
+        content = @Content),
+    @ApiResponse(
+        responseCode = "412",
+        description = "If-Match does not match the current version",
+        content = @Content)
   })
-  public ClaimResponse patch(
-      @PathVariable String id, @RequestBody ClaimPatchRequest req, Authentication auth) {
-    Claim existing = service.findById(id);
+  public ResponseEntity<ClaimResponse> patch(
+      @PathVariable String id,
+      @RequestBody ClaimPatchRequest req,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      Authentication auth) {
     boolean privileged =
         auth != null
             && auth.isAuthenticated()
@@ -147,11 +446,17 @@ public class ClaimController {
             && auth.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .anyMatch(a -> a.equals("SCOPE_CLAIM_WRITE"));
-    boolean passwordOkOrNotSet =
-        existing.getPasswordHash() == null
-            || (req.getPassword() != null
-                && passwordEncoder.matches(req.getPassword(), existing.getPasswordHash()));
-    boolean allowUserStatusChange = !privileged && passwordOkOrNotSet;
+    // Privileged writes go straight to the conditional update; only the password check needs a read
+    boolean allowUserStatusChange = ClaimAccessTokens.grants(auth, id);
+    if (!privileged && !allowUserStatusChange) {
+      Claim existing = service.findById(id);
+      allowUserStatusChange =
+          existing.getPasswordHash() == null || passwordMatches(existing, req.getPassword());
+    }
+    // Wrong or missing password: refuse before anything, even an empty patch, echoes the claim
+    if (!privileged && !allowUserStatusChange) {
+      throw new org.springframework.security.access.AccessDeniedException("password invalid");
+    }
 
     ClaimService.Patch patch =
         new ClaimService.Patch(
@@ -162,9 +467,88 @@ public class ClaimController {
             req.getRecipient(),
             req.getTitle(),
             req.getDescription(),
-            req.getExpenseAt());
+            req.getExpenseAt(),
+            ETags.expectedVersion(ifMatch));
     Claim updated = service.patch(id, patch, privileged, allowUserStatusChange);
-    return toResponse(updated);
+    return withETag(updated);
+  }
+
+  @PutMapping("/{id}")
+  @Operation(
+      summary = "Update claim",
+      description =
+          "Requires CLAIM_WRITE scope. Replaces title and description (an omitted description is"
+              + " cleared); status, photos and tags are kept when omitted. A status change must be"
+              + " an allowed transition. Send the ETag as If-Match to reject the write if the claim"
+              + " changed.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "Updated"),
+    @ApiResponse(responseCode = "400", description = "Validation error"),
+    @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content),
+    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content),
+    @ApiResponse(responseCode = "404", description = "Not found"),
+    @ApiResponse(
+        responseCode = "409",
+        description = "Status transition not allowed, or claim changed while being updated",
+        content = @Content),
+    @ApiResponse(
+        responseCode = "412",
+        description = "If-Match does not match the current version",
+        content = @Content)
+  })
+  @SecurityRequirement(name = "bearerAuth")
+  public ResponseEntity<ClaimResponse> update(
+      @PathVariable String id,
+      @Valid @RequestBody ClaimUpdateRequest req,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    Claim updated =
+        service.update(
+            id,
+            req.getTitle(),
+            req.getDescription(),
+            req.getStatus(),
+            req.getPhotoIds(),
+            req.getTagIds(),
+            ETags.expectedVersion(ifMatch));
+    return withETag(updated);
+  }
+
+  @PostMapping("/bulk-transition")
+  @Operation(
+      summary = "Bulk status transition",
+      description =
+          "Requires CLAIM_WRITE scope. Applies the admin transition rules to each claim and reports"
+              + " a per-claim outcome; claims that cannot move are left untouched.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "Per-claim outcomes"),
+    @ApiResponse(responseCode = "400", description = "Validation error"),
+    @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content),
+    @ApiResponse(
+        responseCode = "403",
+        description = "Forbidden, or no status may move to the target",
+        content = @Content)
+  })
+  @SecurityRequirement(name = "bearerAuth")
+  public ClaimBulkTransitionResponse bulkTransition(
+      @Valid @RequestBody ClaimBulkTransitionRequest req) {
+    List<ClaimService.TransitionResult> results =
+        service.bulkTransition(req.getIds(), req.getStatus());
+    return ClaimBulkTransitionResponse.builder()
+        .applied(
+            results.stream()
+                .filter(r -> r.outcome() == ClaimService.TransitionOutcome.APPLIED)
+                .count())
+        .results(
+            results.stream()
+                .map(
+                    r ->
+                        ClaimBulkTransitionResponse.Result.builder()
+                            .id(r.id())
+                            .outcome(r.outcome())
+                            .status(r.status())
+                            .build())
+                .collect(Collectors.toList()))
+        .build();
   }
 
   @DeleteMapping("/{id}")
@@ -184,9 +568,61 @@ public class ClaimController {
     return ResponseEntity.noContent().build();
   }
 
+  // Verifies on the bounded hashing pool and upgrades hashes made at a lower strength
+  // Reads are open to CLAIM_READ/CLAIM_WRITE holders, a claim access token, or the claim password
+  private void authorizeRead(Claim head, String id, String password, Authentication auth) {
+    boolean hasPassword = head.getPasswordHash() != null && !head.getPasswordHash().isBlank();
+    boolean privileged =
+        auth != null
+            && auth.isAuthenticated()
+            && auth.getAuthorities() != null
+            && auth.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .anyMatch(a -> a.equals("SCOPE_CLAIM_READ") || a.equals("SCOPE_CLAIM_WRITE"));
+    if (hasPassword && !privileged && !ClaimAccessTokens.grants(auth, id)) {
+      if (!passwordMatches(head, password)) {
+        throw new org.springframework.security.access.AccessDeniedException(
+            "password required or invalid");
+      }
+    }
+  }
+
+  private boolean passwordMatches(Claim c, String password) {
+    if (password == null
+        || password.isBlank()
+        || !passwordEncoder.matches(password, c.getPasswordHash())) {
+      return false;
+    }
+    service.upgradePasswordHash(c.getId(), c.getPasswordHash(), password, passwordEncoder);
+    return true;
+  }
+
+  private ResponseEntity<ClaimResponse> withETag(Claim c) {
+    return withETag(c, toResponse(c));
+  }
+
+  // Validators come from the stored claim even when the body is a sparse fieldset
+  private ResponseEntity<ClaimResponse> withETag(Claim validators, ClaimResponse body) {
+    ResponseEntity.BodyBuilder ok = ResponseEntity.ok().cacheControl(ETags.REVALIDATE);
+    if (validators.getVersion() != null) {
+      ok.eTag(ETags.of(validators.getVersion(), body.getFields()));
+    }
+    if (validators.getUpdatedAt() != null) ok.lastModified(validators.getUpdatedAt());
+    return ok.body(body);
+  }
+
   private ClaimResponse toResponse(Claim c) {
+    return toResponse(c, null);
+  }
+
+  // Fields outside a sparse selection were never loaded; they are left out of the JSON
+  private ClaimResponse toResponse(Claim c, Set<String> fields) {
+    boolean allPhotos = fields == null || fields.contains("photos");
+    boolean allTags = fields == null || fields.contains("tags");
     return ClaimResponse.builder()
+        .fields(fields)
         .id(c.getId())
+        .version(c.getVersion())
         .title(c.getTitle())
         .description(c.getDescription())
         .status(c.getStatus())
@@ -208,16 +644,70 @@ public class ClaimController {
                     .bankAddress(c.getPayout().getBankAddress())
                     .build())
         .photos(
-            c.getPhotos() == null
-                ? List.of()
-                : c.getPhotos().stream().map(this::toResponse).collect(Collectors.toList()))
+            !allPhotos
+                ? null
+                : c.getPhotos() == null
+                    ? List.of()
+                    : c.getPhotos().stream().map(this::toResponse).collect(Collectors.toList()))
         .tags(
-            c.getTags() == null
-                ? List.of()
-                : c.getTags().stream().map(this::toResponse).collect(Collectors.toList()))
+            !allTags
+                ? null
+                : c.getTags() == null
+                    ? List.of()
+                    : c.getTags().stream().map(this::toResponse).collect(Collectors.toList()))
         .build();
   }
 
+  private ClaimService.Filter toFilter(ClaimFilterRequest f) {
+    return new ClaimService.Filter(
+        f.getStatus(),
+        f.getCurrency(),
+        f.getTagId(),
+        f.getCreatedFrom(),
+        f.getCreatedTo(),
+        f.getExpenseFrom(),
+        f.getExpenseTo(),
+        f.getAmountMin(),
+        f.getAmountMax());
+  }
+
+  private String toNdjsonLine(Claim c) throws IOException {
+    return objectMapper.writeValueAsString(toResponse(c)) + "\n";
+  }
+
+  private String toCsvRow(Claim c) {
+    String tags =
+        c.getTags() == null
+            ? ""
+            : c.getTags().stream().map(Tag::getLabel).collect(Collectors.joining(";"));
+    return String.join(
+            ",",
+            csv(c.getId()),
+            csv(c.getStatus() != null ? c.getStatus().name() : null),
+            csv(c.getCreatedAt() != null ? c.getCreatedAt().toString() : null),
+            csv(c.getExpenseAt() != null ? c.getExpenseAt().toString() : null),
+            csvText(c.getTitle()),
+            csvText(c.getDescription()),
+            csvText(c.getRecipient()),
+            csv(c.getAmount() != null ? c.getAmount().toPlainString() : null),
+            csv(c.getCurrency() != null ? c.getCurrency().name() : null),
+            csvText(tags))
+        + "\r\n";
+  }
+
+  // User-supplied text: neutralise spreadsheet formulas before quoting
+  private static String csvText(String v) {
+    if (v != null && !v.isEmpty() && "=+-@\t\r".indexOf(v.charAt(0)) >= 0) v = "'" + v;
+    return csv(v);
+  }
+
+  private static String csv(String v) {
+    if (v == null) return "";
+    if (v.indexOf(',') < 0 && v.indexOf('"') < 0 && v.indexOf('\n') < 0 && v.indexOf('\r') < 0)
+      return v;
+    return '"' + v.replace("\"", "\"\"") + '"';
+  }
+
   private org.acssz.ezclaim.domain.PayoutInfo toDomain(ClaimRequest.PayoutInfo p) {
     if (p == null) return null;
     return org.acssz.ezclaim.domain.PayoutInfo.builder()
@@ -236,6 +726,12 @@ public class ClaimController {
         .bucket(p.getBucket())
         .key(p.getKey())
         .uploadedAt(p.getUploadedAt())
+        .size(p.getSize())
+        .contentType(p.getContentType())
+        .width(p.getWidth())
+        .height(p.getHeight())
+        .variantStatus(p.getVariantStatus() != null ? p.getVariantStatus().name() : null)
+        .variants(p.getVariants() != null ? List.copyOf(p.getVariants().keySet()) : List.of())
         .build();
   }
 
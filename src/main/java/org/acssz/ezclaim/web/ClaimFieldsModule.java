@@ -0,0 +1,55 @@
+package org.acssz.ezclaim.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.acssz.ezclaim.web.dto.ClaimResponse;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes a {@link ClaimResponse} built for a sparse fieldset ({@code fields=}) with just the
+ * selected properties, while a full response keeps every property, nulls included. Picked up by the
+ * application's ObjectMapper as a module bean, so JSON, NDJSON and event-stream output agree.
+ */
+@Component
+class ClaimFieldsModule extends SimpleModule {
+
+  ClaimFieldsModule() {
+    super("ClaimFieldsModule");
+    setSerializerModifier(
+        new BeanSerializerModifier() {
+          @Override
+          public List<BeanPropertyWriter> changeProperties(
+              SerializationConfig config,
+              BeanDescription description,
+              List<BeanPropertyWriter> properties) {
+            if (description.getBeanClass() != ClaimResponse.class) return properties;
+            List<BeanPropertyWriter> selectable = new ArrayList<>(properties.size());
+            for (BeanPropertyWriter p : properties) selectable.add(new SelectedOnly(p));
+            return selectable;
+          }
+        });
+  }
+
+  private static final class SelectedOnly extends BeanPropertyWriter {
+    SelectedOnly(BeanPropertyWriter base) {
+      super(base);
+    }
+
+    @Override
+    public void serializeAsField(Object bean, JsonGenerator gen, SerializerProvider provider)
+        throws Exception {
+      Set<String> fields = ((ClaimResponse) bean).getFields();
+      if (fields == null || fields.contains(getName())) {
+        super.serializeAsField(bean, gen, provider);
+      }
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package org.acssz.ezclaim.web;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import org.acssz.ezclaim.service.PreconditionFailedException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/** Strong ETags derived from a document's optimistic-locking version or change timestamp. */
+final class ETags {
+  // Clients may keep a copy but must revalidate it (cheaply, via If-None-Match) before use
+  static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+  private ETags() {}
+
+  static String of(Long version) {
+    return version == null ? null : of(version.toString());
+  }
+
+  /**
+   * ETag of one representation of a versioned document: the version, followed by the selected field
+   * names for a sparse one, so a full and a sparse body never share a validator.
+   */
+  static String of(Long version, Set<String> fields) {
+    if (version == null || fields == null) return of(version);
+    return of(version + ";" + String.join("+", new TreeSet<>(fields)));
+  }
+
+  static String of(String fingerprint) {
+    return fingerprint == null ? null : "\"" + fingerprint + "\"";
+  }
+
+  static String of(Instant changedAt) {
+    return changedAt == null ? null : of(changedAt.toEpochMilli());
+  }
+
+  /** Version named by an If-Match header; null when absent or {@code *}. */
+  static Long expectedVersion(String ifMatch) {
+    if (ifMatch == null || ifMatch.isBlank()) return null;
+    String tag = ifMatch.trim();
+    if (tag.equals("*")) return null;
+    if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+      String value = tag.substring(1, tag.length() - 1);
+      // A sparse representation's tag names the same version
+      int fields = value.indexOf(';');
+      try {
+        return Long.parseLong(fields < 0 ? value : value.substring(0, fields));
+      } catch (NumberFormatException ignored) {
+        // fall through: cannot match any version we issued
+      }
+    }
+    throw new PreconditionFailedException("If-Match does not match the current version");
+  }
+
+  /**
+   * Whether the client's copy is current. If-None-Match takes precedence; If-Modified-Since is only
+   * consulted without it, at the one-second resolution of HTTP dates.
+   */
+  static boolean notModified(HttpHeaders request, String etag, Instant lastModified) {
+    List<String> ifNoneMatch = request.getIfNoneMatch();
+    if (!ifNoneMatch.isEmpty()) {
+      return etag != null
+          && ifNoneMatch.stream()
+              .map(t -> t.startsWith("W/") ? t.substring(2) : t)
+              .anyMatch(t -> t.equals("*") || t.equals(etag));
+    }
+    long since = request.getIfModifiedSince();
+    return since >= 0 && lastModified != null && lastModified.getEpochSecond() * 1000 <= since;
+  }
+
+  static <T> ResponseEntity<T> notModifiedResponse(String etag, Instant lastModified) {
+    ResponseEntity.BodyBuilder b =
+        ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE);
+    if (etag != null) b.eTag(etag);
+    if (lastModified != null) b.lastModified(lastModified);
+    return b.build();
+  }
+}
@@ -2,7 +2,14 @@ package org.acssz.ezclaim.web;
 
 import java.util.HashMap;
 import java.util.Map;
+import org.acssz.ezclaim.service.BadRequestException;
+import org.acssz.ezclaim.service.ConflictException;
+import org.acssz.ezclaim.service.IdempotencyKeyMismatchException;
+import org.acssz.ezclaim.service.PreconditionFailedException;
 import org.acssz.ezclaim.service.ResourceNotFoundException;
+import org.acssz.ezclaim.service.TooManyRequestsException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -21,6 +28,49 @@ public class GlobalExceptionHandler {
     return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
   }
 
+  @ExceptionHandler({ConflictException.class, OptimisticLockingFailureException.class})
+  public ResponseEntity<?> handleConflict(RuntimeException ex) {
+    Map<String, Object> body = new HashMap<>();
+    body.put("error", "conflict");
+    body.put("message", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+  }
+
+  @ExceptionHandler(IdempotencyKeyMismatchException.class)
+  public ResponseEntity<?> handleIdempotencyKeyMismatch(IdempotencyKeyMismatchException ex) {
+    Map<String, Object> body = new HashMap<>();
+    body.put("error", "idempotency_key_mismatch");
+    body.put("message", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(body);
+  }
+
+  @ExceptionHandler(PreconditionFailedException.class)
+  public ResponseEntity<?> handlePreconditionFailed(PreconditionFailedException ex) {
+    Map<String, Object> body = new HashMap<>();
+    body.put("error", "precondition_failed");
+    body.put("message", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(body);
+  }
+
+  @ExceptionHandler(TooManyRequestsException.class)
+  public ResponseEntity<?> handleTooManyRequests(TooManyRequestsException ex) {
+    Map<String, Object> body = new HashMap<>();
+    body.put("error", "too_many_requests");
+    body.put("message", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body(body);
+  }
+
+  // Only input errors we raised ourselves; any other exception's message is not meant for clients
+  @ExceptionHandler(BadRequestException.class)
+  public ResponseEntity<?> handleBadRequest(BadRequestException ex) {
+    Map<String, Object> body = new HashMap<>();
+    body.put("error", "bad_request");
+    body.put("message", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
+  }
+
   @ExceptionHandler(MethodArgumentNotValidException.class)
   public ResponseEntity<?> handleValidation(MethodArgumentNotValidException ex) {
     Map<String, Object> body = new HashMap<>();
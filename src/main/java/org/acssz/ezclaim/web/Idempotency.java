@@ -0,0 +1,30 @@
+package org.acssz.ezclaim.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.acssz.ezclaim.service.IdempotencyService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+
+/** Key scoping and response headers for requests made with an Idempotency-Key. */
+final class Idempotency {
+  /** Set on a response answered from an earlier request with the same key. */
+  static final String REPLAYED = "Idempotent-Replayed";
+
+  private Idempotency() {}
+
+  /**
+   * The {@link IdempotencyService#run} scope for {@code resource} and this caller: the principal
+   * when authenticated, else the client IP (as the rate limiter sees it).
+   */
+  static String scope(String resource, Authentication auth, HttpServletRequest request) {
+    return auth != null && auth.isAuthenticated()
+        ? resource + ":user/" + auth.getName()
+        : resource + ":ip/" + request.getRemoteAddr();
+  }
+
+  static ResponseEntity.BodyBuilder respond(IdempotencyService.Result<?> result) {
+    ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+    if (result.replayed()) ok.header(REPLAYED, "true");
+    return ok;
+  }
+}
@@ -0,0 +1,125 @@
+package org.acssz.ezclaim.web;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.time.Duration;
+import java.time.Instant;
+import lombok.RequiredArgsConstructor;
+import org.acssz.ezclaim.service.ResourceNotFoundException;
+import org.acssz.ezclaim.storage.LocalObjectStore;
+import org.acssz.ezclaim.storage.NoSuchObjectException;
+import org.acssz.ezclaim.storage.ObjectTooLargeException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// The local object store's stand-in for presigned S3 URLs: the links it signs point here, and the
+// signature is their only credential
+@RestController
+@ConditionalOnProperty(name = "app.objectstore.backend", havingValue = "local")
+@RequestMapping(LocalObjectStore.PATH)
+@RequiredArgsConstructor
+@Tag(name = "Objects", description = "Signed links of the local object store")
+public class LocalObjectController {
+  private final LocalObjectStore store;
+
+  @GetMapping("/{bucket}/{*key}")
+  @Operation(
+      summary = "Download an object",
+      description = "Public with a link from download-url or content; streams the stored file.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "Object content"),
+    @ApiResponse(responseCode = "403", description = "Bad or expired link", content = @Content),
+    @ApiResponse(responseCode = "404", description = "Not found", content = @Content)
+  })
+  public ResponseEntity<StreamingResponseBody> download(
+      @PathVariable String bucket,
+      @PathVariable("key") String path,
+      @RequestParam long expires,
+      @RequestParam String signature) {
+    String key = path.substring(1); // {*key} keeps the leading slash
+    if (!store.verify("GET", bucket, key, expires, null, signature)) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+    LocalObjectStore.LocalObject object;
+    try {
+      object = store.read(bucket, key);
+    } catch (NoSuchObjectException e) {
+      throw new ResourceNotFoundException(e.getMessage());
+    }
+    StreamingResponseBody body =
+        out -> {
+          try (object) {
+            object.transferTo(Channels.newChannel(out));
+          }
+        };
+    // The link is the credential: let the client keep the bytes no longer than the link is valid
+    Duration maxAge = Duration.between(Instant.now(), Instant.ofEpochSecond(expires));
+    return ResponseEntity.ok()
+        .contentType(
+            object.contentType() != null
+                ? MediaType.parseMediaType(object.contentType())
+                : MediaType.APPLICATION_OCTET_STREAM)
+        .contentLength(object.size())
+        .eTag(object.etag())
+        .cacheControl(
+            maxAge.isNegative()
+                ? CacheControl.noStore()
+                : CacheControl.maxAge(maxAge).cachePrivate())
+        .body(body);
+  }
+
+  @PutMapping("/{bucket}/{*key}")
+  @Operation(
+      summary = "Upload an object",
+      description =
+          "Public with a link from presign-upload; send the headers it returned. Replaces the"
+              + " object atomically once the whole body has arrived.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "Stored"),
+    @ApiResponse(responseCode = "400", description = "Invalid bucket or key", content = @Content),
+    @ApiResponse(responseCode = "403", description = "Bad or expired link", content = @Content),
+    @ApiResponse(responseCode = "413", description = "Too large", content = @Content)
+  })
+  public ResponseEntity<Void> upload(
+      @PathVariable String bucket,
+      @PathVariable("key") String path,
+      @RequestParam long expires,
+      @RequestParam String signature,
+      @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+      HttpServletRequest request)
+      throws IOException {
+    String key = path.substring(1);
+    // Like S3: a link signed for a content type needs that header, one signed without takes any
+    if (!store.verify("PUT", bucket, key, expires, contentType, signature)
+        && !store.verify("PUT", bucket, key, expires, null, signature)) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+    if (request.getContentLengthLong() > store.maxObjectBytes()) {
+      return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+    }
+    try {
+      String etag = store.write(bucket, key, request.getInputStream(), store.maxObjectBytes());
+      return ResponseEntity.ok().eTag(etag).build();
+    } catch (ObjectTooLargeException e) {
+      return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+    }
+  }
+}
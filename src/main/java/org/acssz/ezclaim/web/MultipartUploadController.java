@@ -0,0 +1,158 @@
+package org.acssz.ezclaim.web;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import java.time.Duration;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.acssz.ezclaim.service.MultipartUploadService;
+import org.acssz.ezclaim.web.dto.MultipartCompleteRequest;
+import org.acssz.ezclaim.web.dto.MultipartPartResponse;
+import org.acssz.ezclaim.web.dto.MultipartPartsRequest;
+import org.acssz.ezclaim.web.dto.MultipartUploadResponse;
+import org.acssz.ezclaim.web.dto.PhotoUploadRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+// Large uploads: start, presign parts, PUT them (resumable, in parallel), complete; then create the
+// photo record as for a single upload
+@RestController
+@ConditionalOnProperty(name = "app.objectstore.backend", havingValue = "s3", matchIfMissing = true)
+@RequestMapping("/api/photos/multipart")
+@RequiredArgsConstructor
+@Validated
+@Tag(name = "Photos", description = "Manage photo records and presigned URLs")
+public class MultipartUploadController {
+  private final MultipartUploadService service;
+
+  @PostMapping
+  @Operation(
+      summary = "Start multipart upload",
+      description =
+          "Public: for large files. Every part but the last must be at least 5 MiB; at most 10000"
+              + " parts.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "OK"),
+    @ApiResponse(responseCode = "400", description = "Validation error")
+  })
+  public MultipartUploadResponse start(@Valid @RequestBody PhotoUploadRequest req) {
+    var started = service.initiate(req.getBucket(), req.getKey(), req.getContentType());
+    return MultipartUploadResponse.builder()
+        .bucket(started.bucket())
+        .key(started.key())
+        .uploadId(started.uploadId())
+        .build();
+  }
+
+  @PostMapping("/{uploadId}/parts")
+  @Operation(
+      summary = "Presign part uploads",
+      description = "Public: presigned PUT URLs for up to 100 parts; the PUT returns the ETag.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "OK"),
+    @ApiResponse(responseCode = "400", description = "Validation error")
+  })
+  public List<MultipartPartResponse> signParts(
+      @PathVariable String uploadId, @Valid @RequestBody MultipartPartsRequest req) {
+    return service
+        .signParts(
+            req.getBucket(),
+            req.getKey(),
+            uploadId,
+            req.getPartNumbers(),
+            req.getExpiresInSeconds() != null
+                ? Duration.ofSeconds(req.getExpiresInSeconds())
+                : null)
+        .stream()
+        .map(
+            p ->
+                MultipartPartResponse.builder()
+                    .partNumber(p.partNumber())
+                    .url(p.url().toString())
+                    .expiresAt(p.expiresAt())
+                    .build())
+        .toList();
+  }
+
+  @GetMapping("/{uploadId}/parts")
+  @Operation(
+      summary = "List uploaded parts",
+      description = "Public: parts already stored, so an interrupted upload resumes with the rest.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "OK"),
+    @ApiResponse(responseCode = "404", description = "Upload not found")
+  })
+  public List<MultipartPartResponse> listParts(
+      @PathVariable String uploadId,
+      @RequestParam(required = false) String bucket,
+      @RequestParam String key) {
+    return service.listParts(bucket, key, uploadId).stream()
+        .map(
+            p ->
+                MultipartPartResponse.builder()
+                    .partNumber(p.partNumber())
+                    .etag(p.etag())
+                    .size(p.size())
+                    .build())
+        .toList();
+  }
+
+  @PostMapping("/{uploadId}/complete")
+  @Operation(
+      summary = "Complete multipart upload",
+      description = "Public: assembles the parts into the object; then create the photo record.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "OK"),
+    @ApiResponse(
+        responseCode = "400",
+        description = "Validation error, or parts missing, too small or with wrong ETags"),
+    @ApiResponse(responseCode = "404", description = "Upload not found")
+  })
+  public MultipartUploadResponse complete(
+      @PathVariable String uploadId, @Valid @RequestBody MultipartCompleteRequest req) {
+    MultipartUploadService.Completed done =
+        service.complete(
+            req.getBucket(),
+            req.getKey(),
+            uploadId,
+            req.getParts().stream()
+                .map(p -> new MultipartUploadService.Part(p.getPartNumber(), p.getEtag(), null))
+                .toList());
+    return MultipartUploadResponse.builder()
+        .bucket(done.bucket())
+        .key(done.key())
+        .uploadId(uploadId)
+        .build();
+  }
+
+  @DeleteMapping("/{uploadId}")
+  @Operation(summary = "Abort multipart upload", description = "Public: discards uploaded parts.")
+  @ApiResponses({
+    @ApiResponse(
+        responseCode = "204",
+        description = "Aborted",
+        content = @Content(schema = @Schema(hidden = true))),
+    @ApiResponse(responseCode = "404", description = "Upload not found")
+  })
+  public ResponseEntity<Void> abort(
+      @PathVariable String uploadId,
+      @RequestParam(required = false) String bucket,
+      @RequestParam String key) {
+    service.abort(bucket, key, uploadId);
+    return ResponseEntity.noContent().build();
+  }
+}
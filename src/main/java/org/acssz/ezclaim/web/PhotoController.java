@@ -1,29 +1,47 @@
 package org.acssz.ezclaim.web;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.net.URI;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import org.acssz.ezclaim.domain.Photo;
+import org.acssz.ezclaim.domain.PhotoVariant;
+import org.acssz.ezclaim.service.IdempotencyService;
+import org.acssz.ezclaim.service.PhotoGarbageCollector;
 import org.acssz.ezclaim.service.PhotoService;
+import org.acssz.ezclaim.service.ResourceNotFoundException;
+import org.acssz.ezclaim.web.dto.PhotoCreateBatchRequest;
 import org.acssz.ezclaim.web.dto.PhotoCreateRequest;
+import org.acssz.ezclaim.web.dto.PhotoGcResponse;
 import org.acssz.ezclaim.web.dto.PhotoResponse;
+import org.acssz.ezclaim.web.dto.PhotoUploadBatchRequest;
 import org.acssz.ezclaim.web.dto.PhotoUploadRequest;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -35,6 +53,8 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "Photos", description = "Manage photo records and presigned URLs")
 public class PhotoController {
   private final PhotoService service;
+  private final IdempotencyService idempotency;
+  private final ObjectProvider<PhotoGarbageCollector> collector; // s3 backend only
 
   @GetMapping
   @Operation(summary = "List photos", description = "Requires PHOTO_READ scope")
@@ -49,13 +69,26 @@ public class PhotoController {
   }
 
   @GetMapping("/{id}")
-  @Operation(summary = "Get photo by id", description = "Public access")
+  @Operation(
+      summary = "Get photo by id",
+      description = "Public access. Send the ETag as If-None-Match to get 304 when unchanged.")
   @ApiResponses({
     @ApiResponse(responseCode = "200", description = "OK"),
+    @ApiResponse(responseCode = "304", description = "Unchanged", content = @Content),
     @ApiResponse(responseCode = "404", description = "Not found")
   })
-  public PhotoResponse get(@PathVariable String id) {
-    return toResponse(service.get(id));
+  public ResponseEntity<PhotoResponse> get(
+      @PathVariable String id, @RequestHeader HttpHeaders headers) {
+    // Photo records change only when their variants are recorded; that time is their version
+    Photo p = service.get(id);
+    Instant changedAt = p.getUpdatedAt() != null ? p.getUpdatedAt() : p.getUploadedAt();
+    String etag = ETags.of(changedAt);
+    if (ETags.notModified(headers, etag, changedAt)) {
+      return ETags.notModifiedResponse(etag, changedAt);
+    }
+    ResponseEntity.BodyBuilder ok = ResponseEntity.ok().cacheControl(ETags.REVALIDATE);
+    if (etag != null) ok.eTag(etag).lastModified(changedAt);
+    return ok.body(toResponse(p));
   }
 
   @DeleteMapping("/{id}")
@@ -96,45 +129,144 @@ public class PhotoController {
             req.getExpiresInSeconds() != null
                 ? Duration.ofSeconds(req.getExpiresInSeconds())
                 : null);
-    return ResponseEntity.ok(
-        Map.of(
-            "bucket", presigned.bucket(),
-            "key", presigned.key(),
-            "url", presigned.url().toString(),
-            "headers", presigned.headers(),
-            "expiresAt", presigned.expiresAt().toString()));
+    return ResponseEntity.ok(toBody(presigned));
+  }
+
+  @PostMapping("/presign-upload/batch")
+  @Operation(
+      summary = "Presign uploads",
+      description =
+          "Public: presign-upload for up to 20 files in one call; results in request order.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "OK"),
+    @ApiResponse(responseCode = "400", description = "Validation error")
+  })
+  public List<Map<String, Object>> presignUploads(@Valid @RequestBody PhotoUploadBatchRequest req) {
+    return service
+        .signUploads(
+            req.getUploads().stream()
+                .map(
+                    u ->
+                        new PhotoService.UploadTarget(
+                            u.getBucket(),
+                            u.getKey(),
+                            u.getContentType(),
+                            u.getExpiresInSeconds() != null
+                                ? Duration.ofSeconds(u.getExpiresInSeconds())
+                                : null))
+                .toList())
+        .stream()
+        .map(this::toBody)
+        .toList();
   }
 
-  // Step 2: after a successful upload, create a Photo record (or do it in step 1 if you prefer)
+  // Step 2: after a successful upload, create a Photo record; the object must exist by then
   @PostMapping
   @Operation(
       summary = "Create photo record",
-      description = "Public: create a record after uploading.")
+      description =
+          "Public: create a record after uploading. The object is checked once and its size,"
+              + " content type and image dimensions recorded. Send a unique Idempotency-Key to"
+              + " make retries safe: a repeat returns the record created by the first request.")
   @ApiResponses({
-    @ApiResponse(responseCode = "200", description = "Created"),
-    @ApiResponse(responseCode = "400", description = "Validation error")
+    @ApiResponse(responseCode = "200", description = "Created, or replayed for a repeated key"),
+    @ApiResponse(
+        responseCode = "400",
+        description = "Validation error, or the object is missing, empty or too large"),
+    @ApiResponse(
+        responseCode = "409",
+        description = "A request with this Idempotency-Key is still in progress",
+        content = @Content),
+    @ApiResponse(
+        responseCode = "422",
+        description = "Idempotency-Key reused with a different request",
+        content = @Content)
+  })
+  public ResponseEntity<PhotoResponse> create(
+      @Valid @RequestBody PhotoCreateRequest req,
+      @Parameter(description = "Client-generated key, e.g. a UUID, reused on retries")
+          @RequestHeader(value = IdempotencyService.HEADER, required = false)
+          String idempotencyKey,
+      Authentication auth,
+      HttpServletRequest request) {
+    IdempotencyService.Result<Photo> result =
+        idempotency.run(
+            Idempotency.scope("photos", auth, request),
+            idempotencyKey,
+            idempotencyKey == null ? null : idempotency.fingerprint(req),
+            () -> service.createRecord(req.getBucket(), req.getKey()),
+            Photo::getId,
+            service::get);
+    return Idempotency.respond(result).body(toResponse(result.value()));
+  }
+
+  @PostMapping("/batch")
+  @Operation(
+      summary = "Create photo records",
+      description =
+          "Public: create records for up to 20 uploaded objects with one insert; results in request"
+              + " order; one missing or oversized object rejects the batch. Idempotency-Key works as"
+              + " for a single create.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "Created, or replayed for a repeated key"),
+    @ApiResponse(
+        responseCode = "400",
+        description = "Validation error, or an object is missing, empty or too large"),
+    @ApiResponse(
+        responseCode = "409",
+        description = "A request with this Idempotency-Key is still in progress",
+        content = @Content),
+    @ApiResponse(
+        responseCode = "422",
+        description = "Idempotency-Key reused with a different request",
+        content = @Content)
   })
-  public PhotoResponse create(@Valid @RequestBody PhotoCreateRequest req) {
-    Photo p = service.createRecord(req.getBucket(), req.getKey());
-    return toResponse(p);
+  public ResponseEntity<List<PhotoResponse>> createBatch(
+      @Valid @RequestBody PhotoCreateBatchRequest req,
+      @Parameter(description = "Client-generated key, e.g. a UUID, reused on retries")
+          @RequestHeader(value = IdempotencyService.HEADER, required = false)
+          String idempotencyKey,
+      Authentication auth,
+      HttpServletRequest request) {
+    IdempotencyService.Result<List<Photo>> result =
+        idempotency.run(
+            Idempotency.scope("photo-batches", auth, request),
+            idempotencyKey,
+            idempotencyKey == null ? null : idempotency.fingerprint(req),
+            () ->
+                service.createRecords(
+                    req.getPhotos().stream()
+                        .map(p -> new PhotoService.ObjectRef(p.getBucket(), p.getKey()))
+                        .toList()),
+            photos -> String.join(",", photos.stream().map(Photo::getId).toList()),
+            ids -> Arrays.stream(ids.split(",")).map(service::get).toList());
+    return Idempotency.respond(result).body(result.value().stream().map(this::toResponse).toList());
   }
 
   // Get a presigned GET URL to download the object
   @GetMapping("/{id}/download-url")
   @Operation(
       summary = "Presign download",
-      description = "Public: returns a presigned GET URL to download the object.")
+      description =
+          "Public: returns a presigned GET URL to download the object, or one of its variants"
+              + " (thumb 320px, preview 1280px, JPEG). A variant not generated yet falls back to"
+              + " the original.")
   @ApiResponses({
     @ApiResponse(responseCode = "200", description = "OK"),
+    @ApiResponse(responseCode = "400", description = "Unknown variant", content = @Content),
     @ApiResponse(responseCode = "404", description = "Not found")
   })
   public ResponseEntity<?> presignDownload(
-      @PathVariable String id, @RequestParam(required = false) Integer expiresInSeconds) {
+      @PathVariable String id,
+      @RequestParam(required = false) Integer expiresInSeconds,
+      @Parameter(description = "thumb, preview or original (default)")
+          @RequestParam(required = false)
+          String variant) {
     Photo p = service.get(id);
     var signed =
         service.signDownload(
-            p.getBucket(),
-            p.getKey(),
+            p,
+            PhotoVariant.parse(variant),
             expiresInSeconds != null ? Duration.ofSeconds(expiresInSeconds) : null);
     return ResponseEntity.ok(
         Map.of(
@@ -142,12 +274,97 @@ public class PhotoController {
             "expiresAt", signed.expiresAt().toString()));
   }
 
+  // Same URL as download-url, as a redirect the browser can follow and cache directly
+  @GetMapping("/{id}/content")
+  @Operation(
+      summary = "Redirect to photo content",
+      description =
+          "Public: 302 to a presigned GET URL, cacheable for as long as that URL is reused, so an"
+              + " <img src> can point here without a JSON round trip. variant= as for"
+              + " download-url; a fallback to the original is not cached.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "302", description = "Redirect to the object", content = @Content),
+    @ApiResponse(responseCode = "400", description = "Unknown variant", content = @Content),
+    @ApiResponse(responseCode = "404", description = "Not found")
+  })
+  public ResponseEntity<Void> content(
+      @PathVariable String id,
+      @Parameter(description = "thumb, preview or original (default)")
+          @RequestParam(required = false)
+          String variant) {
+    Photo p = service.get(id);
+    PhotoVariant v = PhotoVariant.parse(variant);
+    String key = p.keyFor(v);
+    var signed = service.signDownload(p, v, null);
+    Duration maxAge = Duration.between(Instant.now(), signed.reusableUntil());
+    // Standing in for a variant still being generated: let the next request pick the variant up
+    boolean fallback = v != null && key.equals(p.getKey());
+    CacheControl cache =
+        fallback || maxAge.isNegative() || maxAge.isZero()
+            ? CacheControl.noStore()
+            : CacheControl.maxAge(maxAge).cachePrivate();
+    return ResponseEntity.status(HttpStatus.FOUND)
+        .location(URI.create(signed.url().toString()))
+        .cacheControl(cache)
+        .build();
+  }
+
+  @PostMapping("/gc")
+  @Operation(
+      summary = "Collect orphaned photos",
+      description =
+          "Requires PHOTO_DELETE scope. Finds photo records no claim references and bucket objects"
+              + " no record owns, both older than the grace period, and deletes them unless"
+              + " dryRun. The same job runs nightly; only one non-dry run at a time.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "OK"),
+    @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content),
+    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content),
+    @ApiResponse(responseCode = "404", description = "Not on the s3 backend", content = @Content),
+    @ApiResponse(
+        responseCode = "409",
+        description = "Already running on another node",
+        content = @Content)
+  })
+  @SecurityRequirement(name = "bearerAuth")
+  public PhotoGcResponse collectGarbage(@RequestParam(defaultValue = "true") boolean dryRun) {
+    PhotoGarbageCollector gc = collector.getIfAvailable();
+    if (gc == null) {
+      throw new ResourceNotFoundException("Photo garbage collection needs the s3 object store");
+    }
+    PhotoGarbageCollector.Report r = gc.collect(dryRun);
+    return PhotoGcResponse.builder()
+        .dryRun(r.dryRun())
+        .recordsScanned(r.recordsScanned())
+        .recordsOrphaned(r.recordsOrphaned())
+        .objectsScanned(r.objectsScanned())
+        .objectsOrphaned(r.objectsOrphaned())
+        .bytesOrphaned(r.bytesOrphaned())
+        .sample(r.sample())
+        .build();
+  }
+
+  private Map<String, Object> toBody(PhotoService.PresignedPut presigned) {
+    return Map.of(
+        "bucket", presigned.bucket(),
+        "key", presigned.key(),
+        "url", presigned.url().toString(),
+        "headers", presigned.headers(),
+        "expiresAt", presigned.expiresAt().toString());
+  }
+
   private PhotoResponse toResponse(Photo p) {
     return PhotoResponse.builder()
         .id(p.getId())
         .bucket(p.getBucket())
         .key(p.getKey())
         .uploadedAt(p.getUploadedAt())
+        .size(p.getSize())
+        .contentType(p.getContentType())
+        .width(p.getWidth())
+        .height(p.getHeight())
+        .variantStatus(p.getVariantStatus() != null ? p.getVariantStatus().name() : null)
+        .variants(p.getVariants() != null ? List.copyOf(p.getVariants().keySet()) : List.of())
         .build();
   }
 }
@@ -0,0 +1,77 @@
+package org.acssz.ezclaim.web;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.acssz.ezclaim.domain.ClaimRollup;
+import org.acssz.ezclaim.domain.Currency;
+import org.acssz.ezclaim.service.ClaimRollupService;
+import org.acssz.ezclaim.web.dto.ClaimRollupResponse;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+@Validated
+@Tag(name = "Reports", description = "Dashboard totals over claims")
+public class ReportController {
+  private final ClaimRollupService rollups;
+
+  @GetMapping("/claims")
+  @Operation(
+      summary = "Claim totals",
+      description =
+          "Requires CLAIM_READ scope. Count and amount total per bucket of the given dimension,"
+              + " split by currency; read from pre-aggregated rollups.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "OK"),
+    @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content),
+    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content)
+  })
+  @SecurityRequirement(name = "bearerAuth")
+  public List<ClaimRollupResponse> claims(
+      @RequestParam(defaultValue = "STATUS") ClaimRollup.Dimension dimension,
+      @RequestParam(required = false) Currency currency) {
+    return rollups.buckets(dimension, currency).stream().map(this::toResponse).toList();
+  }
+
+  @PostMapping("/claims/rebuild")
+  @Operation(
+      summary = "Rebuild claim totals",
+      description =
+          "Requires CLAIM_WRITE scope. Recomputes all rollups from the claims collection.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "Rebuilt"),
+    @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content),
+    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content),
+    @ApiResponse(
+        responseCode = "409",
+        description = "Another rebuild is already running",
+        content = @Content)
+  })
+  @SecurityRequirement(name = "bearerAuth")
+  public Map<String, Long> rebuild() {
+    return Map.of("buckets", rollups.rebuild());
+  }
+
+  private ClaimRollupResponse toResponse(ClaimRollup r) {
+    return ClaimRollupResponse.builder()
+        .dimension(r.getDimension())
+        .key(r.getKey())
+        .currency(r.getCurrency())
+        .count(r.getCount())
+        .total(r.getTotal())
+        .build();
+  }
+}
@@ -13,6 +13,7 @@ import org.acssz.ezclaim.domain.Tag;
 import org.acssz.ezclaim.service.TagService;
 import org.acssz.ezclaim.web.dto.TagRequest;
 import org.acssz.ezclaim.web.dto.TagResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -21,6 +22,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -33,10 +35,21 @@ public class TagController {
   private final TagService service;
 
   @GetMapping
-  @Operation(summary = "List tags", description = "Public access")
-  @ApiResponses({@ApiResponse(responseCode = "200", description = "OK")})
-  public List<TagResponse> list() {
-    return service.list().stream().map(this::toResponse).toList();
+  @Operation(
+      summary = "List tags",
+      description = "Public access. Send the ETag as If-None-Match to get 304 when unchanged.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "OK"),
+    @ApiResponse(responseCode = "304", description = "Unchanged", content = @Content)
+  })
+  public ResponseEntity<List<TagResponse>> list(@RequestHeader HttpHeaders headers) {
+    // No Last-Modified: a delete does not advance any timestamp, so only the ETag is reliable
+    String etag = ETags.of(service.listVersion());
+    if (ETags.notModified(headers, etag, null)) return ETags.notModifiedResponse(etag, null);
+    return ResponseEntity.ok()
+        .cacheControl(ETags.REVALIDATE)
+        .eTag(etag)
+        .body(service.list().stream().map(this::toResponse).toList());
   }
 
   @GetMapping("/{id}")
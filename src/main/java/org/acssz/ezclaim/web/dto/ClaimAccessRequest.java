@@ -0,0 +1,11 @@
+package org.acssz.ezclaim.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(name = "ClaimAccessRequest", description = "Password exchange for a claim access token")
+public class ClaimAccessRequest {
+  @Schema(description = "Claim password; omit for claims without one", example = "s3cret")
+  private String password;
+}
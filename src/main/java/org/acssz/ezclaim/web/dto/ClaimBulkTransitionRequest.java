@@ -0,0 +1,21 @@
+package org.acssz.ezclaim.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.Data;
+import org.acssz.ezclaim.domain.ClaimStatus;
+
+@Data
+@Schema(name = "ClaimBulkTransitionRequest", description = "Move many claims to one status")
+public class ClaimBulkTransitionRequest {
+  @NotEmpty @Size(max = 1000) @Schema(description = "Claim ids (at most 1000)")
+  private List<String> ids;
+
+  @NotNull @Schema(
+      description = "Target status, checked per claim against admin transition rules",
+      example = "PAID")
+  private ClaimStatus status;
+}
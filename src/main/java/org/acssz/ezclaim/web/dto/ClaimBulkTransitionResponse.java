@@ -0,0 +1,32 @@
+package org.acssz.ezclaim.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import lombok.Builder;
+import lombok.Value;
+import org.acssz.ezclaim.domain.ClaimStatus;
+import org.acssz.ezclaim.service.ClaimService;
+
+@Value
+@Builder
+@Schema(name = "ClaimBulkTransitionResponse", description = "Outcome of a bulk status transition")
+public class ClaimBulkTransitionResponse {
+  @Schema(example = "998")
+  long applied;
+
+  List<Result> results;
+
+  @Value
+  @Builder
+  @Schema(name = "ClaimBulkTransitionResult")
+  public static class Result {
+    @Schema(example = "664a0c2f7b1f3c2d9b7c9a10")
+    String id;
+
+    @Schema(description = "APPLIED, NOT_FOUND, NOT_ALLOWED or CONFLICT", example = "APPLIED")
+    ClaimService.TransitionOutcome outcome;
+
+    @Schema(description = "Status after the call (absent if not found)", example = "PAID")
+    ClaimStatus status;
+  }
+}
@@ -0,0 +1,45 @@
+package org.acssz.ezclaim.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import lombok.Data;
+import org.acssz.ezclaim.domain.ClaimStatus;
+import org.acssz.ezclaim.domain.Currency;
+import org.springframework.format.annotation.DateTimeFormat;
+
+@Data
+@Schema(name = "ClaimFilterRequest", description = "Query filters shared by claim list and export")
+public class ClaimFilterRequest {
+  @Schema(description = "Status filter; repeat for several", example = "SUBMITTED")
+  private List<ClaimStatus> status;
+
+  @Schema(example = "CHF")
+  private Currency currency;
+
+  @Schema(description = "Only claims carrying this tag", example = "6650ee08cdb9303e0b73b0a2")
+  private String tagId;
+
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+  @Schema(description = "Created at or after (ISO-8601)", example = "2025-01-01T00:00:00Z")
+  private Instant createdFrom;
+
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+  @Schema(description = "Created at or before (ISO-8601)", example = "2025-12-31T23:59:59Z")
+  private Instant createdTo;
+
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+  @Schema(description = "Expense at or after (ISO-8601)")
+  private Instant expenseFrom;
+
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+  @Schema(description = "Expense at or before (ISO-8601)")
+  private Instant expenseTo;
+
+  @Schema(description = "Minimum amount (inclusive)", example = "10.00")
+  private BigDecimal amountMin;
+
+  @Schema(description = "Maximum amount (inclusive)", example = "500.00")
+  private BigDecimal amountMax;
+}
@@ -0,0 +1,21 @@
+package org.acssz.ezclaim.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+@Schema(name = "ClaimPageResponse", description = "One keyset page of claims, newest first")
+public class ClaimPageResponse {
+  List<ClaimResponse> content;
+
+  @Schema(example = "50")
+  int size;
+
+  @Schema(
+      description = "Opaque cursor for the next page; absent on the last page",
+      example = "MTcyMzQ1NTA2MDAwMDo2NjRhMGMyZjdiMWYzYzJkOWI3YzlhMTA")
+  String nextCursor;
+}
@@ -1,6 +1,7 @@
 package org.acssz.ezclaim.web.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -30,7 +31,7 @@ public class ClaimRequest {
   @Schema(description = "IDs of tags to attach")
   private List<String> tagIds;
 
-  @NotNull @Positive @Schema(description = "Amount to reimburse", example = "199.99")
+  @NotNull @Positive @Digits(integer = 15, fraction = 2) @Schema(description = "Amount to reimburse", example = "199.99")
   private BigDecimal amount;
 
   @Schema(description = "Currency (defaults to CHF)", example = "CHF")
@@ -1,9 +1,11 @@
 package org.acssz.ezclaim.web.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
+import java.util.Set;
 import lombok.Builder;
 import lombok.Value;
 import org.acssz.ezclaim.domain.ClaimStatus;
@@ -11,11 +13,21 @@ import org.acssz.ezclaim.domain.Currency;
 
 @Value
 @Builder
-@Schema(name = "ClaimResponse", description = "Claim representation")
+@Schema(
+    name = "ClaimResponse",
+    description = "Claim representation; with fields=, only the selected fields are present")
 public class ClaimResponse {
+  // The fields= selection this was built for, applied by ClaimFieldsModule; null for every field
+  @JsonIgnore
+  @Schema(hidden = true)
+  Set<String> fields;
+
   @Schema(example = "664a0c2f7b1f3c2d9b7c9a10")
   String id;
 
+  @Schema(description = "Optimistic-locking version; also sent as the ETag", example = "3")
+  Long version;
+
   @Schema(example = "Conference Ticket")
   String title;
 
@@ -0,0 +1,29 @@
+package org.acssz.ezclaim.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.math.BigDecimal;
+import lombok.Builder;
+import lombok.Value;
+import org.acssz.ezclaim.domain.ClaimRollup;
+
+@Value
+@Builder
+@Schema(name = "ClaimRollupResponse", description = "Claim count and amount total for one bucket")
+public class ClaimRollupResponse {
+  @Schema(example = "STATUS")
+  ClaimRollup.Dimension dimension;
+
+  @Schema(
+      description = "Status, currency, tag id or expense month (yyyy-MM) depending on dimension",
+      example = "APPROVED")
+  String key;
+
+  @Schema(example = "CHF")
+  String currency;
+
+  @Schema(example = "12")
+  long count;
+
+  @Schema(example = "1530.40")
+  BigDecimal total;
+}
@@ -0,0 +1,22 @@
+package org.acssz.ezclaim.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+@Schema(name = "ClaimSearchResponse", description = "One page of search hits, best match first")
+public class ClaimSearchResponse {
+  List<ClaimResponse> content;
+
+  @Schema(example = "0")
+  int page;
+
+  @Schema(example = "50")
+  int size;
+
+  @Schema(description = "Whether another page of hits exists", example = "true")
+  boolean hasNext;
+}
@@ -0,0 +1,28 @@
+package org.acssz.ezclaim.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import java.util.List;
+import lombok.Data;
+import org.acssz.ezclaim.domain.ClaimStatus;
+
+@Data
+@Schema(name = "ClaimUpdateRequest", description = "Payload to update a claim (admin)")
+public class ClaimUpdateRequest {
+  @NotBlank @Schema(description = "Short title of the claim", example = "Conference Ticket")
+  private String title;
+
+  @Schema(
+      description = "Longer description; replaced as given, so omitting it clears it",
+      example = "Ticket for QCon 2025")
+  private String description;
+
+  @Schema(description = "New status (optional); must be an allowed admin transition")
+  private ClaimStatus status; // optional; null keeps the current status
+
+  @Schema(description = "IDs of photos to attach (optional; null keeps the current ones)")
+  private List<String> photoIds;
+
+  @Schema(description = "IDs of tags to attach (optional; null keeps the current ones)")
+  private List<String> tagIds;
+}
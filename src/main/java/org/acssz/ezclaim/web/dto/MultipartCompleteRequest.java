@@ -0,0 +1,33 @@
+package org.acssz.ezclaim.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.Data;
+import org.acssz.ezclaim.service.MultipartUploadService;
+
+@Data
+@Schema(name = "MultipartCompleteRequest", description = "Assemble the uploaded parts")
+public class MultipartCompleteRequest {
+  @Schema(description = "Bucket name (optional)")
+  private String bucket; // optional; defaults to app.objectstore.bucket
+
+  @NotBlank @Schema(description = "Object key returned when the upload was started")
+  private String key;
+
+  @NotEmpty @Size(max = MultipartUploadService.MAX_PARTS) @Schema(description = "Every uploaded part with the ETag its PUT returned")
+  private List<@Valid Part> parts;
+
+  @Data
+  public static class Part {
+    @Min(1) @Max(MultipartUploadService.MAX_PARTS) private int partNumber;
+
+    @NotBlank @Schema(example = "\"9b2cf535f27731c974343645a3985328\"")
+    private String etag;
+  }
+}
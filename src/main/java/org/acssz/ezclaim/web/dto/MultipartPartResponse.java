@@ -0,0 +1,28 @@
+package org.acssz.ezclaim.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.Instant;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(
+    name = "MultipartPartResponse",
+    description = "A part to upload (url, expiresAt) or already uploaded (etag, size)")
+public class MultipartPartResponse {
+  @Schema(example = "1")
+  int partNumber;
+
+  String url;
+
+  Instant expiresAt;
+
+  @Schema(example = "\"9b2cf535f27731c974343645a3985328\"")
+  String etag;
+
+  @Schema(example = "5242880")
+  Long size;
+}
@@ -0,0 +1,29 @@
+package org.acssz.ezclaim.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.Data;
+import org.acssz.ezclaim.service.MultipartUploadService;
+
+@Data
+@Schema(name = "MultipartPartsRequest", description = "Presign upload URLs for some parts")
+public class MultipartPartsRequest {
+  @Schema(description = "Bucket name (optional)")
+  private String bucket; // optional; defaults to app.objectstore.bucket
+
+  @NotBlank @Schema(description = "Object key returned when the upload was started")
+  private String key;
+
+  @NotEmpty @Size(max = MultipartUploadService.MAX_PARTS_PER_REQUEST) @Schema(description = "Part numbers (1-10000, at most 100 per request)", example = "[1, 2, 3]")
+  private List<@NotNull @Min(1) @Max(MultipartUploadService.MAX_PARTS) Integer> partNumbers;
+
+  @Positive @Schema(description = "URL expiry in seconds", example = "900")
+  private Integer expiresInSeconds; // optional; default 900
+}
@@ -0,0 +1,19 @@
+package org.acssz.ezclaim.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+@Schema(name = "MultipartUploadResponse", description = "An in-progress multipart upload")
+public class MultipartUploadResponse {
+  @Schema(example = "ezclaim-dev")
+  String bucket;
+
+  @Schema(example = "photos/2025/08/uuid.pdf")
+  String key;
+
+  @Schema(description = "S3 upload id; pass it to the parts, complete and abort calls")
+  String uploadId;
+}
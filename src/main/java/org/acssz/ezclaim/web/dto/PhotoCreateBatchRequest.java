@@ -0,0 +1,18 @@
+package org.acssz.ezclaim.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.Data;
+import org.acssz.ezclaim.service.PhotoService;
+
+@Data
+@Schema(
+    name = "PhotoCreateBatchRequest",
+    description = "Create Photo records for several uploaded objects")
+public class PhotoCreateBatchRequest {
+  @NotEmpty @Size(max = PhotoService.MAX_BATCH) @Schema(description = "Uploaded objects (at most 20)")
+  private List<@Valid PhotoCreateRequest> photos;
+}
@@ -0,0 +1,35 @@
+package org.acssz.ezclaim.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+@Schema(name = "PhotoGcResponse", description = "Findings of one photo garbage collection run")
+public class PhotoGcResponse {
+  @Schema(description = "Whether anything was deleted", example = "true")
+  boolean dryRun;
+
+  @Schema(description = "Photo records older than the grace period that were examined")
+  long recordsScanned;
+
+  @Schema(description = "Records no claim references; deleted unless a dry run")
+  long recordsOrphaned;
+
+  @Schema(description = "Bucket objects listed")
+  long objectsScanned;
+
+  @Schema(
+      description = "Objects without a record, or of orphaned records; deleted unless a dry run")
+  long objectsOrphaned;
+
+  @Schema(description = "Known size of the orphaned objects")
+  long bytesOrphaned;
+
+  @Schema(
+      description = "Some of the orphaned objects, as bucket/key",
+      example = "[\"ezclaim/photos/2025/08/uuid.jpg\"]")
+  List<String> sample;
+}
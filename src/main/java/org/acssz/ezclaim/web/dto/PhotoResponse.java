@@ -2,6 +2,7 @@ package org.acssz.ezclaim.web.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import java.time.Instant;
+import java.util.List;
 import lombok.Builder;
 import lombok.Value;
 
@@ -20,4 +21,27 @@ public class PhotoResponse {
 
   @Schema(example = "2025-08-12T10:00:00Z")
   Instant uploadedAt;
+
+  @Schema(description = "Object size in bytes; absent for records created before verification")
+  Long size;
+
+  @Schema(example = "image/jpeg")
+  String contentType;
+
+  @Schema(description = "Image width in pixels, when known", example = "3024")
+  Integer width;
+
+  @Schema(description = "Image height in pixels, when known", example = "4032")
+  Integer height;
+
+  @Schema(
+      description = "Generation state of the thumbnail and preview variants",
+      example = "READY",
+      allowableValues = {"PENDING", "READY", "UNSUPPORTED", "FAILED"})
+  String variantStatus;
+
+  @Schema(
+      description = "Variants that can be requested with variant=; empty until generated",
+      example = "[\"thumb\", \"preview\"]")
+  List<String> variants;
 }
@@ -0,0 +1,16 @@
+package org.acssz.ezclaim.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.Data;
+import org.acssz.ezclaim.service.PhotoService;
+
+@Data
+@Schema(name = "PhotoUploadBatchRequest", description = "Presign several uploads at once")
+public class PhotoUploadBatchRequest {
+  @NotEmpty @Size(max = PhotoService.MAX_BATCH) @Schema(description = "Uploads (at most 20)")
+  private List<@Valid PhotoUploadRequest> uploads;
+}
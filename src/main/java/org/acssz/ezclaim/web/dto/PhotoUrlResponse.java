@@ -0,0 +1,22 @@
+package org.acssz.ezclaim.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.Instant;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+@Schema(name = "PhotoUrlResponse", description = "Presigned download URL of one photo")
+public class PhotoUrlResponse {
+  @Schema(example = "6650eac3bfa5e7a3e9d1a2bc")
+  String photoId;
+
+  @Schema(
+      description = "Null when the photo's object is missing",
+      example = "https://s3.example.com/ezclaim/photos/2025/08/uuid.jpg?X-Amz-Signature=...")
+  String url;
+
+  @Schema(example = "2025-08-12T10:15:00Z")
+  Instant expiresAt;
+}
@@ -0,0 +1,68 @@
+package org.acssz.ezclaim.cache;
+
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import org.acssz.ezclaim.domain.Claim;
+import org.acssz.ezclaim.domain.Tag;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+
+@ExtendWith(MockitoExtension.class)
+class EntityCacheInvalidatorTest {
+
+  @Mock EntityCaches caches;
+  @InjectMocks EntityCacheInvalidator invalidator;
+
+  @Test
+  void save_invalidates_the_saved_claim() {
+    when(caches.caches("claims")).thenReturn(true);
+    ObjectId id = new ObjectId();
+
+    invalidator.onAfterSave(
+        new AfterSaveEvent<>(Claim.builder().build(), new Document("_id", id), "claims"));
+
+    verify(caches).invalidate(EntityCaches.CLAIMS, id.toHexString());
+    verifyNoMoreInteractions(ignoreStubs(caches));
+  }
+
+  @Test
+  void tag_changes_also_drop_cached_claims() {
+    when(caches.caches("tags")).thenReturn(true);
+
+    invalidator.onAfterSave(
+        new AfterSaveEvent<>(Tag.builder().build(), new Document("_id", "t1"), "tags"));
+    invalidator.onAfterDelete(
+        new AfterDeleteEvent<Object>(new Document("id", "t2"), Object.class, "tags"));
+
+    verify(caches).invalidate(EntityCaches.TAGS, "t1");
+    verify(caches).invalidate(EntityCaches.TAGS, "t2");
+    verify(caches, times(2)).invalidate(EntityCaches.CLAIMS, null);
+  }
+
+  @Test
+  void delete_without_single_id_drops_the_cache() {
+    when(caches.caches("photos")).thenReturn(true);
+
+    invalidator.onAfterDelete(
+        new AfterDeleteEvent<>(
+            new Document("_id", new Document("$in", List.of("p1", "p2"))), Object.class, "photos"));
+
+    verify(caches).invalidate(EntityCaches.PHOTOS, null);
+  }
+
+  @Test
+  void other_collections_are_ignored() {
+    invalidator.onAfterSave(
+        new AfterSaveEvent<>(new Object(), new Document("_id", "x"), "audit_events"));
+
+    verify(caches, never()).invalidate(any(), any());
+  }
+}
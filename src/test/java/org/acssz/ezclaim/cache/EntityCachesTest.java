@@ -0,0 +1,111 @@
+package org.acssz.ezclaim.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.acssz.ezclaim.config.EntityCacheProperties;
+import org.acssz.ezclaim.domain.Tag;
+import org.acssz.ezclaim.service.ResourceNotFoundException;
+import org.junit.jupiter.api.Test;
+
+class EntityCachesTest {
+
+  SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  List<CacheInvalidation> sent = new ArrayList<>();
+  EntityCaches caches = new EntityCaches(new EntityCacheProperties(), registry, sent::add);
+
+  @Test
+  void loads_once_then_serves_from_cache_and_counts_hits() {
+    AtomicInteger loads = new AtomicInteger();
+    Tag t = Tag.builder().id("t1").build();
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(
+              caches.get(
+                  EntityCaches.TAGS,
+                  "t1",
+                  Tag.class,
+                  () -> {
+                    loads.incrementAndGet();
+                    return t;
+                  }))
+          .isSameAs(t);
+    }
+
+    assertThat(loads).hasValue(1);
+    assertThat(
+            registry
+                .get("cache.gets")
+                .tag("cache", "tags")
+                .tag("result", "hit")
+                .functionCounter()
+                .count())
+        .isEqualTo(2);
+    assertThat(
+            registry
+                .get("cache.gets")
+                .tag("cache", "tags")
+                .tag("result", "miss")
+                .functionCounter()
+                .count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void loader_exceptions_propagate_and_are_not_cached() {
+    assertThatThrownBy(
+            () ->
+                caches.get(
+                    EntityCaches.PHOTOS,
+                    "p1",
+                    Tag.class,
+                    () -> {
+                      throw new ResourceNotFoundException("nope");
+                    }))
+        .isInstanceOf(ResourceNotFoundException.class);
+    assertThat(caches.getIfPresent(EntityCaches.PHOTOS, "p1", Tag.class)).isNull();
+  }
+
+  @Test
+  void invalidate_evicts_locally_and_broadcasts() {
+    Tag t = Tag.builder().id("t1").build();
+    caches.get(EntityCaches.TAGS, "t1", Tag.class, () -> t);
+
+    caches.invalidate(EntityCaches.TAGS, "t1");
+
+    assertThat(caches.getIfPresent(EntityCaches.TAGS, "t1", Tag.class)).isNull();
+    assertThat(sent).containsExactly(new CacheInvalidation(EntityCaches.TAGS, "t1"));
+
+    // Received invalidations are applied without being sent on again
+    caches.get(EntityCaches.TAGS, "t1", Tag.class, () -> t);
+    caches.evictLocal(EntityCaches.TAGS, null);
+    assertThat(caches.getIfPresent(EntityCaches.TAGS, "t1", Tag.class)).isNull();
+    assertThat(sent).hasSize(1);
+  }
+
+  @Test
+  void zero_ttl_disables_caching() {
+    EntityCacheProperties props = new EntityCacheProperties();
+    props.setTtl(Duration.ZERO);
+    EntityCaches off = new EntityCaches(props, new SimpleMeterRegistry(), null);
+    AtomicInteger loads = new AtomicInteger();
+
+    off.get(
+        EntityCaches.TAGS,
+        "t1",
+        Tag.class,
+        () -> Tag.builder().id("t" + loads.incrementAndGet()).build());
+    off.get(
+        EntityCaches.TAGS,
+        "t1",
+        Tag.class,
+        () -> Tag.builder().id("t" + loads.incrementAndGet()).build());
+
+    assertThat(loads).hasValue(2);
+  }
+}
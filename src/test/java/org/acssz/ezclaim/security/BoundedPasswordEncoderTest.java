@@ -0,0 +1,70 @@
+package org.acssz.ezclaim.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.acssz.ezclaim.service.TooManyRequestsException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+class BoundedPasswordEncoderTest {
+
+  @Test
+  void hashes_on_pool_and_records_timings() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    BoundedPasswordEncoder encoder =
+        new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 4, registry);
+
+    String hash = encoder.encode("secret");
+    assertThat(encoder.matches("secret", hash)).isTrue();
+    assertThat(encoder.matches("wrong", hash)).isFalse();
+
+    assertThat(registry.get("ezclaim.password.hash").tag("op", "encode").timer().count())
+        .isEqualTo(1);
+    assertThat(registry.get("ezclaim.password.hash").tag("op", "matches").timer().count())
+        .isEqualTo(2);
+    encoder.destroy();
+  }
+
+  @Test
+  void rejects_when_pool_and_queue_are_full() throws Exception {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    PasswordEncoder slow = mock(PasswordEncoder.class);
+    when(slow.encode(any()))
+        .thenAnswer(
+            inv -> {
+              started.countDown();
+              release.await(5, TimeUnit.SECONDS);
+              return "hash";
+            });
+    BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(slow, 1, 0, registry);
+
+    CompletableFuture<String> busy = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    assertThatThrownBy(() -> encoder.encode("b")).isInstanceOf(TooManyRequestsException.class);
+    assertThat(registry.get("ezclaim.password.rejected").tag("op", "encode").counter().count())
+        .isEqualTo(1);
+
+    release.countDown();
+    assertThat(busy.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+    encoder.destroy();
+  }
+
+  @Test
+  void strength_stays_within_bounds() {
+    assertThat(BoundedPasswordEncoder.strengthFor(Duration.ZERO, 4, 8)).isEqualTo(4);
+    assertThat(BoundedPasswordEncoder.strengthFor(Duration.ofHours(1), 4, 6)).isEqualTo(6);
+  }
+}
@@ -0,0 +1,135 @@
+package org.acssz.ezclaim.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.acssz.ezclaim.config.RateLimitProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class RateLimitFilterTest {
+
+  SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+  RateLimitFilter filter;
+
+  @BeforeEach
+  void setUp() {
+    RateLimitProperties props = new RateLimitProperties();
+    props.getRoutes().put("claim-create", new RateLimitProperties.Limit(2, 60));
+    props.getRoutes().put("photo-create-batch", new RateLimitProperties.Limit(2, 60));
+    filter = new RateLimitFilter(props, registry, now::get);
+  }
+
+  @AfterEach
+  void tearDown() {
+    filter.destroy();
+  }
+
+  private int send(String method, String path, String ip) throws Exception {
+    MockHttpServletRequest req = new MockHttpServletRequest(method, path);
+    req.setRemoteAddr(ip);
+    MockHttpServletResponse res = new MockHttpServletResponse();
+    filter.doFilter(req, res, new MockFilterChain());
+    if (res.getStatus() == 429) {
+      assertThat(res.getHeader("Retry-After")).isEqualTo("1");
+      assertThat(res.getContentAsString()).contains("too_many_requests");
+    }
+    return res.getStatus();
+  }
+
+  @Test
+  void allows_burst_then_rejects_until_refilled() throws Exception {
+    assertThat(send("POST", "/api/claims", "10.0.0.1")).isEqualTo(200);
+    assertThat(send("POST", "/api/claims", "10.0.0.1")).isEqualTo(200);
+    assertThat(send("POST", "/api/claims", "10.0.0.1")).isEqualTo(429);
+
+    // other clients and routes have their own buckets
+    assertThat(send("POST", "/api/claims", "10.0.0.2")).isEqualTo(200);
+    assertThat(send("PATCH", "/api/claims/c1", "10.0.0.1")).isEqualTo(200);
+
+    // 60/min refills one token per second
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertThat(send("POST", "/api/claims", "10.0.0.1")).isEqualTo(200);
+    assertThat(send("POST", "/api/claims", "10.0.0.1")).isEqualTo(429);
+
+    assertThat(
+            registry
+                .get("ezclaim.ratelimit.rejected")
+                .tag("route", "claim-create")
+                .counter()
+                .count())
+        .isEqualTo(2);
+  }
+
+  @Test
+  void encoded_and_padded_paths_share_the_bucket_of_the_route_they_reach() throws Exception {
+    assertThat(send("POST", "/api/%63laims", "10.0.0.1")).isEqualTo(200);
+    assertThat(send("POST", "/api//claims", "10.0.0.1")).isEqualTo(200);
+    assertThat(send("POST", "/api/claims;jsessionid=x", "10.0.0.1")).isEqualTo(429);
+    assertThat(send("POST", "/api/%63laims", "10.0.0.1")).isEqualTo(429);
+  }
+
+  @Test
+  void batches_draw_on_their_own_stricter_bucket() throws Exception {
+    assertThat(send("POST", "/api/photos/batch", "10.0.0.1")).isEqualTo(200);
+    assertThat(send("POST", "/api/photos/batch", "10.0.0.1")).isEqualTo(200);
+    assertThat(send("POST", "/api/photos/batch", "10.0.0.1")).isEqualTo(429);
+    assertThat(send("POST", "/api/photos", "10.0.0.1")).isEqualTo(200);
+  }
+
+  @Test
+  void only_anonymous_write_routes_are_limited() {
+    assertThat(RateLimitFilter.Route.match("POST", "/api/claims"))
+        .isEqualTo(RateLimitFilter.Route.CLAIM_CREATE);
+    assertThat(RateLimitFilter.Route.match("PATCH", "/api/claims/c1"))
+        .isEqualTo(RateLimitFilter.Route.CLAIM_PATCH);
+    assertThat(RateLimitFilter.Route.match("POST", "/api/claims/c1/access-token"))
+        .isEqualTo(RateLimitFilter.Route.CLAIM_ACCESS_TOKEN);
+    assertThat(RateLimitFilter.Route.match("POST", "/api/photos/presign-upload"))
+        .isEqualTo(RateLimitFilter.Route.PHOTO_PRESIGN);
+    assertThat(RateLimitFilter.Route.match("POST", "/api/photos"))
+        .isEqualTo(RateLimitFilter.Route.PHOTO_CREATE);
+
+    assertThat(RateLimitFilter.Route.match("POST", "/api/photos/batch"))
+        .isEqualTo(RateLimitFilter.Route.PHOTO_CREATE_BATCH);
+    assertThat(RateLimitFilter.Route.match("POST", "/api/photos/presign-upload/batch"))
+        .isEqualTo(RateLimitFilter.Route.PHOTO_PRESIGN_BATCH);
+    assertThat(RateLimitFilter.Route.match("POST", "/api/photos/multipart/u1/parts"))
+        .isEqualTo(RateLimitFilter.Route.PHOTO_PRESIGN);
+    assertThat(RateLimitFilter.Route.match("GET", "/api/claims/c1")).isNull();
+    assertThat(RateLimitFilter.Route.match("POST", "/api/claims/bulk-transition/x")).isNull();
+    assertThat(RateLimitFilter.Route.match("POST", "/api/claims/a/b/access-token")).isNull();
+    assertThat(RateLimitFilter.Route.match("PATCH", "/api/claims/")).isNull();
+  }
+
+  @Test
+  void refilled_buckets_are_evicted() throws Exception {
+    send("POST", "/api/claims", "10.0.0.1");
+    send("POST", "/api/photos", "10.0.0.1");
+    assertThat(filter.trackedBuckets()).isEqualTo(2);
+
+    filter.evictIdle(now.get());
+    assertThat(filter.trackedBuckets()).isEqualTo(2);
+
+    now.addAndGet(TimeUnit.MINUTES.toNanos(1));
+    filter.evictIdle(now.get());
+    assertThat(filter.trackedBuckets()).isZero();
+  }
+
+  @Test
+  void rejects_unusable_limits() {
+    RateLimitProperties props = new RateLimitProperties();
+    props.getRoutes().put("photo-create", new RateLimitProperties.Limit(0, 10));
+    assertThatThrownBy(() -> new RateLimitFilter(props, registry))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("photo-create");
+  }
+}
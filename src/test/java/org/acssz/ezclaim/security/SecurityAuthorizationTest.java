@@ -1,27 +1,47 @@
 package org.acssz.ezclaim.security;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.function.Consumer;
 import org.acssz.ezclaim.domain.Claim;
 import org.acssz.ezclaim.domain.ClaimStatus;
+import org.acssz.ezclaim.domain.Photo;
 import org.acssz.ezclaim.domain.Tag;
 import org.acssz.ezclaim.service.AuditEventService;
+import org.acssz.ezclaim.service.ClaimRollupService;
 import org.acssz.ezclaim.service.ClaimService;
+import org.acssz.ezclaim.service.IdempotencyService;
+import org.acssz.ezclaim.service.MultipartUploadService;
+import org.acssz.ezclaim.service.PhotoGarbageCollector;
 import org.acssz.ezclaim.service.PhotoService;
 import org.acssz.ezclaim.service.TagService;
 import org.acssz.ezclaim.web.AuditEventController;
 import org.acssz.ezclaim.web.ClaimController;
+import org.acssz.ezclaim.web.MultipartUploadController;
 import org.acssz.ezclaim.web.PhotoController;
+import org.acssz.ezclaim.web.ReportController;
 import org.acssz.ezclaim.web.TagController;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -39,13 +59,17 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Flux;
 
 @WebMvcTest(
     controllers = {
       ClaimController.class,
       TagController.class,
       PhotoController.class,
-      AuditEventController.class
+      MultipartUploadController.class,
+      AuditEventController.class,
+      ReportController.class
     })
 @Import({SecurityAuthorizationTest.MockBeans.class, SecurityAuthorizationTest.TestSecurity.class})
 class SecurityAuthorizationTest {
@@ -53,8 +77,12 @@ class SecurityAuthorizationTest {
   @Autowired MockMvc mvc;
   @Autowired ClaimService claimService;
   @Autowired TagService tagService;
+  @Autowired IdempotencyService idempotency;
   @Autowired PhotoService photoService;
   @Autowired AuditEventService auditEventService;
+  @Autowired ClaimAccessTokens accessTokens;
+  @Autowired MultipartUploadService multipartUploads;
+  @Autowired PhotoGarbageCollector collector;
 
   @BeforeEach
   void setupStubs() {
@@ -67,7 +95,12 @@ class SecurityAuthorizationTest {
             .updatedAt(Instant.now())
             .build();
     when(claimService.findById("c1")).thenReturn(c1);
-    when(claimService.findAll()).thenReturn(List.of(c1));
+    when(claimService.findHead("c1")).thenReturn(c1);
+    when(claimService.findById(eq("c1"), any())).thenReturn(c1);
+    when(claimService.search(any(), any(), anyInt(), any()))
+        .thenReturn(new ClaimService.KeysetPage(List.of(c1), null));
+    when(claimService.textSearch(any(), any(), anyInt(), anyInt()))
+        .thenReturn(new ClaimService.SearchPage(List.of(c1), 0, false));
 
     when(tagService.list())
         .thenReturn(List.of(Tag.builder().id("t1").label("L").color("#fff").build()));
@@ -88,12 +121,235 @@ class SecurityAuthorizationTest {
     mvc.perform(get("/api/claims/c1")).andExpect(status().isOk());
   }
 
+  @Test
+  void conditional_get_returns_304_when_etag_matches() throws Exception {
+    var encoder = new BCryptPasswordEncoder();
+    Instant changed = Instant.parse("2025-03-01T10:00:00Z");
+    Claim head = Claim.builder().id("ce").version(3L).updatedAt(changed).build();
+    when(claimService.findHead("ce")).thenReturn(head);
+    when(claimService.findById(eq("ce"), any()))
+        .thenReturn(
+            Claim.builder()
+                .id("ce")
+                .title("t")
+                .status(ClaimStatus.SUBMITTED)
+                .version(3L)
+                .createdAt(changed)
+                .updatedAt(changed)
+                .build());
+
+    mvc.perform(get("/api/claims/ce"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"3\""))
+        .andExpect(header().exists("Last-Modified"));
+    mvc.perform(get("/api/claims/ce").header("If-None-Match", "\"3\""))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string("ETag", "\"3\""))
+        .andExpect(content().string(""));
+    mvc.perform(get("/api/claims/ce").header("If-None-Match", "W/\"2\", \"3\""))
+        .andExpect(status().isNotModified());
+    mvc.perform(get("/api/claims/ce").header("If-None-Match", "\"2\"")).andExpect(status().isOk());
+    mvc.perform(get("/api/claims/ce").header("If-Modified-Since", "Sat, 01 Mar 2025 10:00:00 GMT"))
+        .andExpect(status().isNotModified());
+
+    // A matching validator does not bypass the claim password
+    head.setPasswordHash(encoder.encode("secret"));
+    mvc.perform(get("/api/claims/ce").header("If-None-Match", "\"3\""))
+        .andExpect(status().isForbidden());
+    mvc.perform(get("/api/claims/ce").param("password", "secret").header("If-None-Match", "\"3\""))
+        .andExpect(status().isNotModified());
+  }
+
+  @Test
+  void sparse_get_has_its_own_etag_and_full_get_keeps_nulls() throws Exception {
+    Instant changed = Instant.parse("2025-03-01T10:00:00Z");
+    Claim head = Claim.builder().id("cs").version(3L).updatedAt(changed).build();
+    when(claimService.findHead("cs")).thenReturn(head);
+    when(claimService.findById(eq("cs"), any()))
+        .thenReturn(
+            Claim.builder()
+                .id("cs")
+                .title("t")
+                .status(ClaimStatus.SUBMITTED)
+                .version(3L)
+                .createdAt(changed)
+                .updatedAt(changed)
+                .build());
+
+    mvc.perform(get("/api/claims/cs"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"3\""))
+        .andExpect(content().string(org.hamcrest.Matchers.containsString("\"description\":null")));
+    mvc.perform(get("/api/claims/cs").param("fields", "title"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"3;createdAt+id+title\""))
+        .andExpect(jsonPath("$.title").value("t"))
+        .andExpect(jsonPath("$.status").doesNotExist())
+        .andExpect(
+            content()
+                .string(
+                    org.hamcrest.Matchers.not(
+                        org.hamcrest.Matchers.containsString("description"))));
+    // A full-body validator does not answer for the sparse representation
+    mvc.perform(get("/api/claims/cs").param("fields", "title").header("If-None-Match", "\"3\""))
+        .andExpect(status().isOk());
+    mvc.perform(
+            get("/api/claims/cs")
+                .param("fields", "title")
+                .header("If-None-Match", "\"3;createdAt+id+title\""))
+        .andExpect(status().isNotModified());
+  }
+
+  @Test
+  void tag_list_supports_conditional_get() throws Exception {
+    when(tagService.listVersion()).thenReturn("1-1700000000000");
+
+    mvc.perform(get("/api/tags"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"1-1700000000000\""));
+    mvc.perform(get("/api/tags").header("If-None-Match", "\"1-1700000000000\""))
+        .andExpect(status().isNotModified());
+    when(tagService.listVersion()).thenReturn("2-1700000000500");
+    mvc.perform(get("/api/tags").header("If-None-Match", "\"1-1700000000000\""))
+        .andExpect(status().isOk());
+  }
+
   @Test
   void reader_can_list_claims() throws Exception {
     mvc.perform(get("/api/claims").with(jwt().jwt(j -> j.claim("scope", "CLAIM_READ"))))
         .andExpect(status().isOk());
   }
 
+  @Test
+  void list_with_fields_returns_sparse_claims() throws Exception {
+    mvc.perform(
+            get("/api/claims")
+                .param("fields", "title,status")
+                .with(jwt().jwt(j -> j.claim("scope", "CLAIM_READ"))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content[0].title").value("t1"))
+        .andExpect(jsonPath("$.content[0].photos").doesNotExist())
+        .andExpect(jsonPath("$.content[0].tags").doesNotExist());
+    mvc.perform(
+            get("/api/claims")
+                .param("fields", "title,secret")
+                .with(jwt().jwt(j -> j.claim("scope", "CLAIM_READ"))))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void search_requires_claim_read() throws Exception {
+    mvc.perform(get("/api/claims/search").param("q", "hotel")).andExpect(status().isForbidden());
+    mvc.perform(
+            get("/api/claims/search")
+                .param("q", "hotel")
+                .with(jwt().jwt(j -> j.claim("scope", "CLAIM_READ"))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content[0].id").value("c1"))
+        .andExpect(jsonPath("$.hasNext").value(false));
+  }
+
+  @Test
+  void list_streams_ndjson_when_accepted() throws Exception {
+    mvc.perform(get("/api/claims").accept(MediaType.APPLICATION_NDJSON))
+        .andExpect(status().isForbidden());
+
+    Claim c =
+        Claim.builder()
+            .id("c1")
+            .title("T")
+            .status(ClaimStatus.SUBMITTED)
+            .createdAt(Instant.parse("2025-08-12T09:31:00Z"))
+            .build();
+    when(claimService.stream(any(), any())).thenReturn(Flux.just(c));
+
+    MvcResult started =
+        mvc.perform(
+                get("/api/claims")
+                    .accept(MediaType.APPLICATION_NDJSON)
+                    .with(jwt().jwt(j -> j.claim("scope", "CLAIM_READ"))))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    mvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+        .andExpect(content().string(org.hamcrest.Matchers.containsString("\"id\":\"c1\"")));
+  }
+
+  @Test
+  void export_requires_claim_read_and_streams_csv() throws Exception {
+    mvc.perform(get("/api/claims/export")).andExpect(status().isForbidden());
+
+    Claim c =
+        Claim.builder()
+            .id("c1")
+            .title("=cmd, \"x\"")
+            .status(ClaimStatus.APPROVED)
+            .createdAt(Instant.parse("2025-08-12T09:31:00Z"))
+            .build();
+    Mockito.doAnswer(
+            inv -> {
+              Consumer<List<Claim>> sink = inv.getArgument(1);
+              sink.accept(List.of(c));
+              return null;
+            })
+        .when(claimService)
+        .export(any(), any());
+
+    MvcResult started =
+        mvc.perform(
+                get("/api/claims/export")
+                    .param("format", "csv")
+                    .with(jwt().jwt(j -> j.claim("scope", "CLAIM_READ"))))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    mvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith("text/csv"))
+        .andExpect(
+            content()
+                .string(
+                    org.hamcrest.Matchers.containsString(
+                        "c1,APPROVED,2025-08-12T09:31:00Z,,\"'=cmd, \"\"x\"\"\",")));
+  }
+
+  @Test
+  void reports_require_claim_read_and_rebuild_requires_write() throws Exception {
+    mvc.perform(get("/api/reports/claims")).andExpect(status().isForbidden());
+    mvc.perform(
+            get("/api/reports/claims")
+                .param("dimension", "TAG")
+                .with(jwt().jwt(j -> j.claim("scope", "CLAIM_READ"))))
+        .andExpect(status().isOk());
+    mvc.perform(
+            post("/api/reports/claims/rebuild")
+                .with(jwt().jwt(j -> j.claim("scope", "CLAIM_READ"))))
+        .andExpect(status().isForbidden());
+    mvc.perform(
+            post("/api/reports/claims/rebuild")
+                .with(jwt().jwt(j -> j.claim("scope", "CLAIM_WRITE"))))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  void anonymous_create_with_idempotency_key_marks_replays() throws Exception {
+    Claim c = Claim.builder().id("c9").title("t").status(ClaimStatus.SUBMITTED).build();
+    when(idempotency.fingerprint(any())).thenReturn("h");
+    when(idempotency.<Claim>run(eq("claims:ip/127.0.0.1"), eq("k1"), eq("h"), any(), any(), any()))
+        .thenReturn(new IdempotencyService.Result<>(c, true));
+
+    mvc.perform(
+            post("/api/claims")
+                .header("Idempotency-Key", "k1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    "{\"title\":\"t\",\"amount\":1,\"payout\":{},"
+                        + "\"expenseAt\":\"2025-08-12T09:30:00Z\"}"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Idempotent-Replayed", "true"))
+        .andExpect(jsonPath("$.id").value("c9"));
+  }
+
   @Test
   void reader_cannot_create_tag_admin_can() throws Exception {
     // Reader only has TAG_READ
@@ -137,6 +393,116 @@ class SecurityAuthorizationTest {
         .andExpect(status().isNoContent());
   }
 
+  @Test
+  void photo_gc_requires_delete_scope_and_defaults_to_dry_run() throws Exception {
+    when(collector.collect(true))
+        .thenReturn(new PhotoGarbageCollector.Report(true, 10, 2, 30, 4, 4096, List.of("b/k")));
+
+    mvc.perform(post("/api/photos/gc")).andExpect(status().isForbidden());
+    mvc.perform(post("/api/photos/gc").with(jwt().jwt(j -> j.claim("scope", "PHOTO_READ"))))
+        .andExpect(status().isForbidden());
+    mvc.perform(post("/api/photos/gc").with(jwt().jwt(j -> j.claim("scope", "PHOTO_DELETE"))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.dryRun").value(true))
+        .andExpect(jsonPath("$.recordsOrphaned").value(2))
+        .andExpect(jsonPath("$.sample[0]").value("b/k"));
+  }
+
+  @Test
+  void claim_photo_urls_follow_claim_read_rules() throws Exception {
+    Claim head =
+        Claim.builder().id("c1").passwordHash(new BCryptPasswordEncoder().encode("secret")).build();
+    Photo p = Photo.builder().id("p1").bucket("b").key("k").build();
+    when(claimService.findHead("c1")).thenReturn(head);
+    when(claimService.findById(eq("c1"), any()))
+        .thenReturn(Claim.builder().id("c1").photos(List.of(p)).build());
+    when(photoService.signDownloads(List.of(p), null, null))
+        .thenReturn(
+            List.of(
+                new PhotoService.PresignedGet(
+                    new java.net.URL("http://s3.local/b/k?sig=1"),
+                    Instant.parse("2025-08-12T10:15:00Z"),
+                    Instant.parse("2025-08-12T10:13:00Z"))));
+
+    mvc.perform(get("/api/claims/c1/photo-urls")).andExpect(status().isForbidden());
+    mvc.perform(get("/api/claims/c1/photo-urls").param("password", "secret"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].photoId").value("p1"))
+        .andExpect(jsonPath("$[0].url").value("http://s3.local/b/k?sig=1"));
+    mvc.perform(
+            get("/api/claims/c1/photo-urls").with(jwt().jwt(j -> j.claim("scope", "CLAIM_READ"))))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  void photo_batch_endpoints_are_anonymous() throws Exception {
+    when(photoService.createRecords(any()))
+        .thenReturn(List.of(Photo.builder().id("p1").bucket("b").key("a.jpg").build()));
+    when(idempotency.run(any(), any(), any(), any(), any(), any()))
+        .thenAnswer(
+            inv ->
+                new IdempotencyService.Result<>(
+                    inv.<java.util.function.Supplier<?>>getArgument(3).get(), false));
+
+    mvc.perform(
+            post("/api/photos/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"photos\":[{\"key\":\"a.jpg\"}]}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].id").value("p1"));
+    mvc.perform(
+            post("/api/photos/presign-upload/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"uploads\":[]}"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void multipart_upload_is_anonymous_and_validated() throws Exception {
+    when(multipartUploads.initiate(null, null, "application/pdf"))
+        .thenReturn(new MultipartUploadService.Started("b", "k", "u1"));
+
+    mvc.perform(
+            post("/api/photos/multipart")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"contentType\":\"application/pdf\"}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.uploadId").value("u1"));
+    mvc.perform(
+            post("/api/photos/multipart/u1/parts")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"key\":\"k\",\"partNumbers\":[0]}"))
+        .andExpect(status().isBadRequest());
+    mvc.perform(delete("/api/photos/multipart/u1").param("key", "k"))
+        .andExpect(status().isNoContent());
+  }
+
+  @Test
+  void photo_content_redirects_anonymously_with_cache_lifetime() throws Exception {
+    Photo p = Photo.builder().id("p1").bucket("b").key("k").uploadedAt(Instant.now()).build();
+    when(photoService.get("p1")).thenReturn(p);
+    Instant now = Instant.now();
+    when(photoService.signDownload(eq(p), any(), isNull()))
+        .thenReturn(
+            new PhotoService.PresignedGet(
+                new java.net.URL("http://s3.local/b/k?sig=1"),
+                now.plus(Duration.ofMinutes(15)),
+                now.plus(Duration.ofMinutes(13))));
+
+    mvc.perform(get("/api/photos/p1/content"))
+        .andExpect(status().isFound())
+        .andExpect(header().string("Location", "http://s3.local/b/k?sig=1"))
+        .andExpect(
+            header().string("Cache-Control", org.hamcrest.Matchers.containsString("private")));
+    // No thumbnail yet: the original stands in, uncached
+    mvc.perform(get("/api/photos/p1/content").param("variant", "thumb"))
+        .andExpect(status().isFound())
+        .andExpect(header().string("Location", "http://s3.local/b/k?sig=1"))
+        .andExpect(header().string("Cache-Control", "no-store"));
+    mvc.perform(get("/api/photos/p1/content").param("variant", "huge"))
+        .andExpect(status().isBadRequest());
+  }
+
   @Test
   void claims_patch_requires_write_scope_for_fields() throws Exception {
     Claim existing =
@@ -212,6 +578,97 @@ class SecurityAuthorizationTest {
         .andExpect(status().isOk());
   }
 
+  @Test
+  void patch_if_match_is_passed_as_expected_version_and_etag_returned() throws Exception {
+    Claim updated =
+        Claim.builder()
+            .id("c1")
+            .title("t")
+            .status(ClaimStatus.APPROVED)
+            .version(8L)
+            .createdAt(Instant.now())
+            .updatedAt(Instant.now())
+            .build();
+    when(claimService.patch(
+            eq("c1"),
+            Mockito.argThat(p -> p != null && Long.valueOf(7L).equals(p.expectedVersion())),
+            eq(true),
+            eq(false)))
+        .thenReturn(updated);
+
+    mvc.perform(
+            patch("/api/claims/c1")
+                .with(jwt().jwt(j -> j.claim("scope", "CLAIM_WRITE")))
+                .header("If-Match", "\"7\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"APPROVED\"}"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"8\""));
+
+    // a tag we never issued cannot match
+    mvc.perform(
+            patch("/api/claims/c1")
+                .with(jwt().jwt(j -> j.claim("scope", "CLAIM_WRITE")))
+                .header("If-Match", "W/\"7\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"APPROVED\"}"))
+        .andExpect(status().isPreconditionFailed());
+  }
+
+  @Test
+  void bulk_transition_requires_write_scope() throws Exception {
+    when(claimService.bulkTransition(List.of("c1"), ClaimStatus.PAID))
+        .thenReturn(
+            List.of(
+                new ClaimService.TransitionResult(
+                    "c1", ClaimService.TransitionOutcome.APPLIED, ClaimStatus.PAID)));
+    String body = "{\"ids\":[\"c1\"],\"status\":\"PAID\"}";
+
+    mvc.perform(
+            post("/api/claims/bulk-transition")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+        .andExpect(status().isForbidden());
+    mvc.perform(
+            post("/api/claims/bulk-transition")
+                .with(jwt().jwt(j -> j.claim("scope", "CLAIM_WRITE")))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.applied").value(1))
+        .andExpect(jsonPath("$.results[0].outcome").value("APPLIED"));
+  }
+
+  @Test
+  void put_requires_write_scope() throws Exception {
+    Claim updated =
+        Claim.builder()
+            .id("c1")
+            .title("new")
+            .status(ClaimStatus.SUBMITTED)
+            .version(2L)
+            .createdAt(Instant.now())
+            .updatedAt(Instant.now())
+            .build();
+    when(claimService.update(eq("c1"), eq("new"), any(), any(), any(), any(), eq(1L)))
+        .thenReturn(updated);
+
+    mvc.perform(
+            put("/api/claims/c1")
+                .with(jwt().jwt(j -> j.claim("scope", "CLAIM_READ")))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"new\"}"))
+        .andExpect(status().isForbidden());
+    mvc.perform(
+            put("/api/claims/c1")
+                .with(jwt().jwt(j -> j.claim("scope", "CLAIM_WRITE")))
+                .header("If-Match", "\"1\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"new\"}"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"2\""));
+  }
+
   @Test
   void patch_anonymous_requires_password_for_protected_status_change() throws Exception {
     var encoder = new BCryptPasswordEncoder();
@@ -259,6 +716,28 @@ class SecurityAuthorizationTest {
         .andExpect(status().isOk());
   }
 
+  @Test
+  void patch_anonymous_empty_body_on_protected_claim_is_refused_without_writing() throws Exception {
+    Claim protectedClaim =
+        Claim.builder()
+            .id("cy")
+            .title("t")
+            .status(ClaimStatus.SUBMITTED)
+            .passwordHash(new BCryptPasswordEncoder().encode("secret"))
+            .version(4L)
+            .build();
+    when(claimService.findById("cy")).thenReturn(protectedClaim);
+
+    mvc.perform(patch("/api/claims/cy").contentType(MediaType.APPLICATION_JSON).content("{}"))
+        .andExpect(status().isForbidden());
+    mvc.perform(
+            patch("/api/claims/cy")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"password\":\"bad\"}"))
+        .andExpect(status().isForbidden());
+    verify(claimService, never()).patch(eq("cy"), any(), anyBoolean(), anyBoolean());
+  }
+
   @TestConfiguration
   static class MockBeans {
     @Bean
@@ -281,6 +760,31 @@ class SecurityAuthorizationTest {
       return Mockito.mock(AuditEventService.class);
     }
 
+    @Bean
+    ClaimRollupService claimRollupService() {
+      return Mockito.mock(ClaimRollupService.class);
+    }
+
+    @Bean
+    IdempotencyService idempotencyService() {
+      return Mockito.mock(IdempotencyService.class);
+    }
+
+    @Bean
+    MultipartUploadService multipartUploadService() {
+      return Mockito.mock(MultipartUploadService.class);
+    }
+
+    @Bean
+    PhotoGarbageCollector photoGarbageCollector() {
+      return Mockito.mock(PhotoGarbageCollector.class);
+    }
+
+    @Bean
+    ClaimAccessTokens claimAccessTokens() {
+      return Mockito.mock(ClaimAccessTokens.class);
+    }
+
     @Bean
     org.springframework.security.crypto.password.PasswordEncoder passwordEncoder() {
       return new org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder();
@@ -309,6 +813,8 @@ class SecurityAuthorizationTest {
             .passwordHash(encoder.encode("secret"))
             .build();
     when(claimService.findById("cx")).thenReturn(protectedClaim);
+    when(claimService.findHead("cx")).thenReturn(protectedClaim);
+    when(claimService.findById(eq("cx"), any())).thenReturn(protectedClaim);
 
     // Missing/invalid password → 403
     mvc.perform(get("/api/claims/cx")).andExpect(status().isForbidden());
@@ -321,4 +827,53 @@ class SecurityAuthorizationTest {
     mvc.perform(get("/api/claims/cx").with(jwt().jwt(j -> j.claim("scope", "CLAIM_READ"))))
         .andExpect(status().isOk());
   }
+
+  @Test
+  void claim_access_token_replaces_password_for_its_claim_only() throws Exception {
+    var encoder = new org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder();
+    Claim protectedClaim =
+        Claim.builder()
+            .id("cx")
+            .title("t")
+            .status(ClaimStatus.SUBMITTED)
+            .createdAt(Instant.now())
+            .updatedAt(Instant.now())
+            .passwordHash(encoder.encode("secret"))
+            .build();
+    when(claimService.findById("cx")).thenReturn(protectedClaim);
+    when(claimService.findHead("cx")).thenReturn(protectedClaim);
+    when(claimService.findById(eq("cx"), any())).thenReturn(protectedClaim);
+    when(accessTokens.issue("cx"))
+        .thenReturn(new ClaimAccessTokens.Issued("tok", Instant.parse("2030-01-01T00:00:00Z")));
+
+    // Exchange: wrong password -> 403, correct -> token
+    mvc.perform(
+            post("/api/claims/cx/access-token")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"password\":\"bad\"}"))
+        .andExpect(status().isForbidden());
+    mvc.perform(
+            post("/api/claims/cx/access-token")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"password\":\"secret\"}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.token").value("tok"))
+        .andExpect(jsonPath("$.tokenType").value("Bearer"));
+
+    // Token for this claim bypasses the password; a token for another claim does not
+    mvc.perform(
+            get("/api/claims/cx")
+                .with(jwt().jwt(j -> j.claim("scope", "CLAIM_ACCESS").claim("claim_id", "cx"))))
+        .andExpect(status().isOk());
+    mvc.perform(
+            get("/api/claims/cx")
+                .with(jwt().jwt(j -> j.claim("scope", "CLAIM_ACCESS").claim("claim_id", "c1"))))
+        .andExpect(status().isForbidden());
+
+    // ...and it carries no admin scopes
+    mvc.perform(
+            get("/api/claims")
+                .with(jwt().jwt(j -> j.claim("scope", "CLAIM_ACCESS").claim("claim_id", "cx"))))
+        .andExpect(status().isForbidden());
+  }
 }
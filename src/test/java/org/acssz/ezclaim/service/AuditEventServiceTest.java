@@ -3,6 +3,9 @@ package org.acssz.ezclaim.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.time.Instant;
@@ -10,6 +13,7 @@ import java.util.List;
 import org.acssz.ezclaim.audit.AuditEvent;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -18,12 +22,15 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
 
 @ExtendWith(MockitoExtension.class)
 class AuditEventServiceTest {
 
   @Mock MongoTemplate template;
+  @Mock ReactiveMongoTemplate reactiveTemplate;
   @InjectMocks AuditEventService service;
 
   @Test
@@ -56,6 +63,24 @@ class AuditEventServiceTest {
     assertThat(page.getPageable().getSort().getOrderFor("occurredAt").isDescending()).isTrue();
   }
 
+  @Test
+  void stream_appliesFiltersAndSortWithoutCounting() {
+    AuditEvent a1 = AuditEvent.builder().id("a1").entityType("Claim").action("SAVE").build();
+    when(reactiveTemplate.find(any(Query.class), eq(AuditEvent.class))).thenReturn(Flux.just(a1));
+
+    List<AuditEvent> events =
+        service.stream("Claim", null, "SAVE", null, null, Sort.by(Sort.Direction.ASC, "occurredAt"))
+            .collectList()
+            .block();
+
+    assertThat(events).extracting(AuditEvent::getId).containsExactly("a1");
+    ArgumentCaptor<Query> q = ArgumentCaptor.forClass(Query.class);
+    verify(reactiveTemplate).find(q.capture(), eq(AuditEvent.class));
+    assertThat(q.getValue().getQueryObject().toJson()).contains("\"entityType\": \"Claim\"");
+    assertThat(q.getValue().getSortObject().get("occurredAt")).isEqualTo(1);
+    verifyNoInteractions(template);
+  }
+
   @Test
   void getById_found_returns_entity() {
     AuditEvent a1 =
@@ -0,0 +1,97 @@
+package org.acssz.ezclaim.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.mongodb.bulk.BulkWriteResult;
+import java.math.BigDecimal;
+import java.util.List;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+@ExtendWith(MockitoExtension.class)
+class ClaimAmountMigrationTest {
+
+  @Mock MongoTemplate template;
+  @Mock BulkOperations ops;
+
+  @InjectMocks ClaimAmountMigration migration;
+
+  @Test
+  void converts_string_amounts_in_id_batches_and_resumes_after_last_id() {
+    ObjectId a = new ObjectId("664a0c2f7b1f3c2d9b7c9a01");
+    ObjectId b = new ObjectId("664a0c2f7b1f3c2d9b7c9a02");
+    ObjectId c = new ObjectId("664a0c2f7b1f3c2d9b7c9a03");
+    when(template.find(any(Query.class), eq(Document.class), eq("claims")))
+        .thenReturn(
+            List.of(
+                new Document("_id", a).append("amount", "199.99"),
+                new Document("_id", b).append("amount", "not a number"),
+                new Document("_id", c).append("amount", "12.5")))
+        .thenReturn(List.of());
+    when(template.bulkOps(BulkOperations.BulkMode.UNORDERED, "claims")).thenReturn(ops);
+    BulkWriteResult result = mock(BulkWriteResult.class);
+    when(result.getModifiedCount()).thenReturn(2);
+    when(ops.execute()).thenReturn(result);
+
+    assertThat(migration.run()).isEqualTo(2);
+
+    ArgumentCaptor<Query> filters = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+    verify(ops, times(2)).updateOne(filters.capture(), updates.capture());
+    // conditional on the value read, so a concurrent write is not clobbered
+    assertThat(filters.getAllValues().get(0).getQueryObject().get("amount")).isEqualTo("199.99");
+    Document set = updates.getAllValues().get(0).getUpdateObject().get("$set", Document.class);
+    assertThat(set.get("amount")).isEqualTo(new Decimal128(new BigDecimal("199.99")));
+    assertThat(set.get("amountMinor")).isEqualTo(19999L);
+    assertThat(
+            updates
+                .getAllValues()
+                .get(1)
+                .getUpdateObject()
+                .get("$set", Document.class)
+                .get("amountMinor"))
+        .isEqualTo(1250L);
+
+    ArgumentCaptor<Query> reads = ArgumentCaptor.forClass(Query.class);
+    verify(template, times(2)).find(reads.capture(), eq(Document.class), eq("claims"));
+    assertThat(reads.getAllValues().get(1).getQueryObject().toJson()).contains(c.toHexString());
+  }
+
+  @Test
+  void rounds_amount_with_amount_minor_and_skips_values_beyond_decimal128() {
+    ObjectId a = new ObjectId("664a0c2f7b1f3c2d9b7c9a01");
+    ObjectId b = new ObjectId("664a0c2f7b1f3c2d9b7c9a02");
+    when(template.find(any(Query.class), eq(Document.class), eq("claims")))
+        .thenReturn(
+            List.of(
+                new Document("_id", a).append("amount", "10.005"),
+                new Document("_id", b).append("amount", "1" + "0".repeat(40))))
+        .thenReturn(List.of());
+    when(template.bulkOps(BulkOperations.BulkMode.UNORDERED, "claims")).thenReturn(ops);
+    BulkWriteResult result = mock(BulkWriteResult.class);
+    when(result.getModifiedCount()).thenReturn(1);
+    when(ops.execute()).thenReturn(result);
+
+    assertThat(migration.run()).isEqualTo(1);
+
+    ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+    verify(ops, times(1)).updateOne(any(Query.class), updates.capture());
+    Document set = updates.getValue().getUpdateObject().get("$set", Document.class);
+    assertThat(set.get("amount")).isEqualTo(new Decimal128(new BigDecimal("10.00")));
+    assertThat(set.get("amountMinor")).isEqualTo(1000L);
+  }
+}
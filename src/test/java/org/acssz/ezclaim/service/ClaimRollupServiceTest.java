@@ -0,0 +1,185 @@
+package org.acssz.ezclaim.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.acssz.ezclaim.domain.ClaimStatus;
+import org.acssz.ezclaim.domain.Currency;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+@ExtendWith(MockitoExtension.class)
+class ClaimRollupServiceTest {
+
+  @Mock MongoTemplate template;
+  @Mock BulkOperations ops;
+  @Mock MongoLease lease;
+
+  @InjectMocks ClaimRollupService service;
+
+  private static final Instant MARCH = Instant.parse("2025-03-14T10:00:00Z");
+
+  @Test
+  void new_claim_increments_one_bucket_per_dimension() {
+    when(template.bulkOps(BulkOperations.BulkMode.UNORDERED, ClaimRollupService.COLLECTION))
+        .thenReturn(ops);
+
+    service.apply(null, facts(ClaimStatus.SUBMITTED, "12.50", List.of("t1", "t2", "t1")));
+
+    Map<String, Document> incs = upserts();
+    assertThat(incs.keySet())
+        .containsExactlyInAnyOrder(
+            "STATUS|SUBMITTED|CHF",
+            "CURRENCY|CHF|CHF",
+            "TAG|t1|CHF",
+            "TAG|t2|CHF",
+            "MONTH|2025-03|CHF");
+    assertThat(incs.get("TAG|t1|CHF").get("count")).isEqualTo(1L);
+    assertThat(incs.get("STATUS|SUBMITTED|CHF").get("total"))
+        .isEqualTo(new Decimal128(new BigDecimal("12.50")));
+    verify(ops).execute();
+  }
+
+  @Test
+  void status_change_moves_amount_between_status_buckets_only() {
+    when(template.bulkOps(BulkOperations.BulkMode.UNORDERED, ClaimRollupService.COLLECTION))
+        .thenReturn(ops);
+
+    service.apply(
+        facts(ClaimStatus.SUBMITTED, "40", List.of("t1")),
+        facts(ClaimStatus.APPROVED, "40", List.of("t1")));
+
+    Map<String, Document> incs = upserts();
+    assertThat(incs.keySet())
+        .containsExactlyInAnyOrder("STATUS|SUBMITTED|CHF", "STATUS|APPROVED|CHF");
+    assertThat(incs.get("STATUS|SUBMITTED|CHF").get("count")).isEqualTo(-1L);
+    assertThat(incs.get("STATUS|SUBMITTED|CHF").get("total"))
+        .isEqualTo(new Decimal128(new BigDecimal("-40")));
+  }
+
+  @Test
+  void batch_of_moves_is_summed_into_one_bulk() {
+    when(template.bulkOps(BulkOperations.BulkMode.UNORDERED, ClaimRollupService.COLLECTION))
+        .thenReturn(ops);
+
+    service.apply(
+        List.of(
+            new ClaimRollupService.Change(
+                facts(ClaimStatus.APPROVED, "10", List.of()),
+                facts(ClaimStatus.PAID, "10", List.of())),
+            new ClaimRollupService.Change(
+                facts(ClaimStatus.APPROVED, "5", List.of()),
+                facts(ClaimStatus.PAID, "5", List.of()))));
+
+    Map<String, Document> incs = upserts();
+    assertThat(incs.keySet()).containsExactlyInAnyOrder("STATUS|APPROVED|CHF", "STATUS|PAID|CHF");
+    assertThat(incs.get("STATUS|PAID|CHF").get("count")).isEqualTo(2L);
+    assertThat(incs.get("STATUS|PAID|CHF").get("total"))
+        .isEqualTo(new Decimal128(new BigDecimal("15")));
+    verify(template, times(1)).bulkOps(any(BulkOperations.BulkMode.class), anyString());
+    verify(ops, times(1)).execute();
+  }
+
+  @Test
+  void unchanged_facts_write_nothing() {
+    ClaimRollupService.Facts f = facts(ClaimStatus.PAID, "5", List.of());
+    service.apply(f, f);
+    verifyNoInteractions(template);
+  }
+
+  @Test
+  void rebuild_aggregates_aside_and_applies_the_difference_to_live_buckets() {
+    when(lease.acquire(eq(ClaimRollupService.LEASE_COLLECTION), eq("rebuild"), any()))
+        .thenReturn(true);
+    when(template.findAll(Document.class, ClaimRollupService.REBUILD_COLLECTION))
+        .thenReturn(
+            List.of(
+                bucket("STATUS|PAID|CHF", 3, "30"),
+                bucket("CURRENCY|CHF|CHF", 3, "30"),
+                bucket("STATUS|SUBMITTED|CHF", 1, "7")));
+    // Live has drifted on PAID, is right on CURRENCY, and still holds a bucket that is now empty
+    when(template.findAll(Document.class, ClaimRollupService.COLLECTION))
+        .thenReturn(
+            List.of(
+                bucket("STATUS|PAID|CHF", 2, "20"),
+                bucket("CURRENCY|CHF|CHF", 3, "30"),
+                bucket("STATUS|APPROVED|CHF", 1, "4")));
+    when(template.bulkOps(BulkOperations.BulkMode.UNORDERED, ClaimRollupService.COLLECTION))
+        .thenReturn(ops);
+
+    assertThat(service.rebuild()).isEqualTo(3L);
+
+    ArgumentCaptor<Aggregation> agg = ArgumentCaptor.forClass(Aggregation.class);
+    verify(template).aggregate(agg.capture(), eq("claims"), eq(Document.class));
+    List<Document> stages = agg.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+    assertThat(stages.get(1)).containsKey("$facet");
+    assertThat(stages.get(stages.size() - 1))
+        .isEqualTo(new Document("$out", ClaimRollupService.REBUILD_COLLECTION));
+
+    Map<String, Document> incs = upserts();
+    assertThat(incs.keySet())
+        .containsExactlyInAnyOrder(
+            "STATUS|PAID|CHF", "STATUS|SUBMITTED|CHF", "STATUS|APPROVED|CHF");
+    assertThat(incs.get("STATUS|PAID|CHF").get("count")).isEqualTo(1L);
+    assertThat(incs.get("STATUS|APPROVED|CHF").get("total"))
+        .isEqualTo(new Decimal128(new BigDecimal("-4")));
+    verify(template, never()).dropCollection(ClaimRollupService.COLLECTION);
+    verify(template).dropCollection(ClaimRollupService.REBUILD_COLLECTION);
+    verify(lease).release(ClaimRollupService.LEASE_COLLECTION, "rebuild");
+  }
+
+  @Test
+  void rebuild_does_not_run_while_another_node_holds_the_lease() {
+    when(lease.acquire(eq(ClaimRollupService.LEASE_COLLECTION), eq("rebuild"), any()))
+        .thenReturn(false);
+
+    assertThatThrownBy(() -> service.rebuild()).isInstanceOf(ConflictException.class);
+
+    verifyNoInteractions(template);
+    verify(lease, never()).release(any(), any());
+  }
+
+  private static Document bucket(String id, long count, String total) {
+    return new Document("_id", id)
+        .append("count", count)
+        .append("total", new Decimal128(new BigDecimal(total)));
+  }
+
+  private Map<String, Document> upserts() {
+    ArgumentCaptor<Query> q = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<Update> u = ArgumentCaptor.forClass(Update.class);
+    verify(ops, atLeastOnce()).upsert(q.capture(), u.capture());
+    return IntStream.range(0, q.getAllValues().size())
+        .boxed()
+        .collect(
+            Collectors.toMap(
+                i -> (String) q.getAllValues().get(i).getQueryObject().get("_id"),
+                i -> u.getAllValues().get(i).getUpdateObject().get("$inc", Document.class)));
+  }
+
+  private static ClaimRollupService.Facts facts(
+      ClaimStatus status, String amount, List<String> tags) {
+    return new ClaimRollupService.Facts(status, Currency.CHF, new BigDecimal(amount), MARCH, tags);
+  }
+}
@@ -6,9 +6,15 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
+import org.acssz.ezclaim.cache.EntityCaches;
+import org.acssz.ezclaim.config.EntityCacheProperties;
 import org.acssz.ezclaim.domain.Claim;
 import org.acssz.ezclaim.domain.ClaimStatus;
 import org.acssz.ezclaim.domain.Photo;
@@ -16,12 +22,32 @@ import org.acssz.ezclaim.domain.Tag;
 import org.acssz.ezclaim.repository.ClaimRepository;
 import org.acssz.ezclaim.repository.PhotoRepository;
 import org.acssz.ezclaim.repository.TagRepository;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.LazyLoadingProxy;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import reactor.core.publisher.Flux;
 
 @ExtendWith(MockitoExtension.class)
 class ClaimServiceTest {
@@ -29,6 +55,16 @@ class ClaimServiceTest {
   @Mock ClaimRepository claimRepository;
   @Mock PhotoRepository photoRepository;
   @Mock TagRepository tagRepository;
+  @Mock MongoTemplate template;
+  @Mock ReactiveMongoTemplate reactiveTemplate;
+  @Mock ApplicationEventPublisher events;
+  @Mock ClaimRollupService rollups;
+
+  @Spy
+  EntityCaches caches =
+      new EntityCaches(new EntityCacheProperties(), new SimpleMeterRegistry(), null);
+
+  @Spy ConcurrentCalls calls = new ConcurrentCalls(false);
 
   @InjectMocks ClaimService claimService;
 
@@ -118,6 +154,31 @@ class ClaimServiceTest {
     assertThat(updated.getStatus()).isEqualTo(ClaimStatus.SUBMITTED);
   }
 
+  @Test
+  void update_rejects_a_status_change_the_transition_rules_forbid() {
+    Claim existing = Claim.builder().id("c1").title("t").status(ClaimStatus.PAID).build();
+    when(claimRepository.findById("c1")).thenReturn(Optional.of(existing));
+
+    assertThatThrownBy(
+            () -> claimService.update("c1", "t", null, ClaimStatus.SUBMITTED, null, null))
+        .isInstanceOf(ConflictException.class);
+    verify(claimRepository, never()).save(any());
+    verifyNoInteractions(rollups);
+  }
+
+  @Test
+  void update_replaces_description_and_applies_allowed_transition() {
+    Claim existing =
+        Claim.builder().id("c1").title("t").description("d").status(ClaimStatus.SUBMITTED).build();
+    when(claimRepository.findById("c1")).thenReturn(Optional.of(existing));
+    when(claimRepository.save(any(Claim.class))).thenAnswer(inv -> inv.getArgument(0));
+
+    Claim updated = claimService.update("c1", "t", null, ClaimStatus.APPROVED, null, null);
+
+    assertThat(updated.getStatus()).isEqualTo(ClaimStatus.APPROVED);
+    assertThat(updated.getDescription()).isNull();
+  }
+
   @Test
   void delete_claim_deletes_from_repo() {
     Claim existing = Claim.builder().id("c1").title("old").status(ClaimStatus.SUBMITTED).build();
@@ -126,4 +187,451 @@ class ClaimServiceTest {
     claimService.delete("c1");
     verify(claimRepository, times(1)).delete(eq(existing));
   }
+
+  @Test
+  void search_returns_next_cursor_when_more_rows_exist() {
+    Instant t = Instant.parse("2025-08-12T09:31:00Z");
+    Claim a = Claim.builder().id("664a0c2f7b1f3c2d9b7c9a12").createdAt(t).build();
+    Claim b = Claim.builder().id("664a0c2f7b1f3c2d9b7c9a11").createdAt(t).build();
+    Claim c = Claim.builder().id("664a0c2f7b1f3c2d9b7c9a10").createdAt(t).build();
+    when(template.find(any(Query.class), eq(Claim.class))).thenReturn(List.of(a, b, c));
+
+    ClaimService.KeysetPage page = claimService.search(null, null, 2);
+
+    assertThat(page.content()).containsExactly(a, b);
+    assertThat(page.nextCursor()).isNotBlank();
+    ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+    verify(template).find(captor.capture(), eq(Claim.class));
+    assertThat(captor.getValue().getLimit()).isEqualTo(3);
+  }
+
+  @Test
+  void search_with_fields_projects_and_skips_unselected_references() {
+    Claim a =
+        Claim.builder()
+            .id("664a0c2f7b1f3c2d9b7c9a12")
+            .createdAt(Instant.parse("2025-08-12T09:31:00Z"))
+            .title("t")
+            .build();
+    when(template.find(any(Query.class), eq(Claim.class))).thenReturn(List.of(a));
+
+    claimService.search(null, null, 10, ClaimService.parseFields("title, status"));
+
+    ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+    verify(template).find(captor.capture(), eq(Claim.class));
+    assertThat(captor.getValue().getFieldsObject().keySet())
+        .containsExactlyInAnyOrder("id", "createdAt", "title", "status");
+    verify(template, never()).find(any(Query.class), eq(Photo.class));
+    verify(template, never()).find(any(Query.class), eq(Tag.class));
+  }
+
+  @Test
+  void parse_fields_rejects_unknown_names() {
+    assertThat(ClaimService.parseFields(null)).isNull();
+    assertThat(ClaimService.parseFields(" ")).isNull();
+    assertThat(ClaimService.parseFields("amount,,currency"))
+        .containsExactlyInAnyOrder("id", "createdAt", "amount", "currency");
+    assertThatThrownBy(() -> ClaimService.parseFields("title,passwordHash"))
+        .isInstanceOf(BadRequestException.class)
+        .hasMessageContaining("passwordHash");
+  }
+
+  @Test
+  void search_with_cursor_continues_after_last_row() {
+    Claim last =
+        Claim.builder()
+            .id("664a0c2f7b1f3c2d9b7c9a11")
+            .createdAt(Instant.parse("2025-08-12T09:31:00Z"))
+            .build();
+    when(template.find(any(Query.class), eq(Claim.class)))
+        .thenReturn(List.of(last, last))
+        .thenReturn(List.of());
+    String cursor = claimService.search(null, null, 1).nextCursor();
+
+    ClaimService.KeysetPage next =
+        claimService.search(
+            new ClaimService.Filter(
+                List.of(ClaimStatus.APPROVED), null, null, null, null, null, null, null, null),
+            cursor,
+            1);
+
+    assertThat(next.content()).isEmpty();
+    assertThat(next.nextCursor()).isNull();
+    ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+    verify(template, times(2)).find(captor.capture(), eq(Claim.class));
+    String query = captor.getValue().getQueryObject().toString();
+    assertThat(query).contains("$or").contains("status").contains("664a0c2f7b1f3c2d9b7c9a11");
+  }
+
+  @Test
+  void search_amount_range_uses_minor_units() {
+    when(template.find(any(Query.class), eq(Claim.class))).thenReturn(List.of());
+
+    claimService.search(
+        new ClaimService.Filter(
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            new BigDecimal("10.005"),
+            new BigDecimal("500")),
+        null,
+        10);
+
+    ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+    verify(template).find(captor.capture(), eq(Claim.class));
+    String query = captor.getValue().getQueryObject().toJson();
+    assertThat(query).contains("\"amountMinor\": {\"$gte\": 1001").contains("\"$lte\": 50000");
+  }
+
+  @Test
+  void text_search_ranks_by_score_and_pages_by_offset() {
+    Claim a = Claim.builder().id("a").build();
+    Claim b = Claim.builder().id("b").build();
+    Claim c = Claim.builder().id("c").build();
+    when(template.find(any(Query.class), eq(Claim.class))).thenReturn(List.of(a, b, c));
+
+    ClaimService.SearchPage page =
+        claimService.textSearch(
+            "hotel zurich",
+            new ClaimService.Filter(
+                List.of(ClaimStatus.SUBMITTED), null, null, null, null, null, null, null, null),
+            1,
+            2);
+
+    assertThat(page.content()).containsExactly(a, b);
+    assertThat(page.hasNext()).isTrue();
+    ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+    verify(template).find(captor.capture(), eq(Claim.class));
+    Query q = captor.getValue();
+    assertThat(q.getQueryObject().toString())
+        .contains("$text")
+        .contains("hotel zurich")
+        .contains("status");
+    assertThat(q.getSortObject().keySet()).first().isEqualTo("score");
+    assertThat(q.getSkip()).isEqualTo(2);
+    assertThat(q.getLimit()).isEqualTo(3);
+  }
+
+  @Test
+  void text_search_rejects_blank_query_and_deep_pages() {
+    assertThatThrownBy(() -> claimService.textSearch(" ", null, 0, 10))
+        .isInstanceOf(BadRequestException.class);
+    assertThatThrownBy(() -> claimService.textSearch("x", null, 100, 50))
+        .isInstanceOf(BadRequestException.class);
+    verifyNoInteractions(template);
+  }
+
+  @Test
+  void minor_units_reject_sub_cent_amounts() {
+    assertThat(ClaimService.toMinorUnits(new BigDecimal("199.9"))).isEqualTo(19990L);
+    assertThatThrownBy(() -> ClaimService.toMinorUnits(new BigDecimal("1.234")))
+        .isInstanceOf(BadRequestException.class);
+  }
+
+  @Test
+  void search_rejects_malformed_cursor() {
+    assertThatThrownBy(() -> claimService.search(null, "not-a-cursor", 10))
+        .isInstanceOf(BadRequestException.class);
+  }
+
+  @Test
+  void search_resolves_references_of_whole_page_in_one_query_per_collection() {
+    Claim a =
+        Claim.builder()
+            .id("c1")
+            .createdAt(Instant.now())
+            .photos(lazyRefs("p1", "p2"))
+            .tags(lazyRefs("t1"))
+            .build();
+    Claim b =
+        Claim.builder()
+            .id("c2")
+            .createdAt(Instant.now())
+            .photos(lazyRefs("p2", "gone"))
+            .tags(lazyRefs("t1"))
+            .build();
+    Photo photo2 = Photo.builder().id("p2").bucket("b").key("k2").build();
+    when(template.find(any(Query.class), eq(Claim.class))).thenReturn(List.of(a, b));
+    when(template.find(any(Query.class), eq(Photo.class))).thenReturn(List.of(photo2, photo1));
+    when(template.find(any(Query.class), eq(Tag.class))).thenReturn(List.of(tag1));
+
+    claimService.search(null, null, 10);
+
+    assertThat(a.getPhotos()).extracting(Photo::getId).containsExactly("p1", "p2");
+    assertThat(b.getPhotos()).extracting(Photo::getId).containsExactly("p2");
+    assertThat(b.getTags()).extracting(Tag::getId).containsExactly("t1");
+    verify(template, times(1)).find(any(Query.class), eq(Photo.class));
+    verify(template, times(1)).find(any(Query.class), eq(Tag.class));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> List<T> lazyRefs(String... ids) {
+    LazyLoadingProxy proxy =
+        mock(LazyLoadingProxy.class, withSettings().extraInterfaces(List.class));
+    when(proxy.getSource()).thenReturn(List.of(ids));
+    return (List<T>) proxy;
+  }
+
+  @Test
+  void export_streams_claims_in_batches() {
+    List<Claim> all =
+        IntStream.range(0, 1001)
+            .mapToObj(i -> Claim.builder().id("c" + i).createdAt(Instant.now()).build())
+            .toList();
+    when(template.stream(any(Query.class), eq(Claim.class))).thenReturn(all.stream());
+
+    List<Integer> batchSizes = new ArrayList<>();
+    claimService.export(null, batch -> batchSizes.add(batch.size()));
+
+    assertThat(batchSizes).containsExactly(500, 500, 1);
+    verify(template, never()).find(any(Query.class), eq(Claim.class));
+  }
+
+  @Test
+  void patch_transition_is_one_conditional_update() {
+    // findAndModify hands back the pre-image; the service applies the patch to it
+    Claim stored = Claim.builder().id("c1").status(ClaimStatus.SUBMITTED).version(3L).build();
+    when(template.findAndModify(
+            any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Claim.class)))
+        .thenReturn(stored);
+    when(template.getConverter()).thenReturn(converter());
+
+    Claim result = claimService.patch("c1", statusPatch(ClaimStatus.APPROVED, 3L), true, false);
+
+    assertThat(result.getStatus()).isEqualTo(ClaimStatus.APPROVED);
+    assertThat(result.getVersion()).isEqualTo(4L);
+    ArgumentCaptor<ClaimRollupService.Facts> before =
+        ArgumentCaptor.forClass(ClaimRollupService.Facts.class);
+    ArgumentCaptor<ClaimRollupService.Facts> after =
+        ArgumentCaptor.forClass(ClaimRollupService.Facts.class);
+    verify(rollups).apply(before.capture(), after.capture());
+    assertThat(before.getValue().status()).isEqualTo(ClaimStatus.SUBMITTED);
+    assertThat(after.getValue().status()).isEqualTo(ClaimStatus.APPROVED);
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(template)
+        .findAndModify(
+            query.capture(), update.capture(), any(FindAndModifyOptions.class), eq(Claim.class));
+    assertThat(query.getValue().getQueryObject().get("status").toString()).contains("SUBMITTED");
+    assertThat(query.getValue().getQueryObject().get("version")).isEqualTo(3L);
+    assertThat(update.getValue().getUpdateObject().toString()).contains("$inc");
+    verify(claimRepository, never()).findById(any());
+    verify(claimRepository, never()).save(any());
+    verify(events).publishEvent(any(AfterSaveEvent.class));
+  }
+
+  @Test
+  void patch_missed_because_status_moved_is_conflict() {
+    when(claimRepository.findById("c1"))
+        .thenReturn(
+            Optional.of(Claim.builder().id("c1").status(ClaimStatus.APPROVED).version(4L).build()));
+
+    assertThatThrownBy(
+            () -> claimService.patch("c1", statusPatch(ClaimStatus.APPROVED, null), true, false))
+        .isInstanceOf(ConflictException.class);
+  }
+
+  @Test
+  void patch_missed_because_version_moved_is_precondition_failure() {
+    when(claimRepository.findById("c1"))
+        .thenReturn(
+            Optional.of(
+                Claim.builder().id("c1").status(ClaimStatus.SUBMITTED).version(4L).build()));
+
+    assertThatThrownBy(
+            () -> claimService.patch("c1", statusPatch(ClaimStatus.APPROVED, 3L), true, false))
+        .isInstanceOf(PreconditionFailedException.class);
+  }
+
+  @Test
+  void patch_disallowed_transition_is_denied_without_touching_db() {
+    assertThatThrownBy(
+            () -> claimService.patch("c1", statusPatch(ClaimStatus.PAID, null), false, true))
+        .isInstanceOf(AccessDeniedException.class);
+    verifyNoInteractions(template);
+  }
+
+  @Test
+  void patch_without_any_write_right_is_denied() {
+    assertThatThrownBy(
+            () -> claimService.patch("c1", statusPatch(ClaimStatus.WITHDRAW, null), false, false))
+        .isInstanceOf(AccessDeniedException.class);
+    verifyNoInteractions(template, claimRepository, rollups);
+  }
+
+  @Test
+  void empty_patch_returns_the_claim_without_writing() {
+    Claim stored = Claim.builder().id("c1").status(ClaimStatus.SUBMITTED).version(3L).build();
+    when(claimRepository.findById("c1")).thenReturn(Optional.of(stored));
+
+    Claim result = claimService.patch("c1", statusPatch(null, 3L), false, true);
+
+    assertThat(result.getVersion()).isEqualTo(3L);
+    verifyNoInteractions(template, rollups, events);
+    assertThatThrownBy(() -> claimService.patch("c1", statusPatch(null, 2L), true, false))
+        .isInstanceOf(PreconditionFailedException.class);
+  }
+
+  @Test
+  void update_with_stale_version_is_precondition_failure() {
+    Claim existing = Claim.builder().id("c1").status(ClaimStatus.SUBMITTED).version(5L).build();
+    when(claimRepository.findById("c1")).thenReturn(Optional.of(existing));
+
+    assertThatThrownBy(() -> claimService.update("c1", "t", null, null, null, null, 4L))
+        .isInstanceOf(PreconditionFailedException.class);
+    verify(claimRepository, never()).save(any());
+  }
+
+  @Test
+  void bulk_transition_reports_outcome_per_claim() {
+    String applied = "664a0c2f7b1f3c2d9b7c9a01";
+    String submitted = "664a0c2f7b1f3c2d9b7c9a02";
+    String missing = "664a0c2f7b1f3c2d9b7c9a03";
+    String raced = "664a0c2f7b1f3c2d9b7c9a04";
+    when(template.find(any(Query.class), eq(Claim.class)))
+        .thenReturn(
+            List.of(
+                Claim.builder().id(applied).status(ClaimStatus.APPROVED).version(1L).build(),
+                Claim.builder().id(submitted).status(ClaimStatus.SUBMITTED).version(0L).build(),
+                Claim.builder().id(raced).status(ClaimStatus.APPROVED).version(5L).build()));
+    BulkOperations ops = mock(BulkOperations.class);
+    when(template.bulkOps(BulkOperations.BulkMode.UNORDERED, Claim.class)).thenReturn(ops);
+    when(template.find(any(Query.class), eq(Document.class), eq("claims")))
+        .thenReturn(
+            List.of(
+                new Document("_id", new ObjectId(applied))
+                    .append("status", "PAID")
+                    .append("version", 2L),
+                new Document("_id", new ObjectId(raced))
+                    .append("status", "REJECTED")
+                    .append("version", 6L)));
+    when(template.getConverter()).thenReturn(converter());
+
+    List<ClaimService.TransitionResult> results =
+        claimService.bulkTransition(
+            List.of(applied, submitted, missing, raced, applied), ClaimStatus.PAID);
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<ClaimRollupService.Change>> moves = ArgumentCaptor.forClass(List.class);
+
+    assertThat(results)
+        .extracting(ClaimService.TransitionResult::outcome)
+        .containsExactly(
+            ClaimService.TransitionOutcome.APPLIED,
+            ClaimService.TransitionOutcome.NOT_ALLOWED,
+            ClaimService.TransitionOutcome.NOT_FOUND,
+            ClaimService.TransitionOutcome.CONFLICT);
+    assertThat(results.get(3).status()).isEqualTo(ClaimStatus.REJECTED);
+    verify(ops, times(2)).updateOne(any(Query.class), any(Update.class));
+    verify(ops, times(1)).execute();
+    verify(events, times(1)).publishEvent(any(AfterSaveEvent.class));
+    verify(rollups, never()).apply(any(), any());
+    verify(rollups, times(1)).apply(moves.capture());
+    assertThat(moves.getValue())
+        .singleElement()
+        .satisfies(
+            m -> {
+              assertThat(m.before().status()).isEqualTo(ClaimStatus.APPROVED);
+              assertThat(m.after().status()).isEqualTo(ClaimStatus.PAID);
+            });
+  }
+
+  @Test
+  void bulk_transition_to_unreachable_status_is_denied() {
+    assertThatThrownBy(() -> claimService.bulkTransition(List.of("c1"), ClaimStatus.SUBMITTED))
+        .isInstanceOf(AccessDeniedException.class);
+    verifyNoInteractions(template);
+  }
+
+  @Test
+  void stream_readsRawDocumentsAndResolvesReferencesPerBatch() {
+    String p1 = new ObjectId().toHexString();
+    String t1 = new ObjectId().toHexString();
+    Document first =
+        new Document("_id", new ObjectId())
+            .append("title", "A")
+            .append("status", "SUBMITTED")
+            .append("photos", List.of(new ObjectId(p1)))
+            .append("tags", List.of(new ObjectId(t1)));
+    Document second =
+        new Document("_id", new ObjectId())
+            .append("title", "B")
+            .append("status", "APPROVED")
+            .append("photos", List.of(new ObjectId(p1), new ObjectId()));
+    when(template.getConverter()).thenReturn(converter());
+    when(reactiveTemplate.find(any(Query.class), eq(Document.class), eq("claims")))
+        .thenReturn(Flux.just(first, second));
+    when(reactiveTemplate.find(any(Query.class), eq(Photo.class)))
+        .thenReturn(Flux.just(Photo.builder().id(p1).key("k1").build()));
+    when(reactiveTemplate.find(any(Query.class), eq(Tag.class)))
+        .thenReturn(Flux.just(Tag.builder().id(t1).label("Food").build()));
+
+    List<Claim> claims =
+        claimService.stream(
+                new ClaimService.Filter(
+                    List.of(ClaimStatus.SUBMITTED, ClaimStatus.APPROVED),
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null),
+                null)
+            .collectList()
+            .block();
+
+    assertThat(claims).extracting(Claim::getTitle).containsExactly("A", "B");
+    assertThat(claims.get(0).getPhotos()).extracting(Photo::getKey).containsExactly("k1");
+    assertThat(claims.get(0).getTags()).extracting(Tag::getLabel).containsExactly("Food");
+    // dangling photo id dropped, absent tags left unset
+    assertThat(claims.get(1).getPhotos()).extracting(Photo::getId).containsExactly(p1);
+    assertThat(claims.get(1).getTags()).isNull();
+    ArgumentCaptor<Query> q = ArgumentCaptor.forClass(Query.class);
+    verify(reactiveTemplate).find(q.capture(), eq(Document.class), eq("claims"));
+    assertThat(q.getValue().getSortObject()).containsKeys("createdAt", "_id");
+    verifyNoInteractions(photoRepository, tagRepository);
+  }
+
+  private static MappingMongoConverter converter() {
+    MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+    MongoMappingContext context = new MongoMappingContext();
+    context.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+    MappingMongoConverter converter =
+        new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, context);
+    converter.setCustomConversions(conversions);
+    converter.afterPropertiesSet();
+    return converter;
+  }
+
+  private static ClaimService.Patch statusPatch(ClaimStatus status, Long expectedVersion) {
+    return new ClaimService.Patch(
+        status, null, null, null, null, null, null, null, expectedVersion);
+  }
+
+  @Test
+  void upgradePasswordHash_rehashes_weaker_hash_conditionally() {
+    String legacy = new BCryptPasswordEncoder(4).encode("secret");
+    BCryptPasswordEncoder current = new BCryptPasswordEncoder(5);
+
+    claimService.upgradePasswordHash("c1", legacy, "secret", current);
+
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(template).updateFirst(query.capture(), update.capture(), eq(Claim.class));
+    assertThat(query.getValue().getQueryObject().get("passwordHash")).isEqualTo(legacy);
+    String upgraded =
+        (String)
+            update.getValue().getUpdateObject().get("$set", Document.class).get("passwordHash");
+    assertThat(current.matches("secret", upgraded)).isTrue();
+    assertThat(current.upgradeEncoding(upgraded)).isFalse();
+
+    // Already at the current strength: nothing to do
+    claimService.upgradePasswordHash("c1", upgraded, "secret", current);
+    verifyNoMoreInteractions(template);
+  }
 }
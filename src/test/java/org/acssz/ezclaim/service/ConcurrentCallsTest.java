@@ -0,0 +1,91 @@
+package org.acssz.ezclaim.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentCallsTest {
+
+  @Test
+  void platformMode_runsOnCallerThread() {
+    Thread caller = Thread.currentThread();
+    String result =
+        new ConcurrentCalls(false)
+            .both(
+                () -> Thread.currentThread() == caller,
+                () -> Thread.currentThread() == caller,
+                (a, b) -> a + "/" + b);
+    assertThat(result).isEqualTo("true/true");
+  }
+
+  @Test
+  void virtualMode_runsBothCallsConcurrentlyOnVirtualThreads() {
+    // Each call waits for the other to start, so this only completes if they overlap
+    CountDownLatch started = new CountDownLatch(2);
+    String result =
+        new ConcurrentCalls(true)
+            .both(() -> awaitPeer(started), () -> awaitPeer(started), (a, b) -> a + "/" + b);
+    assertThat(result).isEqualTo("true/true");
+  }
+
+  @Test
+  void virtualMode_firstFailureCancelsSiblingAndIsRethrown() {
+    AtomicBoolean interrupted = new AtomicBoolean();
+    long start = System.nanoTime();
+    assertThatThrownBy(
+            () ->
+                new ConcurrentCalls(true)
+                    .both(
+                        () -> {
+                          try {
+                            Thread.sleep(10_000);
+                          } catch (InterruptedException e) {
+                            interrupted.set(true);
+                          }
+                          return "slow";
+                        },
+                        () -> {
+                          throw new ResourceNotFoundException("Tag not found: t1");
+                        },
+                        (a, b) -> a + b))
+        .isInstanceOf(ResourceNotFoundException.class)
+        .hasMessage("Tag not found: t1");
+    assertThat(interrupted).isTrue();
+    assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+  }
+
+  @Test
+  void virtualMode_allKeepsOrderOfCalls() {
+    List<Supplier<Integer>> calls =
+        IntStream.range(0, 10)
+            .<Supplier<Integer>>mapToObj(
+                i ->
+                    () -> {
+                      try {
+                        Thread.sleep(10 - i);
+                      } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                      }
+                      return i;
+                    })
+            .toList();
+
+    assertThat(new ConcurrentCalls(true).all(calls)).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+  }
+
+  private static boolean awaitPeer(CountDownLatch started) {
+    started.countDown();
+    try {
+      return started.await(5, TimeUnit.SECONDS) && Thread.currentThread().isVirtual();
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
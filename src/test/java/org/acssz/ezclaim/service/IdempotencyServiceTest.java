@@ -0,0 +1,186 @@
+package org.acssz.ezclaim.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.result.UpdateResult;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import org.acssz.ezclaim.domain.IdempotencyRecord;
+import org.acssz.ezclaim.domain.IdempotencyRecord.Status;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+  @Mock MongoTemplate template;
+  @Spy ObjectMapper objectMapper = new ObjectMapper();
+
+  @Spy
+  SecretKey secretKey =
+      new SecretKeySpec(
+          "test-secret-32-bytes-minimum-xxx".getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+
+  @InjectMocks IdempotencyService service;
+
+  AtomicInteger runs = new AtomicInteger();
+
+  private IdempotencyService.Result<String> run(String key, String hash) {
+    return service.run(
+        "claims", key, hash, () -> "c" + runs.incrementAndGet(), v -> v, id -> "replayed:" + id);
+  }
+
+  @Test
+  void first_request_runs_and_records_the_result() {
+    IdempotencyService.Result<String> r = run("k1", "h");
+
+    assertThat(r.value()).isEqualTo("c1");
+    assertThat(r.replayed()).isFalse();
+    ArgumentCaptor<IdempotencyRecord> inserted = ArgumentCaptor.forClass(IdempotencyRecord.class);
+    verify(template).insert(inserted.capture());
+    assertThat(inserted.getValue().getId()).isEqualTo("claims:k1");
+    assertThat(inserted.getValue().getStatus()).isEqualTo(Status.IN_PROGRESS);
+    assertThat(inserted.getValue().getExpiresAt()).isAfter(Instant.now());
+    ArgumentCaptor<Update> completed = ArgumentCaptor.forClass(Update.class);
+    verify(template)
+        .updateFirst(any(Query.class), completed.capture(), eq(IdempotencyRecord.class));
+    assertThat(completed.getValue().getUpdateObject().toString())
+        .contains("COMPLETED")
+        .contains("c1");
+  }
+
+  @Test
+  void repeat_is_replayed_without_running_the_action() {
+    when(template.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+    when(template.findById("claims:k1", IdempotencyRecord.class))
+        .thenReturn(completed("claims:k1", "h", "c9"));
+
+    IdempotencyService.Result<String> r = run("k1", "h");
+
+    assertThat(r.value()).isEqualTo("replayed:c9");
+    assertThat(r.replayed()).isTrue();
+    assertThat(runs).hasValue(0);
+  }
+
+  @Test
+  void concurrent_repeat_waits_for_the_first_request() {
+    when(template.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+    IdempotencyRecord running =
+        IdempotencyRecord.builder()
+            .id("claims:k1")
+            .requestHash("h")
+            .status(Status.IN_PROGRESS)
+            .createdAt(Instant.now())
+            .build();
+    when(template.findById("claims:k1", IdempotencyRecord.class))
+        .thenReturn(running)
+        .thenReturn(completed("claims:k1", "h", "c9"));
+
+    IdempotencyService.Result<String> r = run("k1", "h");
+
+    assertThat(r.value()).isEqualTo("replayed:c9");
+    assertThat(runs).hasValue(0);
+  }
+
+  @Test
+  void stale_attempt_is_taken_over() {
+    when(template.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+    IdempotencyRecord abandoned =
+        IdempotencyRecord.builder()
+            .id("claims:k1")
+            .requestHash("h")
+            .status(Status.IN_PROGRESS)
+            .createdAt(Instant.now().minus(IdempotencyService.STALE_AFTER.multipliedBy(2)))
+            .build();
+    when(template.findById("claims:k1", IdempotencyRecord.class)).thenReturn(abandoned);
+    when(template.updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class)))
+        .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+    IdempotencyService.Result<String> r = run("k1", "h");
+
+    assertThat(r.value()).isEqualTo("c1");
+    assertThat(r.replayed()).isFalse();
+  }
+
+  @Test
+  void key_reused_with_different_request_is_rejected() {
+    when(template.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+    when(template.findById("claims:k1", IdempotencyRecord.class))
+        .thenReturn(completed("claims:k1", "other", "c9"));
+
+    assertThatThrownBy(() -> run("k1", "h")).isInstanceOf(IdempotencyKeyMismatchException.class);
+    assertThat(runs).hasValue(0);
+  }
+
+  @Test
+  void failed_action_releases_the_key() {
+    assertThatThrownBy(
+            () ->
+                service.run(
+                    "claims",
+                    "k1",
+                    "h",
+                    () -> {
+                      throw new IllegalArgumentException("bad");
+                    },
+                    v -> v,
+                    id -> id))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    verify(template).remove(any(Query.class), eq(IdempotencyRecord.class));
+    verify(template, never())
+        .updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class));
+  }
+
+  @Test
+  void without_key_the_action_just_runs() {
+    assertThat(run(null, null).value()).isEqualTo("c1");
+    verifyNoInteractions(template);
+  }
+
+  @Test
+  void fingerprint_covers_secrets_under_the_server_key() {
+    String a = service.fingerprint(Map.of("title", "t", "password", "one"));
+    String b = service.fingerprint(Map.of("title", "t", "password", "two"));
+
+    assertThat(a)
+        .hasSize(64)
+        .isEqualTo(service.fingerprint(Map.of("title", "t", "password", "one")))
+        .isNotEqualTo(b);
+    IdempotencyService otherServer =
+        new IdempotencyService(
+            template,
+            objectMapper,
+            new SecretKeySpec(
+                "another-secret-32-bytes-minimum!".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+    assertThat(otherServer.fingerprint(Map.of("title", "t", "password", "one"))).isNotEqualTo(a);
+  }
+
+  private static IdempotencyRecord completed(String id, String hash, String resourceId) {
+    return IdempotencyRecord.builder()
+        .id(id)
+        .requestHash(hash)
+        .status(Status.COMPLETED)
+        .resourceId(resourceId)
+        .createdAt(Instant.now())
+        .build();
+  }
+}
@@ -0,0 +1,163 @@
+package org.acssz.ezclaim.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.acssz.ezclaim.config.ObjectStoreProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.ListMultipartUploadsRequest;
+import software.amazon.awssdk.services.s3.model.ListMultipartUploadsResponse;
+import software.amazon.awssdk.services.s3.model.MultipartUpload;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import software.amazon.awssdk.services.s3.paginators.ListMultipartUploadsIterable;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedUploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
+
+@ExtendWith(MockitoExtension.class)
+class MultipartUploadServiceTest {
+
+  @Mock S3Client s3;
+  @Mock S3Presigner presigner;
+
+  MultipartUploadService service;
+
+  @BeforeEach
+  void setup() {
+    ObjectStoreProperties props = new ObjectStoreProperties();
+    props.setBucket("bkt");
+    service = new MultipartUploadService(s3, presigner, props);
+  }
+
+  @Test
+  void initiate_defaults_bucket_and_key() {
+    when(s3.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+        .thenReturn(CreateMultipartUploadResponse.builder().uploadId("u1").build());
+
+    var started = service.initiate(null, null, "application/pdf");
+
+    assertThat(started.bucket()).isEqualTo("bkt");
+    assertThat(started.key()).isNotBlank();
+    assertThat(started.uploadId()).isEqualTo("u1");
+  }
+
+  @Test
+  void signParts_presigns_each_part_in_order() throws Exception {
+    when(presigner.presignUploadPart(any(UploadPartPresignRequest.class)))
+        .thenAnswer(
+            inv -> {
+              UploadPartPresignRequest req = inv.getArgument(0);
+              PresignedUploadPartRequest presigned = mock(PresignedUploadPartRequest.class);
+              when(presigned.url())
+                  .thenReturn(
+                      new URL(
+                          "http://localhost:9000/k?part=" + req.uploadPartRequest().partNumber()));
+              return presigned;
+            });
+
+    var parts = service.signParts(null, "k", "u1", List.of(3, 1), Duration.ofMinutes(5));
+
+    assertThat(parts).extracting(MultipartUploadService.PartUrl::partNumber).containsExactly(3, 1);
+    assertThat(parts.get(0).url().getQuery()).isEqualTo("part=3");
+  }
+
+  @Test
+  void signParts_rejects_out_of_range_part_numbers() {
+    assertThatThrownBy(() -> service.signParts(null, "k", "u1", List.of(0), null))
+        .isInstanceOf(BadRequestException.class);
+    assertThatThrownBy(() -> service.signParts(null, "k", "u1", List.of(10_001), null))
+        .isInstanceOf(BadRequestException.class);
+    verifyNoInteractions(presigner);
+  }
+
+  @Test
+  void complete_sorts_parts_and_rejects_duplicates() {
+    when(s3.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+        .thenReturn(CompleteMultipartUploadResponse.builder().eTag("\"e-2\"").build());
+
+    MultipartUploadService.Completed done =
+        service.complete(
+            null,
+            "k",
+            "u1",
+            List.of(
+                new MultipartUploadService.Part(2, "\"b\"", null),
+                new MultipartUploadService.Part(1, "\"a\"", null)));
+
+    assertThat(done.etag()).isEqualTo("\"e-2\"");
+    assertThat(done.bucket()).isEqualTo("bkt");
+    ArgumentCaptor<CompleteMultipartUploadRequest> req =
+        ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+    verify(s3).completeMultipartUpload(req.capture());
+    assertThat(req.getValue().multipartUpload().parts())
+        .extracting(CompletedPart::partNumber)
+        .containsExactly(1, 2);
+
+    assertThatThrownBy(
+            () ->
+                service.complete(
+                    null,
+                    "k",
+                    "u1",
+                    List.of(
+                        new MultipartUploadService.Part(1, "\"a\"", null),
+                        new MultipartUploadService.Part(1, "\"a\"", null))))
+        .isInstanceOf(BadRequestException.class);
+  }
+
+  @Test
+  void abort_unknown_upload_is_not_found() {
+    when(s3.abortMultipartUpload(any(AbortMultipartUploadRequest.class)))
+        .thenThrow(NoSuchUploadException.builder().message("gone").build());
+
+    assertThatThrownBy(() -> service.abort(null, "k", "u1"))
+        .isInstanceOf(ResourceNotFoundException.class);
+  }
+
+  @Test
+  void abortStale_aborts_only_uploads_older_than_cutoff() {
+    MultipartUpload old =
+        MultipartUpload.builder()
+            .key("old")
+            .uploadId("u-old")
+            .initiated(Instant.now().minus(Duration.ofDays(2)))
+            .build();
+    MultipartUpload fresh =
+        MultipartUpload.builder()
+            .key("fresh")
+            .uploadId("u-fresh")
+            .initiated(Instant.now().minus(Duration.ofMinutes(5)))
+            .build();
+    when(s3.listMultipartUploads(any(ListMultipartUploadsRequest.class)))
+        .thenReturn(
+            ListMultipartUploadsResponse.builder().uploads(old, fresh).isTruncated(false).build());
+    when(s3.listMultipartUploadsPaginator(any(ListMultipartUploadsRequest.class)))
+        .thenAnswer(inv -> new ListMultipartUploadsIterable(s3, inv.getArgument(0)));
+
+    int aborted = service.abortStale(Duration.ofHours(24));
+
+    assertThat(aborted).isEqualTo(1);
+    ArgumentCaptor<AbortMultipartUploadRequest> req =
+        ArgumentCaptor.forClass(AbortMultipartUploadRequest.class);
+    verify(s3).abortMultipartUpload(req.capture());
+    assertThat(req.getValue().uploadId()).isEqualTo("u-old");
+  }
+}
@@ -0,0 +1,287 @@
+package org.acssz.ezclaim.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.mongodb.client.result.DeleteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import org.acssz.ezclaim.config.ObjectStoreProperties;
+import org.acssz.ezclaim.domain.Photo;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+@ExtendWith(MockitoExtension.class)
+class PhotoGarbageCollectorTest {
+
+  @Mock MongoTemplate template;
+  @Mock S3Client s3;
+  @Mock S3AsyncClient s3Async;
+  @Mock ObjectProvider<S3AsyncClient> asyncProvider;
+
+  ObjectStoreProperties props;
+  PhotoGarbageCollector collector;
+
+  static final Instant OLD = Instant.now().minus(Duration.ofDays(30));
+
+  @BeforeEach
+  void setup() {
+    props = new ObjectStoreProperties();
+    props.setBucket("bkt");
+    collector =
+        new PhotoGarbageCollector(
+            template,
+            new MongoLease(template),
+            s3,
+            asyncProvider,
+            props,
+            new PresignedUrlCache(props, new SimpleMeterRegistry()),
+            new SimpleMeterRegistry());
+    lenient()
+        .when(
+            template.findAndModify(
+                any(Query.class),
+                any(Update.class),
+                any(FindAndModifyOptions.class),
+                eq(Document.class),
+                eq("photo_gc")))
+        .thenReturn(new Document("_id", "lease"));
+    lenient()
+        .when(s3.deleteObjects(any(DeleteObjectsRequest.class)))
+        .thenReturn(DeleteObjectsResponse.builder().build());
+    lenient()
+        .when(template.remove(any(Query.class), eq(Photo.class)))
+        .thenAnswer(inv -> DeleteResult.acknowledged(1));
+  }
+
+  @Test
+  void deletes_unreferenced_records_with_their_objects() {
+    String kept = new ObjectId().toHexString();
+    String orphan = new ObjectId().toHexString();
+    when(template.find(any(Query.class), eq(Photo.class)))
+        .thenReturn(
+            List.of(
+                photo(kept, "kept.jpg"),
+                Photo.builder()
+                    .id(orphan)
+                    .bucket("bkt")
+                    .key("gone.jpg")
+                    .size(100L)
+                    .uploadedAt(OLD)
+                    .variants(Map.of("thumb", "gone.jpg.thumb.jpg"))
+                    .build()));
+    when(template.findDistinct(any(Query.class), eq("photos"), eq("claims"), eq(Object.class)))
+        .thenReturn(List.of(new ObjectId(kept)));
+    listing(page(false));
+
+    PhotoGarbageCollector.Report report = collector.collect(false);
+
+    assertThat(report.recordsScanned()).isEqualTo(2);
+    assertThat(report.recordsOrphaned()).isEqualTo(1);
+    assertThat(report.objectsOrphaned()).isEqualTo(2);
+    assertThat(report.bytesOrphaned()).isEqualTo(100);
+    verify(template).remove(any(Query.class), eq(Photo.class));
+    assertThat(deletedKeys()).containsExactly(List.of("gone.jpg", "gone.jpg.thumb.jpg"));
+  }
+
+  @Test
+  void keeps_objects_another_record_still_points_at() {
+    String live = new ObjectId().toHexString();
+    String duplicate = new ObjectId().toHexString();
+    when(template.find(any(Query.class), eq(Photo.class)))
+        .thenReturn(List.of(photo(live, "shared.jpg"), photo(duplicate, "shared.jpg")))
+        .thenReturn(List.of(photo(live, "shared.jpg"))) // other records for the orphan's object
+        .thenReturn(List.of());
+    when(template.findDistinct(any(Query.class), eq("photos"), eq("claims"), eq(Object.class)))
+        .thenReturn(List.of(new ObjectId(live)));
+    listing(page(false));
+
+    PhotoGarbageCollector.Report report = collector.collect(false);
+
+    assertThat(report.recordsOrphaned()).isEqualTo(1);
+    assertThat(report.objectsOrphaned()).isZero();
+    verify(template).remove(any(Query.class), eq(Photo.class));
+    verify(s3, never()).deleteObjects(any(DeleteObjectsRequest.class));
+  }
+
+  @Test
+  void deletes_old_objects_without_records_page_by_page() {
+    when(template.find(any(Query.class), eq(Photo.class)))
+        .thenReturn(List.of()) // no old records
+        .thenReturn(List.of(photo(new ObjectId().toHexString(), "a.jpg")))
+        .thenReturn(List.of());
+    ListObjectsV2Response first =
+        page(
+                true,
+                object("a.jpg", OLD),
+                object("a.jpg.thumb.jpg", OLD),
+                object("stray.jpg", OLD),
+                object("fresh.jpg", Instant.now()))
+            .toBuilder()
+            .nextContinuationToken("t2")
+            .build();
+    listing(first, page(false, object("z.jpg", OLD)));
+
+    PhotoGarbageCollector.Report report = collector.collect(false);
+
+    assertThat(report.objectsScanned()).isEqualTo(5);
+    assertThat(report.objectsOrphaned()).isEqualTo(2);
+    assertThat(deletedKeys()).containsExactly(List.of("stray.jpg"), List.of("z.jpg"));
+    ArgumentCaptor<ListObjectsV2Request> requests =
+        ArgumentCaptor.forClass(ListObjectsV2Request.class);
+    verify(s3, times(2)).listObjectsV2(requests.capture());
+    assertThat(requests.getAllValues().get(1).continuationToken()).isEqualTo("t2");
+    // Position saved after each listed page, then cleared at the end of each pass; lease released
+    verify(template, times(2)).upsert(any(Query.class), any(Update.class), eq("photo_gc"));
+    verify(template, times(3)).remove(any(Query.class), eq("photo_gc"));
+  }
+
+  @Test
+  void splits_deletes_into_batches_of_a_thousand() {
+    when(template.find(any(Query.class), eq(Photo.class))).thenReturn(List.of());
+    listing(
+        page(
+            false,
+            IntStream.range(0, 1500).mapToObj(i -> object("k" + i, OLD)).toArray(S3Object[]::new)));
+
+    collector.collect(false);
+
+    assertThat(deletedKeys()).extracting(List::size).containsExactly(1000, 500);
+  }
+
+  @Test
+  void dry_run_reports_without_deleting_or_checkpointing() {
+    String orphan = new ObjectId().toHexString();
+    when(template.find(any(Query.class), eq(Photo.class)))
+        .thenReturn(List.of(photo(orphan, "gone.jpg")))
+        .thenReturn(List.of());
+    when(template.findDistinct(any(Query.class), eq("photos"), eq("claims"), eq(Object.class)))
+        .thenReturn(List.of());
+    listing(page(false, object("stray.jpg", OLD)));
+
+    PhotoGarbageCollector.Report report = collector.collect(true);
+
+    assertThat(report.dryRun()).isTrue();
+    assertThat(report.recordsOrphaned()).isEqualTo(1);
+    assertThat(report.objectsOrphaned()).isEqualTo(2);
+    assertThat(report.sample()).containsExactly("bkt/gone.jpg", "bkt/stray.jpg");
+    verify(template, never()).remove(any(Query.class), eq(Photo.class));
+    verify(template, never()).upsert(any(Query.class), any(Update.class), anyString());
+    verify(template, never()).findById(any(), any(), anyString());
+    verify(s3, never()).deleteObjects(any(DeleteObjectsRequest.class));
+  }
+
+  @Test
+  void async_client_lists_the_next_page_while_deleting_from_this_one() {
+    when(asyncProvider.getIfAvailable()).thenReturn(s3Async);
+    when(template.find(any(Query.class), eq(Photo.class))).thenReturn(List.of());
+    CompletableFuture<ListObjectsV2Response> second = new CompletableFuture<>();
+    when(s3Async.listObjectsV2(any(ListObjectsV2Request.class)))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                page(true, object("a.jpg", OLD)).toBuilder().nextContinuationToken("t2").build()))
+        .thenReturn(second);
+    CompletableFuture<DeleteObjectsResponse> deleted = new CompletableFuture<>();
+    when(s3Async.deleteObjects(any(DeleteObjectsRequest.class)))
+        .thenAnswer(
+            inv -> {
+              // The second page is already requested while the first one is processed
+              verify(s3Async, times(2)).listObjectsV2(any(ListObjectsV2Request.class));
+              verify(template, never()).upsert(any(Query.class), any(Update.class), anyString());
+              second.complete(page(false));
+              deleted.complete(DeleteObjectsResponse.builder().build());
+              return deleted;
+            });
+
+    PhotoGarbageCollector.Report report = collector.collect(false);
+
+    assertThat(report.objectsOrphaned()).isEqualTo(1);
+    verify(s3, never()).listObjectsV2(any(ListObjectsV2Request.class));
+    verify(s3, never()).deleteObjects(any(DeleteObjectsRequest.class));
+    verify(template).upsert(any(Query.class), any(Update.class), eq("photo_gc"));
+  }
+
+  @Test
+  void does_not_run_while_another_node_holds_the_lease() {
+    when(template.findAndModify(
+            any(Query.class),
+            any(Update.class),
+            any(FindAndModifyOptions.class),
+            eq(Document.class),
+            eq("photo_gc")))
+        .thenThrow(new DuplicateKeyException("lease held"));
+
+    assertThatThrownBy(() -> collector.collect(false)).isInstanceOf(ConflictException.class);
+
+    verify(template, never()).find(any(Query.class), eq(Photo.class));
+    verify(s3, never()).listObjectsV2(any(ListObjectsV2Request.class));
+  }
+
+  @Test
+  void object_sweep_stays_under_the_configured_prefix() {
+    props.setOrphanSweepPrefix("photos/");
+    when(template.find(any(Query.class), eq(Photo.class))).thenReturn(List.of());
+    listing(page(false));
+
+    collector.collect(false);
+
+    ArgumentCaptor<ListObjectsV2Request> request =
+        ArgumentCaptor.forClass(ListObjectsV2Request.class);
+    verify(s3).listObjectsV2(request.capture());
+    assertThat(request.getValue().prefix()).isEqualTo("photos/");
+  }
+
+  private List<List<String>> deletedKeys() {
+    ArgumentCaptor<DeleteObjectsRequest> captor =
+        ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+    verify(s3, atLeast(0)).deleteObjects(captor.capture());
+    return captor.getAllValues().stream()
+        .map(r -> r.delete().objects().stream().map(ObjectIdentifier::key).toList())
+        .toList();
+  }
+
+  private void listing(ListObjectsV2Response first, ListObjectsV2Response... rest) {
+    when(s3.listObjectsV2(any(ListObjectsV2Request.class))).thenReturn(first, rest);
+  }
+
+  private static ListObjectsV2Response page(boolean truncated, S3Object... objects) {
+    return ListObjectsV2Response.builder().isTruncated(truncated).contents(objects).build();
+  }
+
+  private static S3Object object(String key, Instant lastModified) {
+    return S3Object.builder().key(key).lastModified(lastModified).size(10L).build();
+  }
+
+  private static Photo photo(String id, String key) {
+    return Photo.builder().id(id).bucket("bkt").key(key).uploadedAt(OLD).build();
+  }
+}
@@ -1,25 +1,55 @@
 package org.acssz.ezclaim.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import javax.imageio.ImageIO;
+import org.acssz.ezclaim.cache.EntityCaches;
+import org.acssz.ezclaim.config.EntityCacheProperties;
 import org.acssz.ezclaim.config.ObjectStoreProperties;
 import org.acssz.ezclaim.domain.Photo;
 import org.acssz.ezclaim.repository.PhotoRepository;
+import org.acssz.ezclaim.storage.LocalObjectStore;
+import org.acssz.ezclaim.storage.S3ObjectStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
 import software.amazon.awssdk.http.SdkHttpFullRequest;
 import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
@@ -31,7 +61,9 @@ class PhotoServiceTest {
 
   @Mock PhotoRepository photoRepository;
   @Mock S3Client s3Client;
+  @Mock ObjectProvider<S3AsyncClient> s3Async;
   @Mock S3Presigner s3Presigner;
+  @Mock PhotoVariantService variants;
 
   ObjectStoreProperties props;
 
@@ -42,11 +74,20 @@ class PhotoServiceTest {
     props = new ObjectStoreProperties();
     props.setBucket("bkt");
     // re-inject since @InjectMocks happens before @BeforeEach
-    photoService = new PhotoService(photoRepository, s3Client, s3Presigner, props);
+    photoService =
+        new PhotoService(
+            photoRepository,
+            new S3ObjectStore(s3Client, s3Async, s3Presigner),
+            props,
+            new EntityCaches(new EntityCacheProperties(), new SimpleMeterRegistry(), null),
+            new PresignedUrlCache(props, new SimpleMeterRegistry()),
+            new ConcurrentCalls(true),
+            variants);
   }
 
   @Test
-  void createRecord_sets_defaults_and_saves() {
+  void createRecord_sets_defaults_and_saves() throws Exception {
+    stubUploaded(png(40, 30), 123_456);
     when(photoRepository.save(any(Photo.class)))
         .thenAnswer(
             inv -> {
@@ -59,6 +100,174 @@ class PhotoServiceTest {
     assertThat(p.getBucket()).isEqualTo("bkt");
     assertThat(p.getKey()).isEqualTo("key");
     assertThat(p.getUploadedAt()).isNotNull();
+    assertThat(p.getVariantStatus()).isEqualTo(Photo.VariantStatus.PENDING);
+    assertThat(p.getSize()).isEqualTo(123_456L);
+    assertThat(p.getEtag()).isEqualTo("\"abc\"");
+    assertThat(p.getContentType()).isEqualTo("image/png");
+    assertThat(p.getWidth()).isEqualTo(40);
+    assertThat(p.getHeight()).isEqualTo(30);
+    verify(variants).submit(p);
+  }
+
+  @Test
+  void createRecord_rejects_missing_empty_and_oversized_objects() {
+    when(s3Client.getObject(any(GetObjectRequest.class)))
+        .thenThrow(NoSuchKeyException.builder().message("missing").build());
+    assertThatThrownBy(() -> photoService.createRecord(null, "gone"))
+        .isInstanceOf(BadRequestException.class)
+        .hasMessageContaining("not found");
+
+    reset(s3Client);
+    when(s3Client.getObject(any(GetObjectRequest.class)))
+        .thenThrow(S3Exception.builder().statusCode(416).message("InvalidRange").build());
+    assertThatThrownBy(() -> photoService.createRecord(null, "empty"))
+        .isInstanceOf(BadRequestException.class)
+        .hasMessageContaining("empty");
+
+    reset(s3Client);
+    stubUploaded(new byte[16], props.getMaxPhotoBytes() + 1);
+    assertThatThrownBy(() -> photoService.createRecord(null, "huge"))
+        .isInstanceOf(BadRequestException.class)
+        .hasMessageContaining("too large");
+    verifyNoInteractions(photoRepository, variants);
+  }
+
+  @Test
+  void createRecord_keeps_non_images_without_dimensions() {
+    stubUploaded("%PDF-1.7".getBytes(StandardCharsets.US_ASCII), 2048);
+    when(photoRepository.save(any(Photo.class))).thenAnswer(inv -> inv.getArgument(0));
+
+    Photo p = photoService.createRecord(null, "receipt.pdf");
+
+    assertThat(p.getSize()).isEqualTo(2048L);
+    assertThat(p.getWidth()).isNull();
+    assertThat(p.getHeight()).isNull();
+  }
+
+  @Test
+  void signDownload_trusts_verified_record_without_head() throws Exception {
+    PresignedGetObjectRequest presigned = mock(PresignedGetObjectRequest.class);
+    when(presigned.url()).thenReturn(new URL("http://localhost:9000/get"));
+    when(s3Presigner.presignGetObject(any(GetObjectPresignRequest.class))).thenReturn(presigned);
+    Photo verified = Photo.builder().id("p1").bucket("bkt").key("key").size(10L).build();
+
+    photoService.signDownload(verified, null, null);
+
+    verify(s3Client, never()).headObject(any(HeadObjectRequest.class));
+  }
+
+  @Test
+  void createRecords_inserts_all_with_one_call() {
+    stubUploaded(new byte[16], 16);
+    when(photoRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+    List<Photo> photos =
+        photoService.createRecords(
+            List.of(
+                new PhotoService.ObjectRef(null, "a.jpg"),
+                new PhotoService.ObjectRef("other", "b.jpg")));
+
+    assertThat(photos).extracting(Photo::getKey).containsExactly("a.jpg", "b.jpg");
+    assertThat(photos).extracting(Photo::getBucket).containsExactly("bkt", "other");
+    assertThat(photos.get(0).getUploadedAt()).isEqualTo(photos.get(1).getUploadedAt());
+    verify(photoRepository, times(1)).saveAll(anyList());
+    verify(photoRepository, never()).save(any());
+    verify(variants, times(2)).submit(any(Photo.class));
+  }
+
+  @Test
+  void createRecords_rejects_oversized_batch() {
+    List<PhotoService.ObjectRef> refs =
+        IntStream.range(0, PhotoService.MAX_BATCH + 1)
+            .mapToObj(i -> new PhotoService.ObjectRef(null, "k" + i))
+            .toList();
+    assertThatThrownBy(() -> photoService.createRecords(refs))
+        .isInstanceOf(BadRequestException.class);
+    verifyNoInteractions(photoRepository);
+  }
+
+  @Test
+  void signDownloads_returns_urls_in_photo_order() throws Exception {
+    when(s3Presigner.presignGetObject(any(GetObjectPresignRequest.class)))
+        .thenAnswer(
+            inv -> {
+              GetObjectPresignRequest req = inv.getArgument(0);
+              PresignedGetObjectRequest presigned = mock(PresignedGetObjectRequest.class);
+              when(presigned.url())
+                  .thenReturn(new URL("http://localhost:9000/" + req.getObjectRequest().key()));
+              return presigned;
+            });
+    List<Photo> photos =
+        IntStream.range(0, 5)
+            .mapToObj(i -> Photo.builder().id("p" + i).bucket("bkt").key("k" + i).build())
+            .toList();
+
+    var urls = photoService.signDownloads(photos, null, null);
+
+    assertThat(urls)
+        .extracting(u -> u.url().getPath())
+        .containsExactly("/k0", "/k1", "/k2", "/k3", "/k4");
+  }
+
+  @Test
+  void signDownloads_leaves_a_gap_for_a_missing_object() throws Exception {
+    when(s3Presigner.presignGetObject(any(GetObjectPresignRequest.class)))
+        .thenAnswer(
+            inv -> {
+              GetObjectPresignRequest req = inv.getArgument(0);
+              PresignedGetObjectRequest presigned = mock(PresignedGetObjectRequest.class);
+              when(presigned.url())
+                  .thenReturn(new URL("http://localhost:9000/" + req.getObjectRequest().key()));
+              return presigned;
+            });
+    when(s3Client.headObject(any(HeadObjectRequest.class)))
+        .thenAnswer(
+            inv -> {
+              HeadObjectRequest req = inv.getArgument(0);
+              if (req.key().equals("gone")) throw NoSuchKeyException.builder().build();
+              return HeadObjectResponse.builder().build();
+            });
+    List<Photo> photos =
+        List.of(
+            Photo.builder().id("p1").bucket("bkt").key("k1").build(),
+            Photo.builder().id("p2").bucket("bkt").key("gone").build(),
+            Photo.builder().id("p3").bucket("bkt").key("k3").build());
+
+    var urls = photoService.signDownloads(photos, null, null);
+
+    assertThat(urls).hasSize(3);
+    assertThat(urls.get(0).url().getPath()).isEqualTo("/k1");
+    assertThat(urls.get(1)).isNull();
+    assertThat(urls.get(2).url().getPath()).isEqualTo("/k3");
+  }
+
+  @Test
+  void signDownloads_uses_variant_where_generated() throws Exception {
+    when(s3Presigner.presignGetObject(any(GetObjectPresignRequest.class)))
+        .thenAnswer(
+            inv -> {
+              GetObjectPresignRequest req = inv.getArgument(0);
+              PresignedGetObjectRequest presigned = mock(PresignedGetObjectRequest.class);
+              when(presigned.url())
+                  .thenReturn(new URL("http://localhost:9000/" + req.getObjectRequest().key()));
+              return presigned;
+            });
+    Photo ready =
+        Photo.builder()
+            .id("p1")
+            .bucket("bkt")
+            .key("a.jpg")
+            .variants(Map.of("thumb", "a.jpg.thumb.jpg"))
+            .build();
+    Photo pending = Photo.builder().id("p2").bucket("bkt").key("b.jpg").build();
+
+    var urls = photoService.signDownloads(List.of(ready, pending), "thumb", null);
+
+    assertThat(urls)
+        .extracting(u -> u.url().getPath())
+        .containsExactly("/a.jpg.thumb.jpg", "/b.jpg");
+    assertThatThrownBy(() -> photoService.signDownloads(List.of(ready), "huge", null))
+        .isInstanceOf(BadRequestException.class);
   }
 
   @Test
@@ -72,6 +281,44 @@ class PhotoServiceTest {
     verify(s3Client, times(1)).deleteObject(any(DeleteObjectRequest.class));
   }
 
+  @Test
+  void delete_with_deleteObject_true_removes_variants_too() {
+    Photo p =
+        Photo.builder()
+            .id("p1")
+            .bucket("b")
+            .key("k")
+            .variants(Map.of("thumb", "k.thumb.jpg", "preview", "k.preview.jpg"))
+            .build();
+    when(photoRepository.findById("p1")).thenReturn(java.util.Optional.of(p));
+
+    photoService.delete("p1", true);
+
+    verify(s3Client, times(3)).deleteObject(any(DeleteObjectRequest.class));
+  }
+
+  @Test
+  void delete_goes_through_async_client_when_configured() {
+    S3AsyncClient async = mock(S3AsyncClient.class);
+    when(s3Async.getIfAvailable()).thenReturn(async);
+    when(async.deleteObject(any(DeleteObjectRequest.class)))
+        .thenReturn(CompletableFuture.completedFuture(DeleteObjectResponse.builder().build()))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("boom")));
+    Photo p =
+        Photo.builder()
+            .id("p1")
+            .bucket("b")
+            .key("k")
+            .variants(Map.of("thumb", "k.thumb.jpg"))
+            .build();
+    when(photoRepository.findById("p1")).thenReturn(java.util.Optional.of(p));
+
+    photoService.delete("p1", true); // a failed delete is logged, not thrown
+
+    verify(async, times(2)).deleteObject(any(DeleteObjectRequest.class));
+    verify(s3Client, never()).deleteObject(any(DeleteObjectRequest.class));
+  }
+
   @Test
   void signUpload_returns_presigned_put_details() throws Exception {
     PresignedPutObjectRequest presigned = mock(PresignedPutObjectRequest.class);
@@ -101,4 +348,117 @@ class PhotoServiceTest {
     var result = photoService.signDownload("bkt", "key", Duration.ofSeconds(60));
     assertThat(result.url().toString()).contains("http://localhost:9000/get");
   }
+
+  @Test
+  void signDownload_reuses_cached_url_without_another_head() throws Exception {
+    PresignedGetObjectRequest presigned = mock(PresignedGetObjectRequest.class);
+    when(presigned.url()).thenReturn(new URL("http://localhost:9000/get"));
+    when(s3Presigner.presignGetObject(any(GetObjectPresignRequest.class))).thenReturn(presigned);
+
+    var first = photoService.signDownload("bkt", "key", Duration.ofSeconds(590));
+    var second = photoService.signDownload("bkt", "key", Duration.ofMinutes(10));
+
+    assertThat(second).isSameAs(first);
+    assertThat(first.expiresAt()).isAfter(first.reusableUntil());
+    verify(s3Client, times(1)).headObject(any(HeadObjectRequest.class));
+    verify(s3Presigner, times(1)).presignGetObject(any(GetObjectPresignRequest.class));
+  }
+
+  @Test
+  void signDownload_remembers_missing_object() {
+    when(s3Client.headObject(any(HeadObjectRequest.class)))
+        .thenThrow(NoSuchKeyException.builder().message("missing").build());
+
+    for (int i = 0; i < 2; i++) {
+      assertThatThrownBy(() -> photoService.signDownload("bkt", "gone", null))
+          .isInstanceOf(ResourceNotFoundException.class);
+    }
+    verify(s3Client, times(1)).headObject(any(HeadObjectRequest.class));
+    verifyNoInteractions(s3Presigner);
+  }
+
+  @Test
+  void delete_forgets_cached_url() throws Exception {
+    PresignedGetObjectRequest presigned = mock(PresignedGetObjectRequest.class);
+    when(presigned.url()).thenReturn(new URL("http://localhost:9000/get"));
+    when(s3Presigner.presignGetObject(any(GetObjectPresignRequest.class))).thenReturn(presigned);
+    Photo p = Photo.builder().id("p1").bucket("bkt").key("key").uploadedAt(Instant.now()).build();
+    when(photoRepository.findById("p1")).thenReturn(java.util.Optional.of(p));
+
+    photoService.signDownload("bkt", "key", null);
+    photoService.delete("p1", true);
+    photoService.signDownload("bkt", "key", null);
+
+    verify(s3Client, times(2)).headObject(any(HeadObjectRequest.class));
+  }
+
+  @Test
+  void bucketed_rounds_up_to_whole_minutes_within_s3_limits() {
+    assertThat(PresignedUrlCache.bucketed(Duration.ofSeconds(1))).isEqualTo(Duration.ofMinutes(1));
+    assertThat(PresignedUrlCache.bucketed(Duration.ofSeconds(61))).isEqualTo(Duration.ofMinutes(2));
+    assertThat(PresignedUrlCache.bucketed(Duration.ofDays(30))).isEqualTo(Duration.ofDays(7));
+  }
+
+  @Test
+  void photo_flow_runs_offline_on_the_local_store(@TempDir Path dir) throws Exception {
+    props.setLocalRoot(dir);
+    props.setLocalSigningKey("test-key");
+    LocalObjectStore local = new LocalObjectStore(props);
+    PhotoService offline =
+        new PhotoService(
+            photoRepository,
+            local,
+            props,
+            new EntityCaches(new EntityCacheProperties(), new SimpleMeterRegistry(), null),
+            new PresignedUrlCache(props, new SimpleMeterRegistry()),
+            new ConcurrentCalls(true),
+            variants);
+    when(photoRepository.save(any(Photo.class)))
+        .thenAnswer(
+            inv -> {
+              Photo p = inv.getArgument(0);
+              p.setId("p1");
+              return p;
+            });
+
+    PhotoService.PresignedPut put = offline.signUpload(null, "a/b.png", "image/png", null);
+    assertThat(put.url().getPath()).isEqualTo("/api/objects/bkt/a/b.png");
+    assertThat(put.headers()).containsEntry("Content-Type", List.of("image/png"));
+    byte[] image = png(40, 30);
+    local.write("bkt", "a/b.png", new ByteArrayInputStream(image), Long.MAX_VALUE);
+
+    Photo photo = offline.createRecord(null, "a/b.png");
+    assertThat(photo.getSize()).isEqualTo(image.length);
+    assertThat(photo.getContentType()).isEqualTo("image/png");
+    assertThat(photo.getWidth()).isEqualTo(40);
+    assertThat(photo.getHeight()).isEqualTo(30);
+
+    PhotoService.PresignedGet get = offline.signDownload(photo, null, null);
+    assertThat(get.url().getPath()).isEqualTo("/api/objects/bkt/a/b.png");
+    assertThat(get.url().getQuery()).contains("expires=", "signature=");
+
+    when(photoRepository.findById("p1")).thenReturn(java.util.Optional.of(photo));
+    offline.delete("p1", true);
+    assertThat(local.exists("bkt", "a/b.png")).isFalse();
+  }
+
+  private void stubUploaded(byte[] head, long total) {
+    when(s3Client.getObject(any(GetObjectRequest.class)))
+        .thenAnswer(
+            inv ->
+                new ResponseInputStream<>(
+                    GetObjectResponse.builder()
+                        .contentLength((long) head.length)
+                        .contentRange("bytes 0-" + (head.length - 1) + "/" + total)
+                        .eTag("\"abc\"")
+                        .contentType("image/png")
+                        .build(),
+                    AbortableInputStream.create(new ByteArrayInputStream(head))));
+  }
+
+  private static byte[] png(int width, int height) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+    return out.toByteArray();
+  }
 }
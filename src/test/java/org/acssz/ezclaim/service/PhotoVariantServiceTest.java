@@ -0,0 +1,184 @@
+package org.acssz.ezclaim.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.imageio.ImageIO;
+import org.acssz.ezclaim.config.PhotoVariantProperties;
+import org.acssz.ezclaim.domain.Photo;
+import org.acssz.ezclaim.domain.Photo.VariantStatus;
+import org.acssz.ezclaim.storage.S3ObjectStore;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+@ExtendWith(MockitoExtension.class)
+class PhotoVariantServiceTest {
+
+  @Mock S3Client s3;
+  @Mock ObjectProvider<S3AsyncClient> s3Async;
+  @Mock MongoTemplate template;
+  @Mock ApplicationEventPublisher events;
+
+  PhotoVariantService service;
+
+  Photo photo =
+      Photo.builder()
+          .id("p1")
+          .bucket("bkt")
+          .key("r/1.png")
+          .variantStatus(VariantStatus.PENDING)
+          .build();
+
+  @BeforeEach
+  void setup() {
+    service =
+        new PhotoVariantService(
+            new S3ObjectStore(s3, s3Async, null),
+            template,
+            events,
+            new PhotoVariantProperties(),
+            new SimpleMeterRegistry());
+  }
+
+  @AfterEach
+  void teardown() {
+    service.destroy();
+  }
+
+  @Test
+  void generate_stores_scaled_jpegs_beside_original_and_marks_ready() throws Exception {
+    stubObject(png(2000, 1000));
+    List<String> keys = new ArrayList<>();
+    List<BufferedImage> images = new ArrayList<>();
+    when(s3.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+        .thenAnswer(
+            inv -> {
+              PutObjectRequest put = inv.getArgument(0);
+              RequestBody body = inv.getArgument(1);
+              assertThat(put.contentType()).isEqualTo("image/jpeg");
+              keys.add(put.key());
+              images.add(ImageIO.read(body.contentStreamProvider().newStream()));
+              return null;
+            });
+    when(template.findAndModify(
+            any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Photo.class)))
+        .thenReturn(photo);
+    when(template.getConverter()).thenReturn(mock(MongoConverter.class));
+
+    service.generate(photo);
+
+    assertThat(keys).containsExactly("r/1.png.thumb.jpg", "r/1.png.preview.jpg");
+    assertThat(images).extracting(BufferedImage::getWidth).containsExactly(320, 1280);
+    assertThat(images).extracting(BufferedImage::getHeight).containsExactly(160, 640);
+    Document set = recordedSet();
+    assertThat(set.get("variantStatus")).isEqualTo(VariantStatus.READY);
+    assertThat(set.get("variants"))
+        .isEqualTo(Map.of("thumb", "r/1.png.thumb.jpg", "preview", "r/1.png.preview.jpg"));
+    verify(events).publishEvent(any(AfterSaveEvent.class));
+  }
+
+  @Test
+  void generate_marks_non_images_unsupported() {
+    stubObject("%PDF-1.7 receipt".getBytes(StandardCharsets.US_ASCII));
+
+    service.generate(photo);
+
+    verify(s3, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    assertThat(recordedSet().get("variantStatus")).isEqualTo(VariantStatus.UNSUPPORTED);
+  }
+
+  @Test
+  void generate_leaves_photo_pending_until_object_is_uploaded() {
+    when(s3.getObject(any(GetObjectRequest.class)))
+        .thenThrow(NoSuchKeyException.builder().message("missing").build());
+
+    service.generate(photo);
+
+    verifyNoInteractions(template, events);
+  }
+
+  @Test
+  void generate_removes_variants_of_photo_deleted_meanwhile() throws Exception {
+    stubObject(png(400, 300));
+    when(template.exists(any(Query.class), eq(Photo.class))).thenReturn(false);
+
+    service.generate(photo);
+
+    verify(s3, times(2)).deleteObject(any(DeleteObjectRequest.class));
+    verifyNoInteractions(events);
+  }
+
+  @Test
+  void submit_ignores_photos_not_pending() {
+    Photo done = Photo.builder().id("p2").variantStatus(VariantStatus.READY).build();
+    assertThat(service.submit(done)).isFalse();
+    assertThat(service.submit(Photo.builder().id("p3").build())).isFalse();
+  }
+
+  @Test
+  void scale_keeps_aspect_ratio_and_never_enlarges() {
+    BufferedImage tall = new BufferedImage(300, 900, BufferedImage.TYPE_INT_ARGB);
+    BufferedImage scaled = PhotoVariantService.scale(tall, 100);
+    assertThat(scaled.getWidth()).isEqualTo(100);
+    assertThat(scaled.getHeight()).isEqualTo(300);
+    assertThat(scaled.getType()).isEqualTo(BufferedImage.TYPE_INT_RGB);
+    assertThat(PhotoVariantService.scale(tall, 1280).getWidth()).isEqualTo(300);
+  }
+
+  private Document recordedSet() {
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(template)
+        .findAndModify(
+            any(Query.class), update.capture(), any(FindAndModifyOptions.class), eq(Photo.class));
+    return (Document) update.getValue().getUpdateObject().get("$set");
+  }
+
+  private void stubObject(byte[] bytes) {
+    when(s3.getObject(any(GetObjectRequest.class)))
+        .thenReturn(
+            new ResponseInputStream<>(
+                GetObjectResponse.builder().contentLength((long) bytes.length).build(),
+                AbortableInputStream.create(new ByteArrayInputStream(bytes))));
+  }
+
+  private static byte[] png(int width, int height) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+    return out.toByteArray();
+  }
+}
@@ -5,19 +5,29 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
 import java.util.Optional;
+import org.acssz.ezclaim.cache.EntityCaches;
+import org.acssz.ezclaim.config.EntityCacheProperties;
 import org.acssz.ezclaim.domain.Tag;
 import org.acssz.ezclaim.repository.TagRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 @ExtendWith(MockitoExtension.class)
 class TagServiceTest {
 
   @Mock TagRepository tagRepository;
+
+  @Spy
+  EntityCaches caches =
+      new EntityCaches(new EntityCacheProperties(), new SimpleMeterRegistry(), null);
+
   @InjectMocks TagService tagService;
 
   @Test
@@ -35,6 +45,20 @@ class TagServiceTest {
     assertThat(saved.getColor()).isEqualTo("#fff");
   }
 
+  @Test
+  void get_is_cached_until_invalidated() {
+    Tag t = Tag.builder().id("t1").label("a").build();
+    when(tagRepository.findById("t1")).thenReturn(Optional.of(t));
+
+    assertThat(tagService.get("t1")).isSameAs(t);
+    assertThat(tagService.get("t1")).isSameAs(t);
+    verify(tagRepository, times(1)).findById("t1");
+
+    caches.invalidate(EntityCaches.TAGS, "t1");
+    tagService.get("t1");
+    verify(tagRepository, times(2)).findById("t1");
+  }
+
   @Test
   void get_not_found_throws() {
     when(tagRepository.findById("nope")).thenReturn(Optional.empty());
@@ -49,5 +73,18 @@ class TagServiceTest {
     Tag updated = tagService.update("t1", "b", "#111");
     assertThat(updated.getLabel()).isEqualTo("b");
     assertThat(updated.getColor()).isEqualTo("#111");
+    assertThat(updated.getUpdatedAt()).isNotNull();
+  }
+
+  @Test
+  void list_version_combines_count_and_latest_change() {
+    when(tagRepository.count()).thenReturn(0L);
+    when(tagRepository.findFirstByOrderByUpdatedAtDesc()).thenReturn(Optional.empty());
+    assertThat(tagService.listVersion()).isEqualTo("0-0");
+
+    Tag latest = Tag.builder().id("t2").updatedAt(Instant.ofEpochMilli(1234)).build();
+    when(tagRepository.count()).thenReturn(2L);
+    when(tagRepository.findFirstByOrderByUpdatedAtDesc()).thenReturn(Optional.of(latest));
+    assertThat(tagService.listVersion()).isEqualTo("2-1234");
   }
 }
@@ -0,0 +1,144 @@
+package org.acssz.ezclaim.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.acssz.ezclaim.config.ObjectStoreProperties;
+import org.acssz.ezclaim.service.BadRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LocalObjectStoreTest {
+
+  @TempDir Path root;
+
+  LocalObjectStore store;
+
+  @BeforeEach
+  void setup() {
+    ObjectStoreProperties props = new ObjectStoreProperties();
+    props.setLocalRoot(root);
+    props.setLocalBaseUrl("https://claims.example.org/");
+    props.setLocalSigningKey("test-key");
+    store = new LocalObjectStore(props);
+  }
+
+  @Test
+  void writes_atomically_and_reads_back_with_transferTo() throws Exception {
+    store.put("bkt", "a/b.txt", bytes("first"), "text/plain");
+    String etag = store.write("bkt", "a/b.txt", new ByteArrayInputStream(bytes("second")), 100);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (LocalObjectStore.LocalObject o = store.read("bkt", "a/b.txt")) {
+      assertThat(o.size()).isEqualTo(6);
+      assertThat(o.etag()).isEqualTo(etag);
+      o.transferTo(Channels.newChannel(out));
+    }
+    assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("second");
+    // Only the object itself: the temporary upload was renamed into place
+    try (Stream<Path> files = Files.list(root.resolve("bkt/a"))) {
+      assertThat(files.map(p -> p.getFileName().toString())).containsExactly("b.txt");
+    }
+  }
+
+  @Test
+  void head_and_open_respect_their_limits() throws Exception {
+    store.put("bkt", "k", bytes("0123456789"), null);
+
+    ObjectStore.ObjectHead head = store.head("bkt", "k", 4);
+    assertThat(head.size()).isEqualTo(10);
+    assertThat(new String(head.bytes(), StandardCharsets.UTF_8)).isEqualTo("0123");
+    assertThat(store.open("bkt", "k", 9)).isNull();
+    try (InputStream in = store.open("bkt", "k", 10)) {
+      assertThat(in.readAllBytes()).hasSize(10);
+    }
+  }
+
+  @Test
+  void oversized_write_stores_nothing() throws Exception {
+    assertThatThrownBy(() -> store.write("bkt", "big", new ByteArrayInputStream(new byte[11]), 10))
+        .isInstanceOf(ObjectTooLargeException.class);
+
+    assertThat(store.exists("bkt", "big")).isFalse();
+    try (Stream<Path> files = Files.list(root.resolve("bkt"))) {
+      assertThat(files).isEmpty();
+    }
+  }
+
+  @Test
+  void missing_objects_and_escaping_keys() {
+    assertThatThrownBy(() -> store.head("bkt", "nope", 10))
+        .isInstanceOf(NoSuchObjectException.class);
+    assertThat(store.exists("bkt", "nope")).isFalse();
+    store.delete("bkt", List.of("nope")); // ignored
+
+    for (String key : List.of("../x", "a/../../x", "/abs", "a//b", ".upload-1.tmp")) {
+      assertThatThrownBy(() -> store.put("bkt", key, bytes("x"), null))
+          .as(key)
+          .isInstanceOf(BadRequestException.class);
+    }
+    assertThatThrownBy(() -> store.put("../etc", "x", bytes("x"), null))
+        .isInstanceOf(BadRequestException.class);
+  }
+
+  @Test
+  void signed_links_only_work_for_what_they_were_issued_for() {
+    URL get = store.signDownload("bkt", "a b/c.png", Duration.ofMinutes(5));
+    assertThat(get.toString())
+        .startsWith("https://claims.example.org/api/objects/bkt/a%20b/c.png?");
+    Map<String, String> q = query(get);
+    long expires = Long.parseLong(q.get("expires"));
+    String sig = q.get("signature");
+
+    assertThat(store.verify("GET", "bkt", "a b/c.png", expires, null, sig)).isTrue();
+    assertThat(store.verify("PUT", "bkt", "a b/c.png", expires, null, sig)).isFalse();
+    assertThat(store.verify("GET", "bkt", "other.png", expires, null, sig)).isFalse();
+    assertThat(store.verify("GET", "bkt", "a b/c.png", expires + 60, null, sig)).isFalse();
+    assertThat(store.verify("GET", "bkt", "a b/c.png", expires, null, "not-base64!")).isFalse();
+
+    ObjectStore.SignedUpload put = store.signUpload("bkt", "k", "image/png", Duration.ofMinutes(5));
+    Map<String, String> pq = query(put.url());
+    long putExpires = Long.parseLong(pq.get("expires"));
+    assertThat(put.headers()).containsEntry("Content-Type", List.of("image/png"));
+    assertThat(store.verify("PUT", "bkt", "k", putExpires, "image/png", pq.get("signature")))
+        .isTrue();
+    assertThat(store.verify("PUT", "bkt", "k", putExpires, "text/html", pq.get("signature")))
+        .isFalse();
+  }
+
+  @Test
+  void expired_links_are_refused() {
+    URL url = store.signDownload("bkt", "k", Duration.ofSeconds(-5));
+    Map<String, String> q = query(url);
+    assertThat(Long.parseLong(q.get("expires"))).isLessThan(Instant.now().getEpochSecond());
+    assertThat(
+            store.verify(
+                "GET", "bkt", "k", Long.parseLong(q.get("expires")), null, q.get("signature")))
+        .isFalse();
+  }
+
+  private static Map<String, String> query(URL url) {
+    return Stream.of(url.getQuery().split("&"))
+        .map(p -> p.split("=", 2))
+        .collect(Collectors.toMap(p -> p[0], p -> p[1]));
+  }
+
+  private static byte[] bytes(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+}